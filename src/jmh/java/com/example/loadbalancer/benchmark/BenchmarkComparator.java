@@ -0,0 +1,118 @@
+package com.example.loadbalancer.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares JMH JSON results against a baseline run of the same benchmarks.
+ * A benchmark regresses when its score is worse than the baseline by more than the tolerance, in the direction
+ * of its unit: throughput must not drop, time per operation must not grow. The bytes allocated per operation
+ * reported by the GC profiler must not grow either. Benchmarks missing from either side are skipped
+ * <p>
+ * Arguments: the baseline file, the current file and the tolerance as a fraction, 0.10 by default.
+ * Exits with status 1 when anything regressed
+ * </p>
+ */
+public final class BenchmarkComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * Allocation noise below this many bytes per operation is not a regression, whatever the tolerance
+     */
+    private static final double ALLOCATION_SLACK_BYTES = 1.0;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private BenchmarkComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: BenchmarkComparator <baseline.json> <current.json> [tolerance]");
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        List<String> regressions = compare(new File(args[0]), new File(args[1]), tolerance);
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints one line per benchmark present on both sides
+     *
+     * @return, The description of every regression, empty when none regressed
+     */
+    static List<String> compare(File baselineFile, File currentFile, double tolerance) throws IOException {
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(currentFile);
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%nComparing %s against the baseline %s, tolerance %.0f%%%n",
+                currentFile, baselineFile, tolerance * 100);
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("  %-90s no baseline%n", entry.getKey());
+                continue;
+            }
+            Score after = entry.getValue();
+            double change = before.score() == 0 ? 0 : (after.score() - before.score()) / before.score();
+            boolean slower = after.higherIsBetter() ? change < -tolerance : change > tolerance;
+            boolean allocates = !Double.isNaN(before.allocatedBytes()) && !Double.isNaN(after.allocatedBytes())
+                    && after.allocatedBytes() > before.allocatedBytes() * (1 + tolerance) + ALLOCATION_SLACK_BYTES;
+            System.out.printf("  %-90s %12.3f -> %12.3f %-10s %+7.1f%%%s%s%n", entry.getKey(), before.score(),
+                    after.score(), after.unit(), change * 100, slower ? "  REGRESSED" : "",
+                    allocates ? "  ALLOCATES " + before.allocatedBytes() + " -> " + after.allocatedBytes() + " B/op" : "");
+            if (slower) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s", entry.getKey(), before.score(), after.score(),
+                        after.unit()));
+            }
+            if (allocates) {
+                regressions.add(String.format("%s: %.1f -> %.1f B/op", entry.getKey(), before.allocatedBytes(),
+                        after.allocatedBytes()));
+            }
+        }
+        System.out.printf("%d regression(s)%n", regressions.size());
+        return regressions;
+    }
+
+    /**
+     * @return, The score of every benchmark keyed by its name, parameters and thread count
+     */
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode result : OBJECT_MAPPER.readTree(file)) {
+            JsonNode primary = result.path("primaryMetric");
+            String unit = primary.path("scoreUnit").asText();
+            JsonNode allocation = result.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            scores.put(keyOf(result), new Score(primary.path("score").asDouble(), unit, !unit.endsWith("/op"),
+                    allocation.isMissingNode() ? Double.NaN : allocation.path("score").asDouble()));
+        }
+        return scores;
+    }
+
+    private static String keyOf(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        Map<String, String> params = new TreeMap<>();
+        for (Map.Entry<String, JsonNode> param : result.path("params").properties()) {
+            params.put(param.getKey(), param.getValue().asText());
+        }
+        params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        return key.append(" threads=").append(result.path("threads").asInt()).toString();
+    }
+
+    /**
+     * @param higherIsBetter, Whether the unit is a throughput, time per operation units end with `/op`
+     * @param allocatedBytes, The bytes allocated per operation, NaN when the GC profiler was not attached
+     */
+    record Score(double score, String unit, boolean higherIsBetter, double allocatedBytes) {
+    }
+}
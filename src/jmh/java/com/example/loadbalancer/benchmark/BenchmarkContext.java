@@ -0,0 +1,68 @@
+package com.example.loadbalancer.benchmark;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.factory.LoadBalancerFactory;
+import com.example.loadbalancer.registry.BackendRegistry;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wires the strategies the way the application does, by scanning the strategy and factory packages,
+ * so every strategy added later is part of the benchmarks without touching them.
+ * Only the trackers and the configuration are supplied by hand, no web server or scheduler is started
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    static final String HASH_KEY_HEADER = "X-Routing-Key";
+
+    private final AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+    private final List<String> instances;
+    private final InstanceTracker instanceTracker = new InstanceTracker();
+
+    /**
+     * @param instanceCount, The size of the pool
+     * @param unhealthyRatio, The share of the pool marked unhealthy, the leading instances are picked
+     */
+    BenchmarkContext(int instanceCount, double unhealthyRatio) {
+        instances = new ArrayList<>();
+        for (int i = 0; i < instanceCount; i++) {
+            instances.add("http://worker-" + i + ":8080");
+        }
+        int unhealthyCount = Math.min((int) (instanceCount * unhealthyRatio), instanceCount - 1);
+        for (int i = 0; i < unhealthyCount; i++) {
+            instanceTracker.markInstanceUnHealthy(instances.get(i));
+        }
+
+        AppConfig appConfig = new AppConfig();
+        appConfig.setInstances(instances);
+        appConfig.setHashKeyHeader(HASH_KEY_HEADER);
+
+        applicationContext.getBeanFactory().registerSingleton("appConfig", appConfig);
+        applicationContext.getBeanFactory().registerSingleton("instanceTracker", instanceTracker);
+        applicationContext.getBeanFactory().registerSingleton("instanceLoadTracker", new InstanceLoadTracker());
+        applicationContext.getBeanFactory().registerSingleton("backendRegistry", new BackendRegistry(appConfig));
+        applicationContext.scan("com.example.loadbalancer.strategy", "com.example.loadbalancer.factory");
+        applicationContext.refresh();
+    }
+
+    List<String> instances() {
+        return instances;
+    }
+
+    InstanceTracker instanceTracker() {
+        return instanceTracker;
+    }
+
+    LoadBalancerFactory loadBalancerFactory() {
+        return applicationContext.getBean(LoadBalancerFactory.class);
+    }
+
+    @Override
+    public void close() {
+        applicationContext.close();
+    }
+}
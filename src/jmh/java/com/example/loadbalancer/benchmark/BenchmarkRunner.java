@@ -0,0 +1,81 @@
+package com.example.loadbalancer.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmarks once per thread count with the GC profiler attached, so every result carries
+ * the allocation rate and bytes allocated per operation next to the throughput.
+ * The strategy parameter is filled with every registered strategy.
+ * Writes one JSON result file per thread count, ready to be compared between builds.
+ * When a baseline directory is given, every result file is compared with the file of the same name in it
+ * by {@link BenchmarkComparator}, and the run exits with status 1 when a benchmark regressed
+ * <p>
+ * Arguments: the benchmark regex, the comma separated thread counts, the result directory, the baseline
+ * directory or `none`, and the tolerance of the comparison as a fraction
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String filter = args.length > 0 ? args[0] : ".*";
+        String threads = args.length > 1 ? args[1] : "1,4,16,64";
+        File resultDirectory = new File(args.length > 2 ? args[2] : "target/jmh");
+        File baselineDirectory = args.length > 3 && !"none".equals(args[3]) ? new File(args[3]) : null;
+        double tolerance = args.length > 4 ? Double.parseDouble(args[4]) : 0.10;
+        if (!resultDirectory.isDirectory() && !resultDirectory.mkdirs()) {
+            throw new IllegalStateException("Cannot create the result directory " + resultDirectory);
+        }
+
+        String[] strategies;
+        try (BenchmarkContext benchmarkContext = new BenchmarkContext(1, 0)) {
+            strategies = benchmarkContext.loadBalancerFactory().getStrategyNames().stream().sorted().toArray(String[]::new);
+        }
+
+        for (String threadCount : threads.split(",")) {
+            int threadsValue = Integer.parseInt(threadCount.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(filter)
+                    .threads(threadsValue)
+                    .param("strategy", strategies)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDirectory, resultFileName(threadsValue)).getPath());
+            new Runner(options.build()).run();
+        }
+
+        if (baselineDirectory != null) {
+            List<String> regressions = new ArrayList<>();
+            for (String threadCount : threads.split(",")) {
+                String fileName = resultFileName(Integer.parseInt(threadCount.trim()));
+                File baseline = new File(baselineDirectory, fileName);
+                if (!baseline.isFile()) {
+                    System.out.printf("No baseline %s, skipping the comparison%n", baseline);
+                    continue;
+                }
+                regressions.addAll(BenchmarkComparator.compare(baseline, new File(resultDirectory, fileName), tolerance));
+            }
+            if (!regressions.isEmpty()) {
+                System.out.println("Regressed against the baseline:");
+                regressions.forEach(regression -> System.out.println("  " + regression));
+                System.exit(1);
+            }
+        }
+    }
+
+    private static String resultFileName(int threads) {
+        return "results-" + threads + "-threads.json";
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.loadbalancer.benchmark;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.limiter.ClientRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charges requests of already seen clients to {@link ClientRateLimiter}, the rate is high enough
+ * that nothing is throttled. With one client every thread contends on the same bucket
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientRateLimiterBenchmark {
+
+    @Param({"1", "1000", "100000"})
+    private int clientCount;
+
+    private ClientRateLimiter clientRateLimiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getRateLimit().setEnabled(true);
+        appConfig.getRateLimit().setRequestsPerSecond(1e9);
+        appConfig.getRateLimit().setBurst(Integer.MAX_VALUE);
+        appConfig.getRateLimit().setMaxClients(clientCount * 2L);
+        clientRateLimiter = new ClientRateLimiter(appConfig, new SimpleMeterRegistry());
+        clients = new String[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+            clientRateLimiter.acquire(clients[i]);
+        }
+    }
+
+    @Benchmark
+    public void acquire() {
+        clientRateLimiter.acquire(clients[ThreadLocalRandom.current().nextInt(clients.length)]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.loadbalancer.benchmark;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.strategy.RoundRobinStrategy;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares round robin selection over the healthy snapshot against the former scan,
+ * which walked the configured list and looked every candidate up in the unhealthy set.
+ * The unhealthy instances are the leading ones, the worst case for the scan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HealthySnapshotBenchmark {
+
+    @Param({"8", "32"})
+    private int instanceCount;
+
+    @Param({"2", "6"})
+    private int unhealthyCount;
+
+    private List<String> instances;
+    private InstanceTracker instanceTracker;
+    private RoundRobinStrategy roundRobinStrategy;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        instances = new ArrayList<>();
+        for (int i = 0; i < instanceCount; i++) {
+            instances.add("http://localhost:" + (8081 + i));
+        }
+        instanceTracker = new InstanceTracker();
+        for (int i = 0; i < unhealthyCount; i++) {
+            instanceTracker.markInstanceUnHealthy(instances.get(i));
+        }
+        roundRobinStrategy = new RoundRobinStrategy(instanceTracker);
+    }
+
+    @Benchmark
+    public String snapshotRoundRobin() {
+        return roundRobinStrategy.getInstanceUrl(instances);
+    }
+
+    @Benchmark
+    public String scanningRoundRobin() {
+        for (int i = 0; i < instances.size(); i++) {
+            int index = counter.getAndUpdate(
+                    current -> (current >= Integer.MAX_VALUE - 1) ? 0 : current + 1) % instances.size();
+            String instance = instances.get(index);
+            if (!instanceTracker.isInstanceUnhealthy(instance)) {
+                return instance;
+            }
+        }
+        throw new NoAvailableInstanceException("No Healthy instance available");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.loadbalancer.benchmark;
+
+import com.example.loadbalancer.tracker.CircuitBreaker;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups every request makes on {@link InstanceTracker}: the health of one instance,
+ * the healthy snapshot and the circuit breaker permit
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceTrackerBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int instanceCount;
+
+    @Param({"0.0", "0.25", "0.5"})
+    private double unhealthyRatio;
+
+    private BenchmarkContext benchmarkContext;
+    private InstanceTracker instanceTracker;
+    private List<String> instances;
+
+    @Setup
+    public void setUp() {
+        benchmarkContext = new BenchmarkContext(instanceCount, unhealthyRatio);
+        instanceTracker = benchmarkContext.instanceTracker();
+        instances = benchmarkContext.instances();
+    }
+
+    @TearDown
+    public void tearDown() {
+        benchmarkContext.close();
+    }
+
+    @Benchmark
+    public boolean isInstanceUnhealthy() {
+        return instanceTracker.isInstanceUnhealthy(randomInstance());
+    }
+
+    @Benchmark
+    public HealthySnapshot getHealthySnapshot() {
+        return instanceTracker.getHealthySnapshot(instances);
+    }
+
+    @Benchmark
+    public CircuitBreaker.Permit tryAcquire() {
+        return instanceTracker.tryAcquire(randomInstance());
+    }
+
+    private String randomInstance() {
+        return instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.loadbalancer.benchmark;
+
+import com.example.loadbalancer.factory.LoadBalancerFactory;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.strategy.LoadBalancingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection hot path of every strategy: the factory lookup and {@link LoadBalancingStrategy#getInstanceUrl}
+ * across pool sizes and unhealthy ratios. The strategy list is filled in by {@link BenchmarkRunner}
+ * from the registered strategies, the default below only applies when JMH is run directly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategySelectionBenchmark {
+
+    @Param({"roundrobin", "leastoutstanding", "p2c", "weightedroundrobin", "consistenthash"})
+    private String strategy;
+
+    @Param({"4", "16", "64"})
+    private int instanceCount;
+
+    @Param({"0.0", "0.25", "0.5"})
+    private double unhealthyRatio;
+
+    private BenchmarkContext benchmarkContext;
+    private LoadBalancerFactory loadBalancerFactory;
+    private LoadBalancingStrategy loadBalancingStrategy;
+    private List<String> instances;
+
+    @Setup
+    public void setUp() {
+        benchmarkContext = new BenchmarkContext(instanceCount, unhealthyRatio);
+        loadBalancerFactory = benchmarkContext.loadBalancerFactory();
+        loadBalancingStrategy = loadBalancerFactory.getStrategy(strategy);
+        instances = benchmarkContext.instances();
+    }
+
+    @TearDown
+    public void tearDown() {
+        benchmarkContext.close();
+    }
+
+    /**
+     * Requests of one thread, each with its own routing key so hashing strategies spread over the pool
+     */
+    @State(Scope.Thread)
+    public static class Requests {
+
+        private static final int SIZE = 1024;
+
+        private final RoutingRequest[] requests = new RoutingRequest[SIZE];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < SIZE; i++) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(BenchmarkContext.HASH_KEY_HEADER, "gamer-" + i);
+                requests[i] = RoutingRequest.of(Map.of("gamerID", "gamer-" + i), headers);
+            }
+        }
+
+        RoutingRequest next() {
+            next = (next + 1) & (SIZE - 1);
+            return requests[next];
+        }
+    }
+
+    @Benchmark
+    public String selectInstance(Requests requests) {
+        return loadBalancingStrategy.getInstanceUrl(instances, requests.next());
+    }
+
+    @Benchmark
+    public LoadBalancingStrategy getStrategy() {
+        return loadBalancerFactory.getStrategy(strategy);
+    }
+
+    @Benchmark
+    public String getStrategyAndSelectInstance(Requests requests) {
+        return loadBalancerFactory.getStrategy(strategy).getInstanceUrl(instances, requests.next());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.loadbalancer.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.Random;
+
+/**
+ * Service time distribution of a stub worker, parsed from a spec:
+ * `fixed:5ms`, `uniform:2ms:10ms` or `lognormal:5ms:0.5` (median and sigma of the underlying normal).
+ * Log-normal gives the long right tail real services show
+ */
+interface LatencyDistribution {
+
+    long sampleNanos(Random random);
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        return switch (parts[0].toLowerCase()) {
+            case "fixed" -> {
+                long nanos = nanos(parts, 1);
+                yield random -> nanos;
+            }
+            case "uniform" -> {
+                long min = nanos(parts, 1);
+                long max = nanos(parts, 2);
+                yield random -> min + (long) (random.nextDouble() * (max - min));
+            }
+            case "lognormal" -> {
+                double mu = Math.log(nanos(parts, 1));
+                double sigma = Double.parseDouble(parts[2]);
+                yield random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution " + spec);
+        };
+    }
+
+    private static long nanos(String[] parts, int index) {
+        if (parts.length <= index) {
+            throw new IllegalArgumentException("Missing value in latency distribution " + String.join(":", parts));
+        }
+        return DurationStyle.detectAndParse(parts[index]).toNanos();
+    }
+}
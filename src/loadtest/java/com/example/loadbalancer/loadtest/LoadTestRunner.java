@@ -0,0 +1,142 @@
+package com.example.loadbalancer.loadtest;
+
+import com.example.loadbalancer.LoadBalancerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * End-to-end load test of the proxy on one machine. Starts N stub workers and the load balancer on a
+ * random port, then offers each configured rate open-loop against `/route` and reports p50, p99, p99.9,
+ * the achieved throughput, the peak platform thread count, and the highest rate the proxy sustained within
+ * the p99 objective.
+ * <p>
+ * Options are passed as `--loadtest.*` arguments, every other argument goes to the load balancer itself,
+ * so configurations and strategies can be compared with the same command. Results are appended as CSV
+ * to the results directory.
+ * </p>
+ */
+public final class LoadTestRunner {
+
+    private static final byte[] PAYLOAD = "{\"game\":\"Mobile Legends\",\"gamerID\":\"GYUTDTE\",\"points\":20}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        Options options = Options.from(environment);
+
+        // The harness runs from the test classpath, a devtools restart would reload the app mid-run
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<StubWorker> workers = new ArrayList<>();
+        ConfigurableApplicationContext application = null;
+        try {
+            for (int i = 0; i < options.workers(); i++) {
+                workers.add(new StubWorker(options.latency(), options.errorRate()));
+            }
+            // Command line arguments outrank application.properties, so the stubs replace the configured instances
+            List<String> applicationArgs = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--loadbalancer.instances=" + String.join(",", workers.stream().map(StubWorker::baseUrl).toList()),
+                    "--logging.level.com.example.loadbalancer=WARN"));
+            applicationArgs.addAll(Arrays.asList(args));
+            application = new SpringApplicationBuilder(LoadBalancerApplication.class)
+                    .run(applicationArgs.toArray(String[]::new));
+            int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String algorithm = application.getEnvironment().getProperty("loadbalancer.algorithm");
+
+            try (OpenLoopDriver driver = new OpenLoopDriver("http://127.0.0.1:" + port, PAYLOAD)) {
+                System.out.printf("Warming up at %d rps for %s%n", options.rates()[0], options.warmup());
+                driver.run(options.rates()[0], options.warmup());
+
+                System.out.printf("%n%-10s %-12s %-10s %-10s %-10s %-10s %-10s %-8s %-8s%n",
+                        "target", "achieved", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "threads");
+                int maxSustainedRate = 0;
+                List<OpenLoopDriver.StepResult> results = new ArrayList<>();
+                for (int rate : options.rates()) {
+                    OpenLoopDriver.StepResult result = driver.run(rate, options.duration());
+                    results.add(result);
+                    System.out.printf("%-10d %-12.1f %-10.2f %-10.2f %-10.2f %-10.2f %-10.2f %-8d %-8d%n",
+                            rate, result.achievedRate(), result.percentileMillis(50), result.percentileMillis(90),
+                            result.percentileMillis(99), result.percentileMillis(99.9), result.maxMillis(), result.errors(),
+                            result.peakThreads());
+                    if (result.achievedRate() >= rate * 0.95
+                            && result.percentileMillis(99) <= options.p99Objective().toNanos() / 1e6) {
+                        maxSustainedRate = rate;
+                    }
+                }
+                System.out.printf("%nMax sustained rate within p99 <= %s: %d rps%n", options.p99Objective(), maxSustainedRate);
+                writeCsv(options, algorithm, results);
+            }
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            workers.forEach(StubWorker::close);
+        }
+    }
+
+    private static void writeCsv(Options options, String algorithm, List<OpenLoopDriver.StepResult> results)
+            throws IOException {
+        Files.createDirectories(options.resultDirectory());
+        Path file = options.resultDirectory().resolve("results.csv");
+        boolean header = !Files.exists(file);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (header) {
+                writer.println("timestamp,algorithm,workers,latency,error_rate,target_rps,achieved_rps,"
+                        + "p50_ms,p90_ms,p99_ms,p999_ms,max_ms,successes,errors,peak_threads");
+            }
+            for (OpenLoopDriver.StepResult result : results) {
+                writer.printf("%s,%s,%d,%s,%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d,%d%n",
+                        timestamp, algorithm, options.workers(), options.latencySpec(), options.errorRate(),
+                        result.targetRate(), result.achievedRate(), result.percentileMillis(50),
+                        result.percentileMillis(90), result.percentileMillis(99), result.percentileMillis(99.9),
+                        result.maxMillis(), result.successes(), result.errors(), result.peakThreads());
+            }
+        }
+        System.out.println("Results appended to " + file);
+    }
+
+    private record Options(int workers, String latencySpec, LatencyDistribution latency, double errorRate,
+                           int[] rates, Duration duration, Duration warmup, Duration p99Objective,
+                           Path resultDirectory) {
+
+        static Options from(PropertyResolver properties) {
+            String latencySpec = properties.getProperty("loadtest.latency", "lognormal:5ms:0.5");
+            return new Options(
+                    properties.getProperty("loadtest.workers", Integer.class, 3),
+                    latencySpec,
+                    LatencyDistribution.parse(latencySpec),
+                    properties.getProperty("loadtest.error-rate", Double.class, 0.0),
+                    Arrays.stream(properties.getProperty("loadtest.rates", "500,1000,2000,4000").split(","))
+                            .mapToInt(rate -> Integer.parseInt(rate.trim()))
+                            .toArray(),
+                    DurationStyle.detectAndParse(properties.getProperty("loadtest.duration", "30s")),
+                    DurationStyle.detectAndParse(properties.getProperty("loadtest.warmup", "10s")),
+                    DurationStyle.detectAndParse(properties.getProperty("loadtest.p99-objective", "100ms")),
+                    Path.of(properties.getProperty("loadtest.results", "target/loadtest")));
+        }
+    }
+}
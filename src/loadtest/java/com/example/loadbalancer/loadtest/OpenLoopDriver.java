@@ -0,0 +1,122 @@
+package com.example.loadbalancer.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. Requests are started on a fixed schedule whatever the state of earlier ones,
+ * and every latency is measured from the time the request was due rather than the time it was sent.
+ * A stalled proxy therefore shows up in the percentiles instead of silently lowering the offered load,
+ * which corrects for coordinated omission
+ */
+final class OpenLoopDriver implements AutoCloseable {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final ConnectionProvider connectionProvider = ConnectionProvider.builder("loadtest")
+            .maxConnections(20_000)
+            .pendingAcquireMaxCount(-1)
+            .build();
+    private final HttpClient httpClient;
+    private final byte[] body;
+
+    OpenLoopDriver(String targetUrl, byte[] body) {
+        this.httpClient = HttpClient.create(connectionProvider)
+                .baseUrl(targetUrl)
+                .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json"));
+        this.body = body;
+    }
+
+    /**
+     * Offers the rate for the duration and waits for the outstanding requests
+     *
+     * @param rate, Requests per second
+     * @return, The latencies and outcome counts of the run
+     */
+    StepResult run(int rate, Duration duration) {
+        Recorder recorder = new Recorder(3);
+        AtomicLong successes = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong outstanding = new AtomicLong();
+        AtomicLong lastCompletionNanos = new AtomicLong();
+
+        threads.resetPeakThreadCount();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long durationNanos = duration.toNanos();
+        long startNanos = System.nanoTime();
+
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + i * intervalNanos;
+            if (intendedNanos - startNanos >= durationNanos) {
+                break;
+            }
+            long waitNanos;
+            while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            outstanding.incrementAndGet();
+            httpClient.post()
+                    .uri("/route")
+                    .send((request, outbound) -> outbound.sendByteArray(Mono.just(body)))
+                    .responseSingle((response, content) -> content.then(Mono.just(response.status().code())))
+                    .subscribe(
+                            status -> (status == 200 ? successes : errors).incrementAndGet(),
+                            error -> complete(recorder, intendedNanos, errors, outstanding, lastCompletionNanos),
+                            () -> complete(recorder, intendedNanos, null, outstanding, lastCompletionNanos));
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        double elapsedSeconds = Math.max(lastCompletionNanos.get() - startNanos, 1) / 1e9;
+        return new StepResult(rate, successes.get() / elapsedSeconds, successes.get(),
+                errors.get() + outstanding.get(), threads.getPeakThreadCount(), histogram);
+    }
+
+    private static void complete(Recorder recorder, long intendedNanos, AtomicLong errors,
+                                 AtomicLong outstanding, AtomicLong lastCompletionNanos) {
+        long nowNanos = System.nanoTime();
+        recorder.recordValue(Math.max(nowNanos - intendedNanos, 0));
+        if (errors != null) {
+            errors.incrementAndGet();
+        }
+        lastCompletionNanos.accumulateAndGet(nowNanos, Math::max);
+        outstanding.decrementAndGet();
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Outcome of one load step. Requests still outstanding after the drain timeout count as errors.
+     * The peak covers platform threads of the whole JVM, virtual threads are not counted
+     */
+    record StepResult(int targetRate, double achievedRate, long successes, long errors, int peakThreads,
+                      Histogram histogram) {
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        double maxMillis() {
+            return histogram.getMaxValue() / 1e6;
+        }
+    }
+}
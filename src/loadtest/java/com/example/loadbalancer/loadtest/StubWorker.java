@@ -0,0 +1,51 @@
+package com.example.loadbalancer.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local worker stub on Reactor Netty. Echoes the posted body on `/process` after a delay sampled
+ * from its latency distribution, fails the configured share of requests with a 500, and reports UP
+ * on the health endpoint. Delays are timers, not sleeping threads, so one stub serves any concurrency
+ */
+final class StubWorker implements AutoCloseable {
+
+    private static final String JSON = "application/json";
+
+    private final DisposableServer server;
+
+    StubWorker(LatencyDistribution latency, double errorRate) {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get("/actuator/health", (request, response) -> response
+                                .header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                .sendString(Mono.just("{\"status\":\"UP\"}")))
+                        .post("/process", (request, response) -> request.receive().aggregate().asByteArray()
+                                .delayUntil(body -> Mono.delay(Duration.ofNanos(
+                                        latency.sampleNanos(ThreadLocalRandom.current()))))
+                                .flatMap(body -> ThreadLocalRandom.current().nextDouble() < errorRate
+                                        ? response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR)
+                                                .header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                                .sendString(Mono.just("{\"error\":\"stub failure\"}")).then()
+                                        : response.header(HttpHeaderNames.CONTENT_TYPE, JSON)
+                                                .sendByteArray(Mono.just(body)).then())))
+                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.loadbalancer.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Canonical SHA-256 digests of payloads, used as keys of the response cache and of coalesced requests.
+ * Decoded payloads are serialized with sorted keys first, so that the order of their fields does not matter
+ */
+@Slf4j
+public final class PayloadDigest {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private PayloadDigest() {
+    }
+
+    /**
+     * @return, The digest of the payload, or null when the payload cannot be serialized
+     */
+    public static String of(Map<String, Object> payload) {
+        byte[] canonical = toCanonicalJson(payload);
+        return canonical == null ? null : of(canonical);
+    }
+
+    /**
+     * @return, The digest of the raw body
+     */
+    public static String of(byte[] body) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by the JVM", e);
+        }
+    }
+
+    /**
+     * @return, The value serialized as JSON with sorted keys, or null when it cannot be serialized
+     */
+    static byte[] toCanonicalJson(Object value) {
+        try {
+            return CANONICAL_MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot serialize the payload: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.loadbalancer.cache;
+
+import com.example.loadbalancer.config.AppConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical requests: while an upstream call for a key is in flight,
+ * requests with the same key attach to it and share its response or error instead of going upstream again.
+ * The call is removed from the in-flight map before its result is emitted, so a request arriving from then on
+ * starts a new call instead of attaching to one that has already finished. It is only cancelled once every
+ * attached request has cancelled, so a caller timing out does not fail the others.
+ * Coalescing is enabled per route with `loadbalancer.coalescing.routes`
+ */
+@Component
+public class RequestCoalescer {
+
+    public static final String ROUTE = "route";
+    public static final String BATCH = "batch";
+    public static final String RAW = "raw";
+
+    static final String REQUESTS = "loadbalancer.coalescing.requests";
+    static final String RATIO = "loadbalancer.coalescing.ratio";
+    static final String IN_FLIGHT = "loadbalancer.coalescing.inflight";
+
+    private final AppConfig appConfig;
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+
+    public RequestCoalescer(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.appConfig = appConfig;
+        this.leaders = Counter.builder(REQUESTS)
+                .description("Coalescable requests, tagged leader when they went upstream and follower when they attached")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.followers = Counter.builder(REQUESTS)
+                .description("Coalescable requests, tagged leader when they went upstream and follower when they attached")
+                .tag("result", "follower")
+                .register(meterRegistry);
+        Gauge.builder(RATIO, this, RequestCoalescer::coalesceRatio)
+                .description("Share of the coalescable requests answered by an upstream call already in flight")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, inFlight, Map::size)
+                .description("Upstream calls currently shared by coalesced requests")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return, Whether identical requests of the route are coalesced
+     */
+    public boolean isEnabled(String route) {
+        AppConfig.Coalescing coalescing = appConfig.getCoalescing();
+        return coalescing.isEnabled() && coalescing.getRoutes().contains(route);
+    }
+
+    /**
+     * Attaches to the in-flight call of the key, or starts the call when there is none
+     *
+     * @param key, The key identifying identical requests
+     * @param call, Supplies the upstream call, only invoked by the request starting it
+     * @return, A Mono emitting the response of the shared call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<T>> started = new AtomicReference<>();
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+                // publish().refCount() keeps the call running while any request is attached and cancels it after the last,
+                // doOnEach runs ahead of the signal reaching the attached requests
+                Mono<T> created = call.get()
+                        .doOnEach(signal -> inFlight.remove(k, started.get()))
+                        .doOnCancel(() -> inFlight.remove(k, started.get()))
+                        .flux()
+                        .publish()
+                        .refCount()
+                        .singleOrEmpty();
+                started.set(created);
+                return created;
+            });
+            (shared == started.get() ? leaders : followers).increment();
+            return shared;
+        });
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private double coalesceRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+}
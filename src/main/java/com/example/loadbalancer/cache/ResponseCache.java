@@ -0,0 +1,102 @@
+package com.example.loadbalancer.cache;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Opt-in cache of worker responses for payloads whose responses are deterministic.
+ * Entries are keyed by the configured key field of the payload, or by its {@link PayloadDigest}.
+ * Responses are stored as their serialized JSON and decoded again on every hit, so the cache is bounded by
+ * the bytes it actually holds and callers never share a mutable response.
+ * Eviction is Caffeine's W-TinyLFU and every entry expires after the configured TTL.
+ * Hits, misses, evictions and the size are published as `cache.*` metrics tagged `cache=responses`
+ */
+@Component
+public class ResponseCache {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    private final AppConfig appConfig;
+    private final Cache<String, byte[]> cache;
+
+    public ResponseCache(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.appConfig = appConfig;
+        AppConfig.ResponseCache config = appConfig.getResponseCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher((String key, byte[] json) -> key.length() * 2 + json.length)
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "responses");
+    }
+
+    /**
+     * @return, Whether the cache is enabled and the request does not carry the bypass header
+     */
+    public boolean isCacheable(HttpHeaders headers) {
+        AppConfig.ResponseCache config = appConfig.getResponseCache();
+        return config.isEnabled() && !headers.containsKey(config.getBypassHeader());
+    }
+
+    /**
+     * @return, The cache key of the payload, or null when the payload cannot be serialized
+     */
+    public String keyOf(Map<String, Object> payload) {
+        String keyField = appConfig.getResponseCache().getKeyField();
+        if (keyField != null && payload.get(keyField) != null) {
+            return keyField + "=" + payload.get(keyField);
+        }
+        return PayloadDigest.of(payload);
+    }
+
+    /**
+     * @return, A fresh copy of the cached response, or null when there is none or it cannot be decoded
+     */
+    public Map<String, Object> get(String key) {
+        byte[] json = cache.getIfPresent(key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, RESPONSE_TYPE);
+        } catch (IOException e) {
+            cache.invalidate(key);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the JSON form of the response, weighted by its length
+     */
+    public void put(String key, Map<String, Object> response) {
+        byte[] json = PayloadDigest.toCanonicalJson(response);
+        if (json != null) {
+            cache.put(key, json);
+        }
+    }
+
+    /**
+     * Drops every entry, cache evictions are not counted for these
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+}
@@ -2,23 +2,42 @@ package com.example.loadbalancer.config;
 
 import io.netty.channel.ChannelOption;
 import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Configuration class for load balancer settings and WebClient setup.
  * <p>
  * This class reads application properties prefixed with `loadbalancer`
  * and provides a WebClient bean configured with connection timeouts.
+ * Every configured instance gets its own bounded connection pool, the pools publish their metrics
+ * through actuator and can speak HTTP/2 with prior knowledge (h2c) to the workers.
+ * When `loadbalancer.virtual-threads-enabled` is set, Tomcat request handling and the
+ * scheduled health checks run on virtual threads instead of platform thread pools.
  * </p>
  */
 @Data
@@ -28,18 +47,308 @@ public class AppConfig {
 
     private String algorithm;
     private List<String> instances;
+    private Map<String, Integer> weights = new HashMap<>();
+    private Map<String, String> zones = new HashMap<>();
+    private Map<String, Integer> priorities = new HashMap<>();
     private String workerApiEndpoint;
     private String workerHealthEndpoint;
+    private int healthCheckConcurrency = 16;
+    private boolean virtualThreadsEnabled;
+    private boolean passthroughEnabled;
+    private String hashKeyHeader;
+    private String hashKeyField;
+    private OutlierDetection outlierDetection = new OutlierDetection();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private SlowStart slowStart = new SlowStart();
+    private Hedging hedging = new Hedging();
+    private RetryBudget retryBudget = new RetryBudget();
+    private ConnectionPool connectionPool = new ConnectionPool();
+    private Batch batch = new Batch();
+    private ResponseCache responseCache = new ResponseCache();
+    private Coalescing coalescing = new Coalescing();
+    private Registry registry = new Registry();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+    private RateLimit rateLimit = new RateLimit();
+    private Streaming streaming = new Streaming();
+    private ZoneAware zoneAware = new ZoneAware();
+
+    /**
+     * Returns the configured weight of an instance, instances without a weight count as 1
+     */
+    public int getWeight(String instance) {
+        return Math.max(weights.getOrDefault(instance, 1), 1);
+    }
+
+    /**
+     * Returns the configured zone of an instance, null when it has none
+     */
+    public String getZone(String instance) {
+        return zones.get(instance);
+    }
+
+    /**
+     * Returns the configured priority of an instance, lower is preferred and instances without one count as 0
+     */
+    public int getPriority(String instance) {
+        return Math.max(priorities.getOrDefault(instance, 0), 0);
+    }
+
+    /**
+     * Thresholds of the passive outlier detection, bound from `loadbalancer.outlier-detection.*`
+     */
+    @Data
+    public static class OutlierDetection {
+
+        private int windowSize = 100;
+        private int minimumRequests = 20;
+        private int consecutiveFailures = 5;
+        private double failureRateThreshold = 0.5;
+        private double latencyOutlierFactor = 3.0;
+        private int maxEjectionPercent = 50;
+        private Duration ejectionTime = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Half-open behaviour of the per-instance circuit breakers, bound from `loadbalancer.circuit-breaker.*`
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        private int halfOpenPermits = 1;
+        private int halfOpenSuccesses = 3;
+    }
+
+    /**
+     * Slow start of recovered and newly added instances, bound from `loadbalancer.slow-start.*`.
+     * Over the window the weight factor of the instance grows from `min-weight-factor` up to 1,
+     * `aggression` above 1 keeps it low for longer before it catches up, 1 ramps linearly
+     */
+    @Data
+    public static class SlowStart {
+
+        private boolean enabled;
+        private Duration window = Duration.ofSeconds(30);
+        private double minWeightFactor = 0.1;
+        private double aggression = 1.0;
+    }
+
+    /**
+     * Hedging of idempotent requests, bound from `loadbalancer.hedging.*`.
+     * A request carrying the idempotent header gets a duplicate on a second instance once the first one
+     * has not answered within the configured percentile of the observed latency
+     */
+    @Data
+    public static class Hedging {
+
+        private boolean enabled;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(10);
+        private String idempotentHeader = "Idempotency-Key";
+    }
+
+    /**
+     * Token bucket shared by retries and hedges, bound from `loadbalancer.retry-budget.*`.
+     * Every request deposits `ratio` tokens up to `max-tokens`, every retry or hedge withdraws one
+     */
+    @Data
+    public static class RetryBudget {
+
+        private double ratio = 0.2;
+        private int maxTokens = 10;
+    }
+
+    /**
+     * Batch routing, bound from `loadbalancer.batch.*`.
+     * When `worker-batch-endpoint` is set, up to `items-per-call` payloads travel to a worker in one call
+     * as a JSON array, and the worker answers with an array of the same length
+     */
+    @Data
+    public static class Batch {
+
+        private int maxItems = 500;
+        private int parallelism = 16;
+        private String workerBatchEndpoint;
+        private int itemsPerCall = 20;
+    }
+
+    /**
+     * Cache of worker responses for identical payloads, bound from `loadbalancer.response-cache.*`.
+     * Only enable it when the worker responses are deterministic for a payload
+     */
+    @Data
+    public static class ResponseCache {
+
+        private boolean enabled;
+        private String keyField;
+        private Duration ttl = Duration.ofSeconds(60);
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        private String bypassHeader = "X-Cache-Bypass";
+    }
+
+    /**
+     * Single-flight coalescing of identical in-flight requests, bound from `loadbalancer.coalescing.*`.
+     * Routes are `route` for /route, `batch` for the payloads of /route/batch and `raw` for passthrough mode
+     */
+    @Data
+    public static class Coalescing {
+
+        private boolean enabled;
+        private Set<String> routes = new HashSet<>(Set.of("route", "batch", "raw"));
+    }
+
+    /**
+     * Adaptive limit of the concurrent upstream requests, bound from `loadbalancer.concurrency-limit.*`.
+     * `rtt-tolerance` is how much the round trip time may rise over its long term average before the limit shrinks,
+     * `long-window` the number of samples the average spans and `backoff-ratio` the factor applied on a failure
+     */
+    @Data
+    public static class ConcurrencyLimit {
+
+        private boolean enabled;
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 1000;
+        private double smoothing = 0.2;
+        private double rttTolerance = 1.5;
+        private int longWindow = 600;
+        private double backoffRatio = 0.9;
+    }
+
+    /**
+     * Per-client rate limit of the routing endpoints, bound from `loadbalancer.rate-limit.*`.
+     * Every client gets `burst` requests at once, refilled at `requests-per-second`.
+     * A batch costs one request per payload, so `burst` also caps the batches a client can send
+     */
+    @Data
+    public static class RateLimit {
+
+        private boolean enabled;
+        private String apiKeyHeader = "X-Api-Key";
+        private double requestsPerSecond = 100;
+        private int burst = 200;
+        private long maxClients = 100_000;
+        private Duration idleExpiry = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Zone-aware routing, bound from `loadbalancer.zone-aware.*`.
+     * Instances are grouped into tiers by priority and, within a priority, by whether they are in `local-zone`.
+     * A tier takes all the traffic it reaches while its healthy share of instances is at least `spillover-threshold`,
+     * below it the rest spills to the next tier in proportion
+     */
+    @Data
+    public static class ZoneAware {
+
+        private boolean enabled;
+        private String localZone;
+        private double spilloverThreshold = 0.7;
+    }
+
+    /**
+     * Streaming proxy on `/route/stream`, bound from `loadbalancer.streaming.*`.
+     * `idle-timeout` bounds every gap between two chunks of the upload, the wait for the worker headers once
+     * the upload is done and every gap between two response chunks,
+     * `chunk-size` is the size of the request body chunks read from the client.
+     * Reading the upload and writing the response block, each stream holds one of at most `max-threads` threads
+     * for each of them, streams beyond it wait for a thread
+     */
+    @Data
+    public static class Streaming {
+
+        private boolean enabled;
+        private Duration idleTimeout = Duration.ofSeconds(60);
+        private DataSize chunkSize = DataSize.ofKilobytes(16);
+        private int maxThreads = 400;
+    }
+
+    /**
+     * File source of the backend registry, bound from `loadbalancer.registry.*`.
+     * The instances and weights above seed the registry, the file replaces them once set.
+     * `admin-enabled` exposes the unauthenticated `/admin/backends` API, keep it off unless that path is protected
+     */
+    @Data
+    public static class Registry {
+
+        private boolean adminEnabled;
+        private String file;
+        private Duration pollInterval = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Connection pool of every worker instance, bound from `loadbalancer.connection-pool.*`
+     */
+    @Data
+    public static class ConnectionPool {
+
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(2);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictionInterval = Duration.ofSeconds(15);
+        private boolean h2cEnabled;
+    }
+
+    /**
+     * Builds the pools to the workers. Reactor Netty keeps a separate pool per remote address, so the
+     * limits and eviction below apply to every worker instance on its own, including instances added at runtime
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider workerConnectionProvider() {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("workers")
+                .metrics(true);
+        applyPoolSettings(builder);
+        return builder.build();
+    }
 
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(ConnectionProvider workerConnectionProvider) {
         return WebClient.builder()
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .clientConnector(new ReactorClientHttpConnector(
-                        HttpClient.create()
-                                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
-                                .responseTimeout(Duration.ofSeconds(5))
-                ))
+                .clientConnector(new ReactorClientHttpConnector(workerHttpClient(workerConnectionProvider)))
                 .build();
     }
+
+    HttpClient workerHttpClient(ConnectionProvider connectionProvider) {
+        return HttpClient.create(connectionProvider)
+                .protocol(connectionPool.isH2cEnabled() ? HttpProtocol.H2C : HttpProtocol.HTTP11)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+                .responseTimeout(Duration.ofSeconds(5));
+    }
+
+    private void applyPoolSettings(ConnectionProvider.ConnectionPoolSpec<?> spec) {
+        spec.maxConnections(connectionPool.getMaxConnections())
+                .pendingAcquireMaxCount(connectionPool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(connectionPool.getPendingAcquireTimeout())
+                .maxIdleTime(connectionPool.getMaxIdleTime())
+                .maxLifeTime(connectionPool.getMaxLifeTime())
+                .evictInBackground(connectionPool.getEvictionInterval());
+    }
+
+    /**
+     * Threads blocking on stream bodies, virtual when virtual threads are enabled. A Reactor scheduler and not an
+     * Executor bean, which would make Spring Boot drop its application task executor
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler streamingScheduler() {
+        ThreadFactory threadFactory = virtualThreadsEnabled
+                ? Thread.ofVirtual().name("lb-stream-", 0).factory()
+                : Thread.ofPlatform().name("lb-stream-", 0).daemon(true).factory();
+        return Schedulers.newBoundedElastic(streaming.getMaxThreads(), Integer.MAX_VALUE, threadFactory, 60);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "loadbalancer", name = "virtual-threads-enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "loadbalancer", name = "virtual-threads-enabled", havingValue = "true")
+    public TaskScheduler virtualThreadTaskScheduler() {
+        SimpleAsyncTaskScheduler taskScheduler = new SimpleAsyncTaskScheduler();
+        taskScheduler.setVirtualThreads(true);
+        taskScheduler.setThreadNamePrefix("lb-scheduler-");
+        return taskScheduler;
+    }
 }
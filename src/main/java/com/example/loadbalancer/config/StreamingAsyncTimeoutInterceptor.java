@@ -0,0 +1,41 @@
+package com.example.loadbalancer.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Lifts the servlet async timeout of `/route/stream` only. A stream lasts as long as its upload and its response,
+ * it is bounded by the idle timeout between two chunks instead. The endpoint goes async twice, once while the worker
+ * headers are awaited and once while the response body is written, so both phases are covered.
+ * Every other endpoint keeps the configured `spring.mvc.async.request-timeout`
+ */
+@Component
+public class StreamingAsyncTimeoutInterceptor implements CallableProcessingInterceptor, DeferredResultProcessingInterceptor {
+
+    static final String STREAM_PATH = "/route/stream";
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        disableTimeoutOfStream(request);
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, DeferredResult<T> deferredResult) {
+        disableTimeoutOfStream(request);
+    }
+
+    private static void disableTimeoutOfStream(NativeWebRequest request) {
+        HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+        if (request instanceof AsyncWebRequest asyncWebRequest && servletRequest != null
+                && servletRequest.getRequestURI().equals(servletRequest.getContextPath() + STREAM_PATH)) {
+            asyncWebRequest.setTimeout(-1L);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.loadbalancer.config;
+
+import com.example.loadbalancer.limiter.RateLimitInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Registers the interceptors of the routing endpoints and of their async processing.
+ * Async work such as writing a streamed response blocks for as long as the stream lasts, it runs on the
+ * streaming scheduler instead of the small application task executor of Spring Boot
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final StreamingAsyncTimeoutInterceptor streamingAsyncTimeoutInterceptor;
+    private final Scheduler streamingScheduler;
+
+    public WebMvcConfig(RateLimitInterceptor rateLimitInterceptor,
+                        StreamingAsyncTimeoutInterceptor streamingAsyncTimeoutInterceptor,
+                        Scheduler streamingScheduler) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.streamingAsyncTimeoutInterceptor = streamingAsyncTimeoutInterceptor;
+        this.streamingScheduler = streamingScheduler;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/route", "/route/**");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(streamingScheduler::schedule));
+        configurer.registerCallableInterceptors(streamingAsyncTimeoutInterceptor);
+        configurer.registerDeferredResultInterceptors(streamingAsyncTimeoutInterceptor);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.loadbalancer.controller;
+
+import com.example.loadbalancer.exception.InvalidRequestException;
+import com.example.loadbalancer.registry.Backend;
+import com.example.loadbalancer.registry.BackendRegistry;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Admin API of the {@link BackendRegistry}, adds, removes and drains instances at runtime.
+ * The API is unauthenticated, so it is only exposed when `loadbalancer.registry.admin-enabled` is set
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(prefix = "loadbalancer.registry", name = "admin-enabled", havingValue = "true")
+@RequestMapping("/admin/backends")
+public class BackendRegistryController {
+
+    private final BackendRegistry backendRegistry;
+    private final InstanceTracker instanceTracker;
+    private final InstanceLoadTracker instanceLoadTracker;
+
+    public BackendRegistryController(BackendRegistry backendRegistry, InstanceTracker instanceTracker,
+                                     InstanceLoadTracker instanceLoadTracker) {
+        this.backendRegistry = backendRegistry;
+        this.instanceTracker = instanceTracker;
+        this.instanceLoadTracker = instanceLoadTracker;
+    }
+
+    /**
+     * @return, Every registered instance with its weight, state, circuit breaker state and in-flight requests
+     */
+    @GetMapping
+    public List<BackendStatus> getBackends() {
+        return backendRegistry.getSnapshot().backends().values().stream()
+                .map(backend -> new BackendStatus(backend.url(), backend.weight(), backend.state(),
+                        instanceTracker.getCircuitBreakerState(backend.url()).name(),
+                        instanceLoadTracker.getInFlight(backend.url())))
+                .toList();
+    }
+
+    /**
+     * Registers an instance, or updates the weight of a registered one and puts it back into rotation
+     *
+     * @param request, The url and the optional weight of the instance
+     * @return, The registered instance
+     * @throws InvalidRequestException in case of a missing or invalid url or weight
+     */
+    @PostMapping
+    public ResponseEntity<Backend> register(@RequestBody RegisterRequest request) {
+        if (request.url() == null || request.url().isBlank()) {
+            throw new InvalidRequestException("Instance url cannot be empty");
+        }
+        return ResponseEntity.ok(backendRegistry.register(request.url(), request.weight() == null ? 1 : request.weight()));
+    }
+
+    /**
+     * Stops sending new requests to the instance, its in-flight requests complete
+     */
+    @PostMapping("/drain")
+    public ResponseEntity<Void> drain(@RequestParam String url) {
+        return backendRegistry.drain(url) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> deregister(@RequestParam String url) {
+        return backendRegistry.deregister(url) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    public record RegisterRequest(String url, Integer weight) {
+    }
+
+    public record BackendStatus(String url, int weight, Backend.State state, String circuitBreaker, int inFlight) {
+    }
+}
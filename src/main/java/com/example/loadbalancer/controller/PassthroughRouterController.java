@@ -0,0 +1,94 @@
+package com.example.loadbalancer.controller;
+
+import com.example.loadbalancer.exception.InvalidRequestException;
+import com.example.loadbalancer.service.LoadBalancerService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+
+/**
+ *  PassthroughRouterController class for routing requests without decoding the body
+ *  The request and worker response bodies are forwarded as raw bytes, skipping the
+ *  JSON parse and serialize cycles of {@link RouterController}
+ */
+@Slf4j
+@RestController
+@RequestMapping("/route")
+@ConditionalOnProperty(prefix = "loadbalancer", name = "passthrough-enabled", havingValue = "true")
+public class PassthroughRouterController {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final LoadBalancerService loadBalancerService;
+
+    public PassthroughRouterController(LoadBalancerService loadBalancerService) {
+        this.loadBalancerService = loadBalancerService;
+    }
+
+    /**
+     * Endpoint to handle the incoming requests and routes the raw body to the appropriate instance
+     *
+     * @param body, The incoming request body, left undecoded
+     * @param headers, The incoming request headers
+     * @return, A Mono emitting the undecoded response handled by the appropriate instance
+     * @throws InvalidRequestException in case of an empty body or a body that is not a JSON object
+     */
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> routeRequest(@RequestBody(required = false) byte[] body,
+                                                     @RequestHeader HttpHeaders headers) {
+        validatePayload(body);
+        return loadBalancerService.routeRawRequest(body, headers)
+                .map(response -> {
+                    log.debug("Reached here: {} bytes", response.length);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Tokenizes the body without building it, so the same bodies are refused as by the Map based validation:
+     * a missing or blank body, `null` and a JSON object without any field are empty, anything else that is
+     * not a single well-formed JSON object is invalid
+     */
+    static void validatePayload(byte[] body) {
+        if (body == null) {
+            throw new InvalidRequestException("Payload cannot be empty");
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                throw new InvalidRequestException("Payload cannot be empty");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new InvalidRequestException("Payload must be a JSON object");
+            }
+            if (parser.nextToken() == JsonToken.END_OBJECT) {
+                throw new InvalidRequestException("Payload cannot be empty");
+            }
+            for (int depth = 1; depth > 0; ) {
+                token = parser.nextToken();
+                if (token == null) {
+                    throw new InvalidRequestException("Payload must be a JSON object");
+                }
+                depth += token.isStructStart() ? 1 : token.isStructEnd() ? -1 : 0;
+            }
+            if (parser.nextToken() != null) {
+                throw new InvalidRequestException("Payload must be a JSON object");
+            }
+        } catch (IOException e) {
+            throw new InvalidRequestException("Payload must be a JSON object");
+        }
+    }
+}
@@ -1,44 +1,99 @@
 package com.example.loadbalancer.controller;
 
+import com.example.loadbalancer.config.AppConfig;
 import com.example.loadbalancer.exception.InvalidRequestException;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import com.example.loadbalancer.limiter.ClientRateLimiter;
+import com.example.loadbalancer.limiter.RateLimitInterceptor;
+import com.example.loadbalancer.model.BatchItemResponse;
 import com.example.loadbalancer.service.LoadBalancerService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 import java.util.Map;
 
 /**
  *  RouterController class for routing requests to handlers via load balancer strategies
  *  Validates the request payload and delegates the routing to {@link LoadBalancerService}
+ *  Replaced by {@link PassthroughRouterController} when passthrough mode is enabled
  */
 @Slf4j
 @RestController
+@ConditionalOnProperty(prefix = "loadbalancer", name = "passthrough-enabled", havingValue = "false", matchIfMissing = true)
 @RequestMapping("/route")
 public class RouterController {
 
     private final LoadBalancerService loadBalancerService;
+    private final AppConfig appConfig;
+    private final ClientRateLimiter clientRateLimiter;
 
-    public RouterController(LoadBalancerService loadBalancerService) {
+    public RouterController(LoadBalancerService loadBalancerService, AppConfig appConfig,
+                            ClientRateLimiter clientRateLimiter) {
         this.loadBalancerService = loadBalancerService;
+        this.appConfig = appConfig;
+        this.clientRateLimiter = clientRateLimiter;
     }
 
     /**
      * Endpoint to handle the incoming requests and routes to the appropriate instance
      *
      * @param payload, The incoming request is passed as a payload
-     * @return, The response handled by the appropriate instance
+     * @param headers, The incoming request headers
+     * @return, A Mono emitting the response handled by the appropriate instance
      * @throws InvalidRequestException in case of invalid payload
      */
     @PostMapping
-    public ResponseEntity<Map<String, Object>> routeRequest(@RequestBody Map<String, Object> payload) {
+    public Mono<ResponseEntity<Map<String, Object>>> routeRequest(@RequestBody Map<String, Object> payload,
+                                                                  @RequestHeader HttpHeaders headers) {
         if (payload == null || payload.isEmpty()) {
             throw new InvalidRequestException("Payload cannot be empty");
         }
-        Map<String, Object> response = loadBalancerService.routeRequest(payload);
-        log.info("Reached here: {}" , response);
-        return ResponseEntity.ok(response);
+        return loadBalancerService.routeRequest(payload, headers)
+                .map(response -> {
+                    log.info("Reached here: {}" , response);
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    /**
+     * Endpoint to route a batch of payloads, each payload is routed on its own.
+     * Under the rate limit every payload costs one request, the call itself was charged for the first one
+     *
+     * @param payloads, The payloads of the batch
+     * @param headers, The incoming request headers, shared by every payload
+     * @param rateLimitedClient, The client charged by the rate limit, absent when the rate limit is disabled
+     * @return, A Mono emitting one result per payload in the order of the payloads
+     * @throws InvalidRequestException in case of an empty or oversized batch, or an empty payload
+     * @throws RateLimitExceededException in case the bucket of the client cannot cover the whole batch
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchItemResponse>>> routeBatch(@RequestBody List<Map<String, Object>> payloads,
+                                                                    @RequestHeader HttpHeaders headers,
+                                                                    @RequestAttribute(name = RateLimitInterceptor.CLIENT_ATTRIBUTE,
+                                                                            required = false) String rateLimitedClient) {
+        if (payloads == null || payloads.isEmpty()) {
+            throw new InvalidRequestException("Batch cannot be empty");
+        }
+        if (payloads.size() > appConfig.getBatch().getMaxItems()) {
+            throw new InvalidRequestException("Batch cannot hold more than " + appConfig.getBatch().getMaxItems() + " payloads");
+        }
+        if (payloads.stream().anyMatch(payload -> payload == null || payload.isEmpty())) {
+            throw new InvalidRequestException("Payload cannot be empty");
+        }
+        if (rateLimitedClient != null && payloads.size() > 1) {
+            clientRateLimiter.acquire(rateLimitedClient, payloads.size() - 1);
+        }
+        return loadBalancerService.routeBatch(payloads, headers)
+                .map(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,112 @@
+package com.example.loadbalancer.controller;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.service.LoadBalancerService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ *  StreamingRouterController class for proxying large or chunked bodies without holding them in memory
+ *  The request body is read in chunks as the worker consumes them, and the worker response, NDJSON and SSE
+ *  included, is written back and flushed chunk by chunk. Only a few chunks are in memory per request at any time
+ */
+@Slf4j
+@RestController
+@RequestMapping("/route")
+@ConditionalOnProperty(prefix = "loadbalancer.streaming", name = "enabled", havingValue = "true")
+public class StreamingRouterController {
+
+    /**
+     * Response chunks requested ahead of the one being written to the client
+     */
+    static final int RESPONSE_PREFETCH = 4;
+
+    private static final List<String> HOP_BY_HOP_HEADERS = List.of(HttpHeaders.CONNECTION, "Keep-Alive",
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.TE, HttpHeaders.TRAILER, HttpHeaders.UPGRADE,
+            HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION);
+
+    private final LoadBalancerService loadBalancerService;
+    private final int chunkSize;
+    private final Scheduler streamingScheduler;
+
+    public StreamingRouterController(LoadBalancerService loadBalancerService, AppConfig appConfig,
+                                     Scheduler streamingScheduler) {
+        this.loadBalancerService = loadBalancerService;
+        this.chunkSize = (int) appConfig.getStreaming().getChunkSize().toBytes();
+        this.streamingScheduler = streamingScheduler;
+    }
+
+    /**
+     * Endpoint to stream the request body to the appropriate instance and its response back
+     *
+     * @param request, The incoming request, its body is read as the worker consumes it
+     * @param headers, The incoming request headers
+     * @return, A Mono emitting the worker status and headers, with a body writing the worker response as it arrives
+     */
+    @PostMapping("/stream")
+    public Mono<ResponseEntity<StreamingResponseBody>> routeStream(HttpServletRequest request,
+                                                                   @RequestHeader HttpHeaders headers) {
+        // Reading the servlet input stream blocks, keep it off the event loop of the worker connection
+        Flux<DataBuffer> body = DataBufferUtils.readInputStream(request::getInputStream,
+                        DefaultDataBufferFactory.sharedInstance, chunkSize)
+                .subscribeOn(streamingScheduler);
+        return loadBalancerService.routeStream(body, headers)
+                .map(response -> ResponseEntity.status(response.getStatusCode())
+                        .headers(responseHeaders(response.getHeaders()))
+                        .body(outputStream -> writeChunks(response.getBody(), outputStream)));
+    }
+
+    static HttpHeaders responseHeaders(HttpHeaders workerHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(workerHeaders);
+        HOP_BY_HOP_HEADERS.forEach(headers::remove);
+        return headers;
+    }
+
+    /**
+     * Writes and flushes every chunk as soon as it arrives and releases it. Closing the stream cancels the worker
+     * response, so a client that goes away does not leave the upstream connection reading
+     */
+    static void writeChunks(Flux<DataBuffer> chunks, OutputStream outputStream) throws IOException {
+        if (chunks == null) {
+            return;
+        }
+        byte[] copyBuffer = new byte[8192];
+        try (Stream<DataBuffer> stream = chunks.toStream(RESPONSE_PREFETCH)) {
+            Iterator<DataBuffer> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                DataBuffer chunk = iterator.next();
+                try {
+                    while (chunk.readableByteCount() > 0) {
+                        int length = Math.min(chunk.readableByteCount(), copyBuffer.length);
+                        chunk.read(copyBuffer, 0, length);
+                        outputStream.write(copyBuffer, 0, length);
+                    }
+                } finally {
+                    DataBufferUtils.release(chunk);
+                }
+                outputStream.flush();
+            }
+        }
+    }
+}
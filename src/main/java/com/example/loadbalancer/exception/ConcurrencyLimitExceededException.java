@@ -0,0 +1,12 @@
+package com.example.loadbalancer.exception;
+
+/**
+ * Thrown when the adaptive concurrency limit is reached. Raised on every shed request,
+ * so it carries no stack trace
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
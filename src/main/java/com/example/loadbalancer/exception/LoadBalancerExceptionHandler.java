@@ -3,10 +3,13 @@ package com.example.loadbalancer.exception;
 import com.example.loadbalancer.model.ErrorResponse;
 import com.example.loadbalancer.util.Constants;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 /**
  * Global exception handler for handling application-wide exceptions
@@ -24,12 +27,44 @@ public class LoadBalancerExceptionHandler {
                 .body(new ErrorResponse(Constants.ERROR_NO_AVAILABLE_INSTANCE, exception.getMessage()));
     }
 
+    /**
+     * Sheds the request without logging, this runs for every request over the concurrency limit
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyLimitExceededException(
+            ConcurrencyLimitExceededException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(Constants.ERROR_OVERLOADED, exception.getMessage()));
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimitExceededException(RateLimitExceededException exception) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(new ErrorResponse(Constants.ERROR_RATE_LIMITED, exception.getMessage()));
+    }
+
     @ExceptionHandler(InvalidRequestException.class)
     public ResponseEntity<ErrorResponse> handleInvalidRequestException(InvalidRequestException exception) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new ErrorResponse(Constants.ERROR_INVALID_REQUEST, exception.getMessage()));
     }
 
+    /**
+     * Hands a worker rejecting the request back to the client with the worker status and body,
+     * only 4xx answers get here since other worker failures are retried and end as a 503
+     */
+    @ExceptionHandler(WebClientResponseException.class)
+    public ResponseEntity<byte[]> handleWorkerResponseException(WebClientResponseException exception) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(exception.getStatusCode());
+        MediaType contentType = exception.getHeaders().getContentType();
+        if (contentType != null) {
+            response.contentType(contentType);
+        }
+        return response.body(exception.getResponseBodyAsByteArray());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
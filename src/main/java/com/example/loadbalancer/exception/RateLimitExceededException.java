@@ -0,0 +1,18 @@
+package com.example.loadbalancer.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a client has used up its request rate. Raised on every throttled request,
+ * so it carries no stack trace
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,26 +1,33 @@
 package com.example.loadbalancer.factory;
 
+import com.example.loadbalancer.config.AppConfig;
 import com.example.loadbalancer.strategy.LoadBalancingStrategy;
+import com.example.loadbalancer.strategy.ZoneAwareStrategy;
+import com.example.loadbalancer.tracker.InstanceTracker;
 import com.example.loadbalancer.util.Constants;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Factory class responsible for managing load-balancing strategies.
  * It maps strategy names to their corresponding implementations.
+ * With zone-aware routing enabled every strategy is wrapped in a {@link ZoneAwareStrategy}.
  */
 @Service
 public class LoadBalancerFactory {
 
     private final Map<String, LoadBalancingStrategy> strategyMap;
 
-    public LoadBalancerFactory(List<LoadBalancingStrategy> strategies) {
+    public LoadBalancerFactory(List<LoadBalancingStrategy> strategies, AppConfig appConfig,
+                               InstanceTracker instanceTracker) {
+        boolean zoneAware = appConfig.getZoneAware().isEnabled();
         strategyMap = strategies.stream().collect(Collectors.toMap(
                 LoadBalancingStrategy::getName,
-                strategy -> strategy
+                strategy -> zoneAware ? new ZoneAwareStrategy(strategy, instanceTracker, appConfig) : strategy
         ));
     }
 
@@ -46,4 +53,11 @@ public class LoadBalancerFactory {
         return strategy;
     }
 
+    /**
+     * @return, The names of every registered strategy
+     */
+    public Set<String> getStrategyNames() {
+        return strategyMap.keySet();
+    }
+
 }
@@ -0,0 +1,114 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Per-client token bucket rate limit.
+ * Every bucket is a single {@link AtomicLong} holding the time at which it is full again, following the generic
+ * cell rate algorithm: a request costs one emission interval and is admitted while the bucket is at most
+ * `burst` intervals ahead of now. This is a token bucket of `burst` tokens refilled at `requests-per-second`,
+ * checked and charged with one compare-and-set and no refill task.
+ * Buckets live in a Caffeine map bounded by `max-clients` and expire after `idle-expiry` without requests,
+ * a client that has been seen before costs a map lookup and a compare-and-set, without allocation or a global lock
+ */
+@Component
+public class ClientRateLimiter {
+
+    static final String REJECTIONS = "loadbalancer.ratelimit.rejections";
+    static final String CLIENTS = "loadbalancer.ratelimit.clients";
+
+    private static final Function<String, AtomicLong> NEW_BUCKET = client -> new AtomicLong(Long.MIN_VALUE);
+
+    private final AppConfig.RateLimit config;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    private final Counter rejections;
+
+    public ClientRateLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getRateLimit();
+        this.intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / config.getRequestsPerSecond()), 1);
+        this.burstNanos = Math.max(config.getBurst(), 1) * intervalNanos;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(config.getIdleExpiry())
+                .build();
+        this.rejections = Counter.builder(REJECTIONS)
+                .description("Requests rejected because their client exceeded its rate")
+                .register(meterRegistry);
+        Gauge.builder(CLIENTS, buckets, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Charges one request to the bucket of the client
+     *
+     * @param client, The api key or the remote address of the client
+     * @throws RateLimitExceededException in case the bucket is empty, with the seconds until the next token
+     */
+    public void acquire(String client) {
+        acquire(client, 1);
+    }
+
+    /**
+     * Charges several requests to the bucket of the client at once, all of them or none.
+     * More requests than `burst` never fit in the bucket and are always rejected
+     *
+     * @param client, The api key or the remote address of the client
+     * @param permits, The number of requests to charge
+     * @throws RateLimitExceededException in case the bucket cannot cover them, with the seconds until it can
+     */
+    public void acquire(String client, int permits) {
+        long waitNanos = tryAcquire(client, permits, System.nanoTime());
+        if (waitNanos > 0) {
+            rejections.increment();
+            throw new RateLimitExceededException("Too many requests from the client",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+    }
+
+    /**
+     * @return, 0 when the request is admitted, otherwise the nanoseconds until the bucket holds a token again
+     */
+    long tryAcquire(String client, long nowNanos) {
+        return tryAcquire(client, 1, nowNanos);
+    }
+
+    /**
+     * @return, 0 when the requests are admitted, otherwise the nanoseconds until the bucket holds enough tokens
+     */
+    long tryAcquire(String client, int permits, long nowNanos) {
+        long costNanos = permits * intervalNanos;
+        AtomicLong bucket = buckets.getIfPresent(client);
+        if (bucket == null) {
+            bucket = buckets.get(client, NEW_BUCKET);
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, nowNanos) + costNanos;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive concurrency limit of the upstream calls, following the gradient algorithm.
+ * Every completed upstream call samples its round trip time. A long term average of the samples stands for the
+ * round trip time without queueing, and the limit is scaled by the gradient between it and the latest sample,
+ * plus a headroom of the square root of the limit. A rising round trip time, or calls failing from overload, shrink
+ * the limit, a steady round trip time lets it grow again, and it only grows while at least half of it is in use.
+ * A call is sampled once, at its first response or at its failure, so a winning hedge cancelled right after its
+ * response is sampled too. Only 5xx answers, timeouts and failures to connect or to get a pooled connection count
+ * as overload, a 4xx answer says nothing about the capacity of the workers and is sampled as a round trip.
+ * Requests over the limit fail right away with {@link ConcurrencyLimitExceededException} instead of queueing.
+ * Admission is a compare-and-set on the in-flight count. Samples update the limit under a lock
+ * that is only tried, a sample arriving while another one is applied is dropped.
+ * The limit, the in-flight requests and the rejections are published as `loadbalancer.limiter.*` metrics
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimiter {
+
+    static final String LIMIT = "loadbalancer.limiter.limit";
+    static final String IN_FLIGHT = "loadbalancer.limiter.inflight";
+    static final String REJECTIONS = "loadbalancer.limiter.rejections";
+
+    private final AppConfig.ConcurrencyLimit config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private final Counter rejections;
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public ConcurrencyLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.config = appConfig.getConcurrencyLimit();
+        this.estimatedLimit = config.getInitialLimit();
+        this.limit = config.getInitialLimit();
+        this.rejections = Counter.builder(REJECTIONS)
+                .description("Requests shed because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder(LIMIT, this, ConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent upstream requests")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("Upstream requests currently admitted by the limiter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits the request when the limit allows it and samples its round trip time at its first response,
+     * the request fails with {@link ConcurrencyLimitExceededException} otherwise.
+     * Passes the request through when the limiter is disabled
+     */
+    public <T> Mono<T> limit(Mono<T> request) {
+        if (!config.isEnabled()) {
+            return request;
+        }
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejections.increment();
+                return Mono.error(new ConcurrencyLimitExceededException(
+                        "Too many concurrent requests, the limit is " + limit));
+            }
+            long startNanos = System.nanoTime();
+            AtomicBoolean sampled = new AtomicBoolean();
+            return request
+                    .doOnNext(response -> sample(sampled, startNanos, false))
+                    .doOnError(e -> sample(sampled, startNanos, isOverload(e)))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE) {
+                            sample(sampled, startNanos, false);
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        });
+    }
+
+    /**
+     * @return, Whether the failure tells that the workers are overloaded: a 5xx answer, a timeout, or a request
+     * that could not be sent because no connection could be opened or taken from the pool
+     */
+    static boolean isOverload(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Samples the call unless it already was, calls cancelled before any response say nothing about the upstream
+     * and are never sampled
+     */
+    private void sample(AtomicBoolean sampled, long startNanos, boolean dropped) {
+        if (sampled.compareAndSet(false, true)) {
+            onSample(System.nanoTime() - startNanos, inFlight.get(), dropped);
+        }
+    }
+
+    void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (!sampleLock.tryLock()) {
+            return;
+        }
+        try {
+            double next = dropped ? estimatedLimit * config.getBackoffRatio() : gradientLimit(rttNanos, inFlightAtCompletion);
+            estimatedLimit = Math.min(Math.max(next, config.getMinLimit()), config.getMaxLimit());
+            int rounded = (int) estimatedLimit;
+            if (rounded != limit) {
+                log.debug("Concurrency limit changed from {} to {}", limit, rounded);
+                limit = rounded;
+            }
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    private double gradientLimit(long rttNanos, int inFlightAtCompletion) {
+        double shortRtt = Math.max(rttNanos, 1);
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + (shortRtt - longRttNanos) / config.getLongWindow();
+        // After a lasting drop of the round trip time the long average would hold the limit up for too long
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        // A limit that is far from being used tells nothing about the capacity, do not grow it
+        if (inFlightAtCompletion < estimatedLimit / 2) {
+            return estimatedLimit;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * longRttNanos / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        return estimatedLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+    }
+}
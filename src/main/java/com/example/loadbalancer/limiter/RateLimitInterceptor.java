@@ -0,0 +1,42 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Applies the {@link ClientRateLimiter} to the routing endpoints before the body is read.
+ * Clients are told apart by the configured api key header and by their remote address without it.
+ * The controllers return a Mono, so the request is dispatched again once the response is ready,
+ * only the initial dispatch is charged. The client is kept in the {@link #CLIENT_ATTRIBUTE} request attribute
+ * for the endpoints that charge more than one request once their body is read.
+ * A throttled request fails with {@link RateLimitExceededException}, answered with a 429 by the exception handler
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String CLIENT_ATTRIBUTE = "com.example.loadbalancer.limiter.RateLimitInterceptor.client";
+
+    private final ClientRateLimiter clientRateLimiter;
+    private final String apiKeyHeader;
+
+    public RateLimitInterceptor(ClientRateLimiter clientRateLimiter, AppConfig appConfig) {
+        this.clientRateLimiter = clientRateLimiter;
+        this.apiKeyHeader = appConfig.getRateLimit().getApiKeyHeader();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (clientRateLimiter.isEnabled() && request.getDispatcherType() != DispatcherType.ASYNC) {
+            String apiKey = request.getHeader(apiKeyHeader);
+            String client = apiKey != null ? apiKey : request.getRemoteAddr();
+            clientRateLimiter.acquire(client);
+            request.setAttribute(CLIENT_ATTRIBUTE, client);
+        }
+        return true;
+    }
+}
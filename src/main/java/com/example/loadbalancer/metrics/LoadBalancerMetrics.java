@@ -0,0 +1,144 @@
+package com.example.loadbalancer.metrics;
+
+import com.example.loadbalancer.tracker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Routing metrics of the load balancer, exported through actuator at `/actuator/metrics` and `/actuator/prometheus`.
+ * The meters of an instance are registered once on first use and cached, recording is a map lookup
+ * and an increment, so nothing is allocated per request.
+ * Upstream latency timers keep an HdrHistogram-backed percentile histogram per instance
+ */
+@Component
+public class LoadBalancerMetrics {
+
+    static final String UPSTREAM_LATENCY = "loadbalancer.upstream.latency";
+    static final String UPSTREAM_FAILURES = "loadbalancer.upstream.failures";
+    static final String SELECTIONS = "loadbalancer.selections";
+    static final String HEALTH_TRANSITIONS = "loadbalancer.health.transitions";
+    static final String RETRIES = "loadbalancer.retries";
+    static final String HEDGES = "loadbalancer.hedges";
+    static final String REJECTIONS = "loadbalancer.rejections";
+    static final String SLOW_STARTS = "loadbalancer.slowstart.ramps";
+    static final String WEIGHT_FACTOR = "loadbalancer.slowstart.weight.factor";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, InstanceMeters> instanceMeters = new ConcurrentHashMap<>();
+    private final Counter retries;
+    private final Counter hedges;
+    private final Counter rejections;
+
+    public LoadBalancerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder(RETRIES)
+                .description("Requests sent again to another instance after a failure")
+                .register(meterRegistry);
+        this.hedges = Counter.builder(HEDGES)
+                .description("Duplicate requests sent to a second instance after the hedging delay")
+                .register(meterRegistry);
+        this.rejections = Counter.builder(REJECTIONS)
+                .description("Requests rejected because no instance was available")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return, Metrics recording into a registry without children, for callers created outside of Spring
+     */
+    public static LoadBalancerMetrics noop() {
+        return new LoadBalancerMetrics(new CompositeMeterRegistry());
+    }
+
+    public void recordSelection(String workerUrl) {
+        metersFor(workerUrl).selections.increment();
+    }
+
+    public void recordLatency(String workerUrl, long latencyNanos) {
+        metersFor(workerUrl).latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(String workerUrl) {
+        metersFor(workerUrl).failures.increment();
+    }
+
+    /**
+     * Counts a health transition of the instance into the passed circuit breaker state
+     */
+    public void recordHealthTransition(String workerUrl, CircuitBreaker.State state) {
+        metersFor(workerUrl).transitions.get(state).increment();
+    }
+
+    /**
+     * Counts a slow start of the instance and exports its weight factor, the gauge is registered once per instance
+     *
+     * @param weightFactor, Reads the current weight factor of the instance
+     */
+    public void recordSlowStart(String workerUrl, Supplier<Number> weightFactor) {
+        metersFor(workerUrl).slowStarts.increment();
+        Gauge.builder(WEIGHT_FACTOR, weightFactor)
+                .description("Slow start weight factor of the instance, 1 once it takes its full share")
+                .tag("instance", workerUrl)
+                .register(meterRegistry);
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    public void recordRejection() {
+        rejections.increment();
+    }
+
+    private InstanceMeters metersFor(String workerUrl) {
+        InstanceMeters meters = instanceMeters.get(workerUrl);
+        return meters != null ? meters : instanceMeters.computeIfAbsent(workerUrl, this::register);
+    }
+
+    private InstanceMeters register(String workerUrl) {
+        Timer latency = Timer.builder(UPSTREAM_LATENCY)
+                .description("Latency of the calls to the instance")
+                .tag("instance", workerUrl)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Counter selections = Counter.builder(SELECTIONS)
+                .description("Requests the strategy routed to the instance")
+                .tag("instance", workerUrl)
+                .register(meterRegistry);
+        Counter failures = Counter.builder(UPSTREAM_FAILURES)
+                .description("Failed calls to the instance, client errors excluded")
+                .tag("instance", workerUrl)
+                .register(meterRegistry);
+        Counter slowStarts = Counter.builder(SLOW_STARTS)
+                .description("Slow start ramps of the instance after a recovery or registration")
+                .tag("instance", workerUrl)
+                .register(meterRegistry);
+        Map<CircuitBreaker.State, Counter> transitions = new EnumMap<>(CircuitBreaker.State.class);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            transitions.put(state, Counter.builder(HEALTH_TRANSITIONS)
+                    .description("Health transitions of the instance, tagged with the state it moved to")
+                    .tag("instance", workerUrl)
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        return new InstanceMeters(latency, selections, failures, slowStarts, transitions);
+    }
+
+    private record InstanceMeters(Timer latency, Counter selections, Counter failures, Counter slowStarts,
+                                  Map<CircuitBreaker.State, Counter> transitions) {
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.loadbalancer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Result of one payload of a batch, at the same index as the payload in the request.
+ * Exactly one of the response or the error is set
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResponse {
+
+    private int index;
+    private Map<String, Object> response;
+    private ErrorResponse error;
+
+    public static BatchItemResponse success(int index, Map<String, Object> response) {
+        return new BatchItemResponse(index, response, null);
+    }
+
+    public static BatchItemResponse failure(int index, ErrorResponse error) {
+        return new BatchItemResponse(index, null, error);
+    }
+}
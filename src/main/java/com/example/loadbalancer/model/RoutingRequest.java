@@ -0,0 +1,90 @@
+package com.example.loadbalancer.model;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The incoming request as seen by the load balancing strategies.
+ * At most one of the decoded payload or the raw body is set, depending on the routing mode,
+ * neither is set for a streamed body since it is not read before routing.
+ * The excluded instances are shared by every attempt of the request, retries and hedges included,
+ * so the strategies never hand an attempt an instance the request was already sent to.
+ * Most requests are answered by their first instance, so that one is kept in a field and an array is only
+ * allocated once a retry or a hedge excludes a second one
+ */
+public final class RoutingRequest {
+
+    private static final String[] NO_OTHERS = new String[0];
+
+    private final HttpHeaders headers;
+    private final Map<String, Object> payload;
+    private final byte[] body;
+    private volatile String firstExcluded;
+    private volatile String[] otherExcluded = NO_OTHERS;
+
+    private RoutingRequest(HttpHeaders headers, Map<String, Object> payload, byte[] body) {
+        this.headers = headers;
+        this.payload = payload;
+        this.body = body;
+    }
+
+    public static RoutingRequest of(Map<String, Object> payload, HttpHeaders headers) {
+        return new RoutingRequest(headers, payload, null);
+    }
+
+    public static RoutingRequest ofRaw(byte[] body, HttpHeaders headers) {
+        return new RoutingRequest(headers, null, body);
+    }
+
+    public static RoutingRequest ofStream(HttpHeaders headers) {
+        return new RoutingRequest(headers, null, null);
+    }
+
+    public HttpHeaders headers() {
+        return headers;
+    }
+
+    public Map<String, Object> payload() {
+        return payload;
+    }
+
+    public byte[] body() {
+        return body;
+    }
+
+    /**
+     * Keeps the instance out of the next selections of this request.
+     * Attempts of a request rarely overlap, the lock is uncontended
+     */
+    public synchronized void exclude(String instance) {
+        if (firstExcluded == null) {
+            firstExcluded = instance;
+        } else if (!isExcluded(instance)) {
+            String[] others = Arrays.copyOf(otherExcluded, otherExcluded.length + 1);
+            others[others.length - 1] = instance;
+            otherExcluded = others;
+        }
+    }
+
+    public boolean hasExclusions() {
+        return firstExcluded != null;
+    }
+
+    public boolean isExcluded(String instance) {
+        String first = firstExcluded;
+        if (first == null) {
+            return false;
+        }
+        if (first.equals(instance)) {
+            return true;
+        }
+        for (String other : otherExcluded) {
+            if (other.equals(instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
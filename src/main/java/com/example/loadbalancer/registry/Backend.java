@@ -0,0 +1,22 @@
+package com.example.loadbalancer.registry;
+
+/**
+ * A backend instance known to the {@link BackendRegistry}
+ *
+ * @param url, The base url of the instance
+ * @param weight, The weight used by the weighted strategies, at least 1
+ * @param state, Whether the instance receives new requests
+ */
+public record Backend(String url, int weight, State state) {
+
+    public enum State {
+        /** Receives new requests */
+        ACTIVE,
+        /** Finishes its in-flight requests but receives no new ones */
+        DRAINING
+    }
+
+    Backend withState(State state) {
+        return new Backend(url, weight, state);
+    }
+}
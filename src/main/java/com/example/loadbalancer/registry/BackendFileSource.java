@@ -0,0 +1,77 @@
+package com.example.loadbalancer.registry;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link BackendRegistry} in sync with the file set in `loadbalancer.registry.file`.
+ * The file holds one instance per line as `url` or `url weight`, blank lines and lines starting with `#` are ignored.
+ * The file is polled every `loadbalancer.registry.poll-interval` and applied whenever its modification time changes,
+ * it then replaces the registered instances, including those added through the admin API.
+ * A file that cannot be read or parsed is logged and the registry is left as it is
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "loadbalancer.registry", name = "file")
+public class BackendFileSource {
+
+    private final BackendRegistry backendRegistry;
+    private final Path file;
+    private FileTime lastModified;
+
+    public BackendFileSource(BackendRegistry backendRegistry, AppConfig appConfig) {
+        this.backendRegistry = backendRegistry;
+        this.file = Path.of(appConfig.getRegistry().getFile());
+    }
+
+    @Scheduled(fixedDelayString = "${loadbalancer.registry.poll-interval:5s}")
+    public void poll() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(lastModified)) {
+                return;
+            }
+            backendRegistry.replaceAll(parse(Files.readAllLines(file)));
+            lastModified = modified;
+            log.info("Applied the instances of {}", file);
+        } catch (IOException | InvalidRequestException e) {
+            log.warn("Cannot apply the instances of {}, keeping the registered instances: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @return, The weight of every instance listed in the lines, in file order
+     * @throws InvalidRequestException in case of a line that is not `url` or `url weight`
+     */
+    static Map<String, Integer> parse(List<String> lines) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String line : lines) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+");
+            if (parts.length > 2) {
+                throw new InvalidRequestException("Expected `url` or `url weight` but got: " + trimmed);
+            }
+            try {
+                weights.put(parts[0], parts.length == 2 ? Integer.parseInt(parts[1]) : 1);
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Instance weight is not a number: " + trimmed);
+            }
+        }
+        return weights;
+    }
+}
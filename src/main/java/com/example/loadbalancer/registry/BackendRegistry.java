@@ -0,0 +1,186 @@
+package com.example.loadbalancer.registry;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.InvalidRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the backend instances, seeded from `loadbalancer.instances` and `loadbalancer.weights`
+ * and changed at runtime through the admin API or the {@link BackendFileSource}.
+ * Every change publishes a new immutable {@link Snapshot} through a single volatile reference, so the hot path
+ * reads the routable instances without locks and always gets the same list object until the next change.
+ * Writers are serialized and tell the change listeners about every snapshot in order. Per-instance state such as health, circuit breakers and latency windows is keyed by
+ * the instance url in the trackers, so it survives every update that keeps the instance
+ */
+@Slf4j
+@Component
+public class BackendRegistry {
+
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    public BackendRegistry(AppConfig appConfig) {
+        Map<String, Backend> backends = new LinkedHashMap<>();
+        for (String url : appConfig.getInstances() == null ? List.<String>of() : appConfig.getInstances()) {
+            backends.put(url, new Backend(url, appConfig.getWeight(url), Backend.State.ACTIVE));
+        }
+        this.snapshot = Snapshot.of(0, backends);
+    }
+
+    /**
+     * @return, The instances receiving new requests in registration order, the same list until the next change
+     */
+    public List<String> getInstances() {
+        return snapshot.instances();
+    }
+
+    /**
+     * @return, The weight of the instance, 1 for unknown instances
+     */
+    public int getWeight(String url) {
+        Backend backend = snapshot.backends().get(url);
+        return backend == null ? 1 : backend.weight();
+    }
+
+    /**
+     * @return, Whether the instance is registered, active or draining
+     */
+    public boolean contains(String url) {
+        return snapshot.backends().containsKey(url);
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Calls the listener with every snapshot published from now on, one change at a time and in version order
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Registers the instance, or updates its weight and reactivates it when it is already registered
+     *
+     * @throws InvalidRequestException in case of a url without scheme or host, or a weight below 1
+     */
+    public synchronized Backend register(String url, int weight) {
+        validate(url, weight);
+        Map<String, Backend> backends = new LinkedHashMap<>(snapshot.backends());
+        Backend backend = new Backend(url, weight, Backend.State.ACTIVE);
+        backends.put(url, backend);
+        publish(backends);
+        log.info("Registered instance {} with weight {}", url, weight);
+        return backend;
+    }
+
+    /**
+     * Removes the instance, requests already sent to it are not affected
+     *
+     * @return, Whether the instance was registered
+     */
+    public synchronized boolean deregister(String url) {
+        if (!snapshot.backends().containsKey(url)) {
+            return false;
+        }
+        Map<String, Backend> backends = new LinkedHashMap<>(snapshot.backends());
+        backends.remove(url);
+        publish(backends);
+        log.info("Deregistered instance {}", url);
+        return true;
+    }
+
+    /**
+     * Stops sending new requests to the instance while it finishes its in-flight requests
+     *
+     * @return, Whether the instance was registered
+     */
+    public synchronized boolean drain(String url) {
+        Backend backend = snapshot.backends().get(url);
+        if (backend == null) {
+            return false;
+        }
+        if (backend.state() != Backend.State.DRAINING) {
+            Map<String, Backend> backends = new LinkedHashMap<>(snapshot.backends());
+            backends.put(url, backend.withState(Backend.State.DRAINING));
+            publish(backends);
+            log.info("Draining instance {}", url);
+        }
+        return true;
+    }
+
+    /**
+     * Makes the registry hold exactly the passed instances with their weights, instances staying registered
+     * keep their draining state. Publishes nothing when the instances and weights are unchanged
+     *
+     * @param weights, The weight of every instance, in registration order
+     */
+    public synchronized void replaceAll(Map<String, Integer> weights) {
+        weights.forEach(this::validate);
+        Map<String, Backend> current = snapshot.backends();
+        Map<String, Backend> backends = new LinkedHashMap<>();
+        weights.forEach((url, weight) -> {
+            Backend existing = current.get(url);
+            backends.put(url, new Backend(url, weight, existing == null ? Backend.State.ACTIVE : existing.state()));
+        });
+        if (backends.equals(current)) {
+            return;
+        }
+        publish(backends);
+        log.info("Replaced the registered instances, {} instances registered", backends.size());
+    }
+
+    private void publish(Map<String, Backend> backends) {
+        Snapshot next = Snapshot.of(snapshot.version() + 1, backends);
+        snapshot = next;
+        for (Consumer<Snapshot> listener : listeners) {
+            listener.accept(next);
+        }
+    }
+
+    private void validate(String url, int weight) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Instance url is not valid: " + url);
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            throw new InvalidRequestException("Instance url needs a scheme and a host: " + url);
+        }
+        if (weight < 1) {
+            throw new InvalidRequestException("Instance weight must be at least 1");
+        }
+    }
+
+    /**
+     * Immutable view of the registry at one version
+     *
+     * @param version, A number that changes on every update
+     * @param backends, Every registered instance by url, in registration order
+     * @param instances, The urls of the active instances, in registration order
+     */
+    public record Snapshot(long version, Map<String, Backend> backends, List<String> instances) {
+
+        static Snapshot of(long version, Map<String, Backend> backends) {
+            List<String> instances = new ArrayList<>(backends.size());
+            for (Backend backend : backends.values()) {
+                if (backend.state() == Backend.State.ACTIVE) {
+                    instances.add(backend.url());
+                }
+            }
+            return new Snapshot(version, Collections.unmodifiableMap(backends), Collections.unmodifiableList(instances));
+        }
+    }
+}
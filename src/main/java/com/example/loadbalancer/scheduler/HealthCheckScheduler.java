@@ -1,63 +1,102 @@
 package com.example.loadbalancer.scheduler;
 
 import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.registry.BackendRegistry;
 import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.tracker.OutlierDetector;
 import com.example.loadbalancer.util.Constants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Scheduler class to periodically monitor the unhealthy instances and update the health of the instance.
- * Adds the instance back into the pool if healthy
+ * Adds the instance back into the pool if healthy.
+ * All probes of a cycle run concurrently as non-blocking calls, capped by `loadbalancer.health-check-concurrency`,
+ * so a cycle takes about one probe timeout regardless of how many instances are down.
+ * Instances ejected by the {@link OutlierDetector} are only probed once their ejection time is over,
+ * instances no longer in the {@link BackendRegistry} are not probed
  */
 @Slf4j
 @Component
 @EnableScheduling
 public class HealthCheckScheduler {
 
+    static final Duration PROBE_TIMEOUT = Duration.ofSeconds(2);
+
     private final InstanceTracker instanceTracker;
     private final WebClient webClient;
     private final AppConfig appConfig;
+    private final OutlierDetector outlierDetector;
+    private final BackendRegistry backendRegistry;
+    private final AtomicBoolean cycleRunning = new AtomicBoolean();
 
-    public HealthCheckScheduler(InstanceTracker instanceTracker, WebClient webClient, AppConfig appConfig) {
+    public HealthCheckScheduler(InstanceTracker instanceTracker, WebClient webClient, AppConfig appConfig,
+                                OutlierDetector outlierDetector, BackendRegistry backendRegistry) {
         this.instanceTracker = instanceTracker;
         this.webClient = webClient;
         this.appConfig = appConfig;
+        this.outlierDetector = outlierDetector;
+        this.backendRegistry = backendRegistry;
     }
 
+    /**
+     * Starts a health check cycle without waiting for it, a tick is skipped while the previous cycle still runs
+     */
     @Scheduled(fixedRate = 5000)
     public void healthCheck() {
-        log.info("Running scheduled health check for unhealthy instances");
-        Set<String> unhealthyInstances = instanceTracker.getUnhealthyInstances();
-        for (String instance : unhealthyInstances) {
-            if (isInstanceHealthy(instance)) {
-                instanceTracker.markInstanceHealthy(instance);
-            }
+        if (!cycleRunning.compareAndSet(false, true)) {
+            log.warn("Skipping health check, the previous cycle is still running");
+            return;
         }
+        log.info("Running scheduled health check for unhealthy instances");
+        checkUnhealthyInstances()
+                .doFinally(signal -> cycleRunning.set(false))
+                .subscribe();
     }
 
-    public boolean isInstanceHealthy(String workerUrl) {
-        try {
-            String healthUrl = workerUrl + appConfig.getWorkerHealthEndpoint();
-            return Boolean.TRUE.equals(
-                    webClient.get()
-                            .uri(healthUrl)
-                            .retrieve()
-                            .bodyToMono(Map.class)
-                            .map(response -> Constants.HEALTH_STATUS_UP.equalsIgnoreCase(
-                                    response.get(Constants.STATUS).toString()))
-                            .block(Duration.ofSeconds(2))
-            );
-        } catch (Exception e) {
-            log.warn("Health check failed for {}: {}", workerUrl, e.getMessage());
-            return false;
-        }
+    /**
+     * Probes every unhealthy instance concurrently and moves each one to half-open as soon as its probe succeeds,
+     * live trial requests decide whether it fully recovers
+     *
+     * @return, A Mono completing once every probe of the cycle has finished
+     */
+    public Mono<Void> checkUnhealthyInstances() {
+        List<String> unhealthyInstances = List.copyOf(instanceTracker.getUnhealthyInstances());
+        return Flux.fromIterable(unhealthyInstances)
+                .filter(instance -> backendRegistry.contains(instance) && !outlierDetector.isEjected(instance))
+                .flatMap(instance -> isInstanceHealthy(instance)
+                                .filter(Boolean::booleanValue)
+                                .doOnNext(healthy -> instanceTracker.markInstanceHalfOpen(instance)),
+                        Math.max(appConfig.getHealthCheckConcurrency(), 1))
+                .then();
+    }
+
+    /**
+     * @return, A Mono emitting whether the instance reports UP within the probe timeout, never an error
+     */
+    public Mono<Boolean> isInstanceHealthy(String workerUrl) {
+        String healthUrl = workerUrl + appConfig.getWorkerHealthEndpoint();
+        return Mono.defer(() -> webClient.get()
+                        .uri(healthUrl)
+                        .retrieve()
+                        .bodyToMono(Map.class))
+                .map(response -> Constants.HEALTH_STATUS_UP.equalsIgnoreCase(
+                        String.valueOf(response.get(Constants.STATUS))))
+                .timeout(PROBE_TIMEOUT)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    log.warn("Health check failed for {}: {}", workerUrl, e.getMessage());
+                    return Mono.just(false);
+                });
     }
 }
@@ -1,5 +1,13 @@
 package com.example.loadbalancer.service;
 
+import com.example.loadbalancer.model.BatchItemResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -11,7 +19,45 @@ public interface LoadBalancerService {
      * Method to route the request to the appropriate instance using the configured strategy
      *
      * @param payload, The incoming request is passed as a payload.
-     * @return, Returns the response from the appropriate instance handler
+     * @param headers, The incoming request headers, visible to request aware strategies
+     * @return, Returns a Mono emitting the response from the appropriate instance handler
+     */
+    Mono<Map<String, Object>> routeRequest(Map<String, Object> payload, HttpHeaders headers);
+
+    /**
+     * Method to route the raw request body to the appropriate instance without decoding it
+     *
+     * @param body, The undecoded request body
+     * @param headers, The incoming request headers, visible to request aware strategies
+     * @return, Returns a Mono emitting the undecoded response body from the appropriate instance handler
      */
-    Map<String, Object> routeRequest(Map<String, Object> payload);
+    Mono<byte[]> routeRawRequest(byte[] body, HttpHeaders headers);
+
+    /**
+     * Method to route every payload of a batch with the configured strategy, concurrently with bounded parallelism
+     *
+     * @param payloads, The payloads of the batch
+     * @param headers, The incoming request headers, shared by every payload
+     * @return, Returns a Mono emitting one result per payload in the order of the payloads,
+     * a payload that fails carries its error instead of failing the batch
+     */
+    Mono<List<BatchItemResponse>> routeBatch(List<Map<String, Object>> payloads, HttpHeaders headers);
+
+    /**
+     * Method to stream the request body to the appropriate instance chunk by chunk and stream its response back.
+     * The body can only be read once, so the request is neither retried nor hedged
+     *
+     * @param body, The request body chunks, read as the worker consumes them
+     * @param headers, The incoming request headers, visible to request aware strategies
+     * @return, Returns a Mono emitting the worker status and headers once they arrive, with the response body chunks
+     */
+    Mono<ResponseEntity<Flux<DataBuffer>>> routeStream(Flux<DataBuffer> body, HttpHeaders headers);
+
+    default Mono<Map<String, Object>> routeRequest(Map<String, Object> payload) {
+        return routeRequest(payload, HttpHeaders.EMPTY);
+    }
+
+    default Mono<byte[]> routeRawRequest(byte[] body) {
+        return routeRawRequest(body, HttpHeaders.EMPTY);
+    }
 }
@@ -1,63 +1,422 @@
 package com.example.loadbalancer.service.impl;
 
+import com.example.loadbalancer.cache.PayloadDigest;
+import com.example.loadbalancer.cache.RequestCoalescer;
+import com.example.loadbalancer.cache.ResponseCache;
 import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.ConcurrencyLimitExceededException;
 import com.example.loadbalancer.exception.NoAvailableInstanceException;
 import com.example.loadbalancer.factory.LoadBalancerFactory;
+import com.example.loadbalancer.limiter.ConcurrencyLimiter;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.model.BatchItemResponse;
+import com.example.loadbalancer.model.ErrorResponse;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.registry.BackendRegistry;
 import com.example.loadbalancer.service.LoadBalancerService;
 import com.example.loadbalancer.strategy.LoadBalancingStrategy;
+import com.example.loadbalancer.tracker.CircuitBreaker;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
 import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.tracker.LatencyHistogram;
+import com.example.loadbalancer.tracker.OutlierDetector;
+import com.example.loadbalancer.tracker.RetryBudget;
+import com.example.loadbalancer.util.Constants;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service class for implementing the LoadBalancer operation for routing the requests
- * Fetches the appropriate instance by the configured strategy, retrying on failure
+ * Fetches the appropriate instance by the configured strategy, retrying on failure.
+ * The whole pipeline is non-blocking, no thread is held while waiting on a worker.
+ * Call outcomes feed the {@link OutlierDetector}, which decides when an instance leaves the rotation,
+ * and every call needs a permit from the circuit breaker of its instance in {@link InstanceTracker}.
+ * Retries and hedged duplicates of idempotent requests are paid for from the shared {@link RetryBudget}.
  */
 @Slf4j
 @Service
 public class LoadBalancerServiceImpl implements LoadBalancerService {
 
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> BATCH_RESPONSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+
     private final LoadBalancerFactory loadBalancerFactory;
     private final AppConfig appConfig;
     private final WebClient webClient;
+    private final InstanceLoadTracker instanceLoadTracker;
+    private final OutlierDetector outlierDetector;
     private final InstanceTracker instanceTracker;
+    private final RetryBudget retryBudget;
+    private final LatencyHistogram latencyHistogram;
+    private final LoadBalancerMetrics loadBalancerMetrics;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final BackendRegistry backendRegistry;
+    private final ConcurrencyLimiter concurrencyLimiter;
 
     public LoadBalancerServiceImpl(LoadBalancerFactory loadBalancerFactory, AppConfig appConfig,
-                                   WebClient webClient, InstanceTracker instanceTracker) {
+                                   WebClient webClient, InstanceLoadTracker instanceLoadTracker,
+                                   OutlierDetector outlierDetector, InstanceTracker instanceTracker,
+                                   RetryBudget retryBudget, LatencyHistogram latencyHistogram,
+                                   LoadBalancerMetrics loadBalancerMetrics, ResponseCache responseCache,
+                                   RequestCoalescer requestCoalescer, BackendRegistry backendRegistry,
+                                   ConcurrencyLimiter concurrencyLimiter) {
         this.loadBalancerFactory = loadBalancerFactory;
         this.appConfig = appConfig;
         this.webClient = webClient;
+        this.instanceLoadTracker = instanceLoadTracker;
+        this.outlierDetector = outlierDetector;
         this.instanceTracker = instanceTracker;
+        this.retryBudget = retryBudget;
+        this.latencyHistogram = latencyHistogram;
+        this.loadBalancerMetrics = loadBalancerMetrics;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.backendRegistry = backendRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     @Override
-    public Map<String, Object> routeRequest(Map<String, Object> payload) {
-        LoadBalancingStrategy strategy = loadBalancerFactory.getStrategy(appConfig.getAlgorithm());
-        int attempts = 0;
-        int instancesSize = appConfig.getInstances().size();
-
-        while (attempts < instancesSize) {
-            String instanceUrl = strategy.getInstanceUrl(appConfig.getInstances());
-            try {
-                log.info("Routing request to: {}", instanceUrl);
-                return webClient.post()
+    public Mono<Map<String, Object>> routeRequest(Map<String, Object> payload, HttpHeaders headers) {
+        return routeRequest(payload, headers, RequestCoalescer.ROUTE);
+    }
+
+    /**
+     * Answers the payload from the {@link ResponseCache} when it is enabled and holds its response,
+     * otherwise routes it and caches the worker response
+     */
+    private Mono<Map<String, Object>> routeRequest(Map<String, Object> payload, HttpHeaders headers, String routeName) {
+        String cacheKey = responseCache.isCacheable(headers) ? responseCache.keyOf(payload) : null;
+        if (cacheKey != null) {
+            Map<String, Object> cached = responseCache.get(cacheKey);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+        }
+        Mono<Map<String, Object>> routed = coalesced(routeName, () -> PayloadDigest.of(payload),
+                () -> route(RoutingRequest.of(payload, headers), instanceUrl -> webClient.post()
                         .uri(instanceUrl + appConfig.getWorkerApiEndpoint())
                         .bodyValue(payload)
                         .retrieve()
-                        .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                        .timeout(Duration.ofSeconds(5))
-                        .block();
-            } catch (Exception e) {
-                log.error("Failed to reach worker instance {}: {}", instanceUrl, e.getMessage());
-                instanceTracker.markInstanceUnHealthy(instanceUrl);
-            }
-            attempts++;
+                        .bodyToMono(RESPONSE_TYPE)));
+        return cacheKey == null ? routed : routed.doOnNext(response -> responseCache.put(cacheKey, response));
+    }
+
+    @Override
+    public Mono<byte[]> routeRawRequest(byte[] body, HttpHeaders headers) {
+        return coalesced(RequestCoalescer.RAW, () -> RequestCoalescer.RAW + ":" + PayloadDigest.of(body),
+                () -> route(RoutingRequest.ofRaw(body, headers), instanceUrl -> webClient.post()
+                        .uri(instanceUrl + appConfig.getWorkerApiEndpoint())
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToMono(byte[].class)));
+    }
+
+    /**
+     * Shares the call with identical in-flight requests when coalescing is enabled for the route,
+     * raw bodies are keyed apart from decoded payloads since their responses are not decoded
+     */
+    private <T> Mono<T> coalesced(String routeName, Supplier<String> key, Supplier<Mono<T>> call) {
+        if (!requestCoalescer.isEnabled(routeName)) {
+            return call.get();
         }
-        throw new NoAvailableInstanceException("No healthy instance available to route the request");
+        String coalescingKey = key.get();
+        return coalescingKey == null ? call.get() : requestCoalescer.coalesce(coalescingKey, call);
+    }
+
+    @Override
+    public Mono<List<BatchItemResponse>> routeBatch(List<Map<String, Object>> payloads, HttpHeaders headers) {
+        AppConfig.Batch batch = appConfig.getBatch();
+        int parallelism = Math.max(batch.getParallelism(), 1);
+        if (batch.getWorkerBatchEndpoint() != null && batch.getItemsPerCall() > 1) {
+            return routePacked(payloads, headers, batch.getWorkerBatchEndpoint(), batch.getItemsPerCall(), parallelism);
+        }
+
+        // flatMapSequential subscribes to up to `parallelism` items at once and emits the results in payload order
+        return Flux.range(0, payloads.size())
+                .flatMapSequential(index -> routeRequest(payloads.get(index), headers, RequestCoalescer.BATCH)
+                                .map(response -> BatchItemResponse.success(index, response))
+                                .onErrorResume(e -> Mono.just(BatchItemResponse.failure(index, toErrorResponse(e)))),
+                        parallelism)
+                .collectList();
+    }
+
+    /**
+     * Streams the body to the instance and hands back the worker response as it arrives. The instance is only held
+     * until the worker headers arrive, the chunks then flow through without being buffered.
+     * The upload may take as long as the client keeps sending, so the call has no overall timeout:
+     * the idle timeout bounds every gap between two upload chunks and, through the response timeout of the client,
+     * the wait for the headers and every gap between two response chunks
+     */
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> routeStream(Flux<DataBuffer> body, HttpHeaders headers) {
+        Duration idleTimeout = appConfig.getStreaming().getIdleTimeout();
+        return route(RoutingRequest.ofStream(headers), instanceUrl -> webClient.post()
+                .uri(instanceUrl + appConfig.getWorkerApiEndpoint())
+                .headers(upstreamHeaders -> copyStreamHeaders(headers, upstreamHeaders))
+                // The response timeout of the client applies between two reads, long gaps between events are normal here
+                .httpRequest(request -> request.<HttpClientRequest>getNativeRequest().responseTimeout(idleTimeout))
+                .body(BodyInserters.fromDataBuffers(body.timeout(idleTimeout)))
+                .retrieve()
+                .toEntityFlux(DataBuffer.class), false, null);
+    }
+
+    private static void copyStreamHeaders(HttpHeaders from, HttpHeaders to) {
+        if (from.getContentType() != null) {
+            to.setContentType(from.getContentType());
+        }
+        if (from.getContentLength() >= 0) {
+            to.setContentLength(from.getContentLength());
+        }
+        List<String> accept = from.get(HttpHeaders.ACCEPT);
+        if (accept != null) {
+            to.put(HttpHeaders.ACCEPT, accept);
+        }
+    }
+
+    /**
+     * Packs consecutive payloads into chunks and routes every chunk as one call to the batch endpoint of a worker.
+     * The strategy sees the first payload of a chunk, a failed chunk fails each of its items
+     */
+    private Mono<List<BatchItemResponse>> routePacked(List<Map<String, Object>> payloads, HttpHeaders headers,
+                                                      String workerBatchEndpoint, int itemsPerCall, int parallelism) {
+        int chunks = (payloads.size() + itemsPerCall - 1) / itemsPerCall;
+        return Flux.range(0, chunks)
+                .flatMapSequential(chunk -> {
+                    int from = chunk * itemsPerCall;
+                    List<Map<String, Object>> items = payloads.subList(from, Math.min(from + itemsPerCall, payloads.size()));
+                    return route(RoutingRequest.of(items.get(0), headers), instanceUrl -> webClient.post()
+                            .uri(instanceUrl + workerBatchEndpoint)
+                            .bodyValue(items)
+                            .retrieve()
+                            .bodyToMono(BATCH_RESPONSE_TYPE))
+                            .flatMapMany(responses -> responses.size() == items.size()
+                                    ? Flux.range(0, items.size())
+                                            .map(i -> BatchItemResponse.success(from + i, responses.get(i)))
+                                    : Flux.error(new IllegalStateException("Worker answered " + responses.size()
+                                            + " results for " + items.size() + " items")))
+                            .onErrorResume(e -> Flux.range(0, items.size())
+                                    .map(i -> BatchItemResponse.failure(from + i, toErrorResponse(e))));
+                }, parallelism)
+                .collectList();
+    }
+
+    private static ErrorResponse toErrorResponse(Throwable e) {
+        if (e instanceof NoAvailableInstanceException) {
+            return new ErrorResponse(Constants.ERROR_NO_AVAILABLE_INSTANCE, e.getMessage());
+        }
+        if (e instanceof ConcurrencyLimitExceededException) {
+            return new ErrorResponse(Constants.ERROR_OVERLOADED, e.getMessage());
+        }
+        if (isClientError(e)) {
+            return new ErrorResponse(Constants.ERROR_INVALID_REQUEST, e.getMessage());
+        }
+        return new ErrorResponse(Constants.ERROR_INTERNAL_SERVER, e.getMessage());
+    }
+
+    /**
+     * Picks an instance with the configured strategy and performs the call against it,
+     * retrying on another instance until every instance has been tried once or the retry budget runs out.
+     * Idempotent requests are hedged when hedging is enabled. Every upstream call, retries and hedges included,
+     * needs a permit of the {@link ConcurrencyLimiter}, a request is shed right away when none is left.
+     * Selections, retries, hedges and rejections are recorded in {@link LoadBalancerMetrics}, so are the latency
+     * and failures of every upstream call
+     *
+     * @param request, The incoming request, passed to the strategy on every attempt
+     * @param call, Builds the worker call for the selected instance url
+     * @return, A Mono emitting the worker response
+     */
+    private <T> Mono<T> route(RoutingRequest request, Function<String, Mono<T>> call) {
+        return route(request, call, true, UPSTREAM_TIMEOUT);
+    }
+
+    /**
+     * @param replayable, Whether the call can be sent again, a call consuming a stream is neither retried nor hedged
+     * @param timeout, The time the call may take until it emits, null when the call bounds itself
+     */
+    private <T> Mono<T> route(RoutingRequest request, Function<String, Mono<T>> call, boolean replayable,
+                              Duration timeout) {
+        LoadBalancingStrategy strategy = loadBalancerFactory.getStrategy(appConfig.getAlgorithm());
+        // One registry snapshot per request, retries and hedges pick from the same instances
+        List<String> instances = backendRegistry.getInstances();
+        int instancesSize = instances.size();
+
+        if (instancesSize == 0) {
+            loadBalancerMetrics.recordRejection();
+            return Mono.error(new NoAvailableInstanceException("No healthy instance available to route the request"));
+        }
+
+        retryBudget.deposit();
+        // Every retry re-subscribes to the deferred Mono, so each attempt asks the strategy for a fresh instance.
+        // An instance is excluded once picked, whether the request was sent to it or its breaker refused it,
+        // so neither a retry, a hedge nor the next pick of this loop lands on it again
+        Mono<T> attempt = Mono.defer(() -> {
+                    boolean refused = false;
+                    for (int i = 0; i < instancesSize; i++) {
+                        String instanceUrl;
+                        try {
+                            instanceUrl = strategy.getInstanceUrl(instances, request);
+                        } catch (NoAvailableInstanceException e) {
+                            if (!refused) {
+                                throw e;
+                            }
+                            break;
+                        }
+                        request.exclude(instanceUrl);
+                        CircuitBreaker.Permit permit = instanceTracker.tryAcquire(instanceUrl);
+                        if (permit != null) {
+                            loadBalancerMetrics.recordSelection(instanceUrl);
+                            return forwardRequest(instanceUrl, permit, call, timeout);
+                        }
+                        refused = true;
+                    }
+                    return Mono.<T>error(new NoAvailableInstanceException("No instance admitted the request, all trial permits are taken"));
+                });
+
+        if (!replayable) {
+            return attempt
+                    .onErrorMap(e -> !isFinal(e), e ->
+                            new NoAvailableInstanceException("Request failed and a streamed body cannot be retried"))
+                    .doOnError(NoAvailableInstanceException.class, e -> loadBalancerMetrics.recordRejection());
+        }
+
+        long hedgeDelayNanos = hedgeDelayNanos(request);
+        return (hedgeDelayNanos < 0 ? attempt : hedged(attempt, hedgeDelayNanos))
+                .retryWhen(Retry.max(instancesSize - 1)
+                        .filter(e -> !isFinal(e) && retryBudget.tryWithdraw())
+                        .doBeforeRetry(signal -> loadBalancerMetrics.recordRetry())
+                        .onRetryExhaustedThrow((spec, signal) ->
+                                new NoAvailableInstanceException("No healthy instance available to route the request")))
+                .onErrorMap(e -> !isFinal(e), e ->
+                        new NoAvailableInstanceException("Request failed and the retry budget is exhausted"))
+                .doOnError(NoAvailableInstanceException.class, e -> loadBalancerMetrics.recordRejection());
+    }
+
+    /**
+     * @return, Whether the request was turned away before reaching a worker or rejected by the worker itself,
+     * another instance would answer the same, so the error is neither retried nor wrapped
+     */
+    private static boolean isFinal(Throwable e) {
+        return e instanceof NoAvailableInstanceException || e instanceof ConcurrencyLimitExceededException
+                || isClientError(e);
+    }
+
+    /**
+     * Races the attempt against a duplicate started after the delay, the first response wins and the
+     * other call is cancelled. The duplicate needs a retry budget token and is not started once the first
+     * attempt failed, the retry takes over then
+     */
+    private <T> Mono<T> hedged(Mono<T> attempt, long delayNanos) {
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> primary = attempt.doOnError(e -> primaryFailed.tryEmitEmpty());
+            Mono<T> hedge = Mono.firstWithSignal(Mono.delay(Duration.ofNanos(delayNanos)),
+                            primaryFailed.asMono().then(Mono.<Long>empty()))
+                    .filter(tick -> retryBudget.tryWithdraw())
+                    .flatMap(tick -> {
+                        log.info("No response after {}ms, hedging the request", delayNanos / 1_000_000);
+                        loadBalancerMetrics.recordHedge();
+                        return attempt;
+                    });
+            return Flux.mergeDelayError(2, primary, hedge).next();
+        });
+    }
+
+    /**
+     * @return, The hedging delay in nanoseconds for the request, or -1 when it is not hedged
+     */
+    private long hedgeDelayNanos(RoutingRequest request) {
+        AppConfig.Hedging hedging = appConfig.getHedging();
+        if (!hedging.isEnabled() || !request.headers().containsKey(hedging.getIdempotentHeader())) {
+            return -1;
+        }
+        long percentileNanos = latencyHistogram.percentileNanos(hedging.getPercentile());
+        return percentileNanos < 0 ? -1 : Math.max(percentileNanos, hedging.getMinDelay().toNanos());
+    }
+
+    /**
+     * Performs the call against the instance under a permit of the {@link ConcurrencyLimiter}, which samples
+     * the round trip time of the call alone. The outcome of a half-open trial is reported back to the
+     * circuit breaker, a trial cancelled or shed by the limiter before its outcome hands its permit back.
+     * The outcome is reported once: a hedge that wins is cancelled right after its response, which must not
+     * count as a cancelled call on top of it
+     */
+    private <T> Mono<T> forwardRequest(String instanceUrl, CircuitBreaker.Permit permit, Function<String, Mono<T>> call,
+                                       Duration timeout) {
+        log.info("Routing request to: {}", instanceUrl);
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            AtomicBoolean reported = new AtomicBoolean();
+            instanceLoadTracker.incrementInFlight(instanceUrl);
+            Mono<T> upstream = Mono.defer(() -> call.apply(instanceUrl));
+            return concurrencyLimiter.limit(timeout == null ? upstream : upstream.timeout(timeout))
+                    .doOnSuccess(response -> {
+                        if (!reported.compareAndSet(false, true)) {
+                            return;
+                        }
+                        long latencyNanos = System.nanoTime() - startNanos;
+                        instanceLoadTracker.recordLatency(instanceUrl, latencyNanos);
+                        outlierDetector.recordSuccess(instanceUrl, latencyNanos);
+                        latencyHistogram.record(latencyNanos);
+                        loadBalancerMetrics.recordLatency(instanceUrl, latencyNanos);
+                        instanceTracker.onRequestComplete(instanceUrl, permit, true);
+                    })
+                    .doOnError(e -> {
+                        // A shed call never reached the instance, doFinally hands the permit back
+                        if (e instanceof ConcurrencyLimitExceededException || !reported.compareAndSet(false, true)) {
+                            return;
+                        }
+                        log.error("Failed to reach worker instance {}: {}", instanceUrl, e.getMessage());
+                        long latencyNanos = System.nanoTime() - startNanos;
+                        instanceLoadTracker.recordLatency(instanceUrl, latencyNanos);
+                        if (isClientError(e)) {
+                            outlierDetector.recordSuccess(instanceUrl, latencyNanos);
+                            loadBalancerMetrics.recordLatency(instanceUrl, latencyNanos);
+                            instanceTracker.onRequestComplete(instanceUrl, permit, true);
+                        } else {
+                            outlierDetector.recordFailure(instanceUrl);
+                            loadBalancerMetrics.recordFailure(instanceUrl);
+                            instanceTracker.onRequestComplete(instanceUrl, permit, false);
+                        }
+                    })
+                    .doFinally(signal -> {
+                        instanceLoadTracker.decrementInFlight(instanceUrl);
+                        if (reported.compareAndSet(false, true)) {
+                            instanceTracker.onRequestComplete(instanceUrl, permit, null);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * A 4xx answer means the worker is up and rejected the request, it does not count against the instance
+     * and is handed back to the client with the worker status
+     */
+    private static boolean isClientError(Throwable e) {
+        return e instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError();
     }
 }
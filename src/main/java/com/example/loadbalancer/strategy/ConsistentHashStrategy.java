@@ -0,0 +1,300 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implements the LoadBalancingStrategy operations using Maglev consistent hashing
+ * Requests carrying the same routing key, read from a configured header or top level JSON field,
+ * always land on the same healthy instance. The lookup table is precomputed, so a selection is O(1).
+ * When an instance becomes unhealthy only the slots it owns are reassigned, using a second table
+ * built over the remaining instances, so only its keys move and the keys of the others stay put.
+ * An instance in slow start only takes the keys of its slots whose hash falls below its weight factor,
+ * the rest stay on the instance the slot would have without it, so its share of keys grows with the ramp.
+ * A key whose instance the request excludes moves on to the instance of the next table slot that is not excluded
+ */
+@Slf4j
+@Service
+public class ConsistentHashStrategy implements LoadBalancingStrategy {
+
+    /**
+     * Prime size of the Maglev lookup table, far larger than the instance count to keep the split even
+     */
+    static final int TABLE_SIZE = 65537;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final AtomicInteger counter;
+    private final InstanceTracker instanceTracker;
+    private final AppConfig appConfig;
+    private final InstanceListCache<Table> tables = new InstanceListCache<>();
+
+    public ConsistentHashStrategy(InstanceTracker instanceTracker, AppConfig appConfig) {
+        this.counter = new AtomicInteger(0);
+        this.instanceTracker = instanceTracker;
+        this.appConfig = appConfig;
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances) {
+        return getInstanceUrl(instances, null);
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        Table current = tableFor(snapshot);
+        int[] lookup = current.lookup();
+        if (lookup == null) {
+            throw new NoAvailableInstanceException("No Healthy instance available");
+        }
+
+        String key = request == null ? null : routingKey(request);
+        // Requests without a key are spread over the table slots instead of all landing on one instance
+        int slot = key == null
+                ? Math.floorMod(counter.getAndIncrement(), TABLE_SIZE)
+                : (int) Long.remainderUnsigned(hash(key, 0), TABLE_SIZE);
+        int index = lookup[slot];
+        int[] settled = current.settled();
+        if (settled != null && settled[slot] != index) {
+            // The same keys stay admitted while the factor grows, so a key moves to the cold instance only once
+            double draw = key == null
+                    ? ThreadLocalRandom.current().nextDouble()
+                    : (hash(key, 3) >>> 11) * 0x1.0p-53;
+            if (draw >= snapshot.weightFactor(index, System.nanoTime())) {
+                index = settled[slot];
+            }
+        }
+        if (request != null && request.isExcluded(instances.get(index))) {
+            index = nextNotExcluded(snapshot, lookup, slot, request);
+        }
+        return instances.get(index);
+    }
+
+    /**
+     * Walks the table from the slot to the first instance the request does not exclude, the walk only
+     * depends on the key and the instances tried so far, so a retried key keeps landing on the same fallback
+     */
+    private static int nextNotExcluded(HealthySnapshot snapshot, int[] lookup, int slot, RoutingRequest request) {
+        boolean any = false;
+        for (int i = 0; i < snapshot.healthyCount() && !any; i++) {
+            any = !request.isExcluded(snapshot.healthyInstance(i));
+        }
+        if (!any) {
+            throw new NoAvailableInstanceException("Every healthy instance was already tried");
+        }
+        List<String> instances = snapshot.instances();
+        for (int step = 1; ; step++) {
+            int index = lookup[(slot + step) % TABLE_SIZE];
+            if (!request.isExcluded(instances.get(index))) {
+                return index;
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "consistenthash";
+    }
+
+    /**
+     * Reads the routing key from the configured header first, then from the configured top level JSON field.
+     * A raw body is scanned with a streaming parser that stops at the field, it is never fully decoded
+     */
+    String routingKey(RoutingRequest request) {
+        String header = appConfig.getHashKeyHeader();
+        if (header != null && request.headers() != null) {
+            String value = request.headers().getFirst(header);
+            if (value != null) {
+                return value;
+            }
+        }
+
+        String field = appConfig.getHashKeyField();
+        if (field == null) {
+            return null;
+        }
+        Map<String, Object> payload = request.payload();
+        if (payload != null) {
+            Object value = payload.get(field);
+            return value == null ? null : String.valueOf(value);
+        }
+        return request.body() == null ? null : readField(request.body(), field);
+    }
+
+    private static String readField(byte[] body, String field) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (field.equals(name)) {
+                    return token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            log.debug("Could not read routing key {} from the request body: {}", field, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the table of the snapshot instance list, rebuilding it only when the snapshot version moved
+     */
+    private Table tableFor(HealthySnapshot snapshot) {
+        List<String> instances = snapshot.instances();
+        Table current = tables.get(instances);
+        if (current == null || current.version() != snapshot.version()) {
+            synchronized (this) {
+                current = tables.get(instances);
+                if (current == null || current.version() != snapshot.version()) {
+                    current = buildTable(snapshot);
+                    tables.put(instances, current);
+                }
+            }
+        }
+        return current;
+    }
+
+    private Table buildTable(HealthySnapshot snapshot) {
+        List<String> instances = snapshot.instances();
+        int size = instances.size();
+        boolean[] healthy = new boolean[size];
+        boolean[] all = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            healthy[i] = snapshot.isHealthy(i);
+            all[i] = true;
+        }
+
+        int[] lookup = buildLookup(instances, all);
+        if (snapshot.healthyCount() < size && lookup != null) {
+            lookup = withFallback(lookup, instances, healthy);
+        }
+        return new Table(snapshot.version(), lookup, lookup == null ? null : settledLookup(snapshot, lookup));
+    }
+
+    /**
+     * @return, The lookup where the slots of the instances that are not selected are reassigned over the
+     * selected ones, or null when none is selected
+     */
+    private static int[] withFallback(int[] lookup, List<String> instances, boolean[] selected) {
+        int[] fallback = buildLookup(instances, selected);
+        if (fallback == null) {
+            return null;
+        }
+        int[] result = lookup.clone();
+        for (int slot = 0; slot < TABLE_SIZE; slot++) {
+            if (!selected[result[slot]]) {
+                result[slot] = fallback[slot];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return, The lookup without the instances in slow start, or null when none is ramping up or all of them are
+     */
+    private static int[] settledLookup(HealthySnapshot snapshot, int[] lookup) {
+        if (!snapshot.isWarmingUp()) {
+            return null;
+        }
+        List<String> instances = snapshot.instances();
+        long now = System.nanoTime();
+        boolean[] settled = new boolean[instances.size()];
+        boolean anyWarming = false;
+        for (int i = 0; i < settled.length; i++) {
+            boolean warming = snapshot.weightFactor(i, now) < 1.0;
+            settled[i] = snapshot.isHealthy(i) && !warming;
+            anyWarming |= snapshot.isHealthy(i) && warming;
+        }
+        return anyWarming ? withFallback(lookup, instances, settled) : null;
+    }
+
+    /**
+     * Fills a Maglev lookup table: every selected instance takes turns claiming the next free slot
+     * of its own permutation. The permutation only depends on the instance url, which is what keeps
+     * the slots of the other instances in place when one is removed
+     *
+     * @return, The instance index of every slot, or null when no instance is selected
+     */
+    static int[] buildLookup(List<String> instances, boolean[] selected) {
+        int size = instances.size();
+        long[] offsets = new long[size];
+        long[] skips = new long[size];
+        long[] next = new long[size];
+        int selectedCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (selected[i]) {
+                offsets[i] = Long.remainderUnsigned(hash(instances.get(i), 1), TABLE_SIZE);
+                skips[i] = Long.remainderUnsigned(hash(instances.get(i), 2), TABLE_SIZE - 1) + 1;
+                selectedCount++;
+            }
+        }
+        if (selectedCount == 0) {
+            return null;
+        }
+
+        int[] lookup = new int[TABLE_SIZE];
+        Arrays.fill(lookup, -1);
+        int filled = 0;
+        while (true) {
+            for (int i = 0; i < size; i++) {
+                if (!selected[i]) {
+                    continue;
+                }
+                int slot = (int) ((offsets[i] + next[i] * skips[i]) % TABLE_SIZE);
+                while (lookup[slot] >= 0) {
+                    next[i]++;
+                    slot = (int) ((offsets[i] + next[i] * skips[i]) % TABLE_SIZE);
+                }
+                lookup[slot] = i;
+                next[i]++;
+                if (++filled == TABLE_SIZE) {
+                    return lookup;
+                }
+            }
+        }
+    }
+
+    /**
+     * 64 bit FNV-1a over the characters followed by the murmur3 finalizer, stable across JVM runs
+     */
+    static long hash(String value, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @param settled, The lookup to fall back to for the keys a ramping instance does not take yet, null when
+     *                 no instance is ramping up
+     */
+    private record Table(long version, int[] lookup, int[] settled) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.loadbalancer.strategy;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per instance list state of a strategy. Instance lists are immutable and replaced by a new object on every change,
+ * so entries are looked up by identity and a lookup never hashes the urls. The map is copied on write and starts
+ * over once it holds more lists than a few registry changes and zone tiers account for
+ */
+final class InstanceListCache<V> {
+
+    static final int MAX_LISTS = 32;
+
+    private volatile Map<List<String>, V> entries = new IdentityHashMap<>();
+
+    V get(List<String> instances) {
+        return entries.get(instances);
+    }
+
+    synchronized void put(List<String> instances, V value) {
+        Map<List<String>, V> next = entries.size() >= MAX_LISTS ? new IdentityHashMap<>() : new IdentityHashMap<>(entries);
+        next.put(instances, value);
+        entries = next;
+    }
+}
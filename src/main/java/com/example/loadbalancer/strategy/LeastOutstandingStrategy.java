@@ -0,0 +1,76 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implements the LoadBalancingStrategy operations using the Least Outstanding Requests Strategy
+ * Returns the healthy instance with the fewest in-flight requests, so a slow instance
+ * stops receiving traffic until it drains its backlog. Ties are broken by rotating the scan start.
+ * While an instance is in slow start the load of every instance is its in-flight count plus one divided by its
+ * weight factor, so a cold instance only wins once the others carry proportionally more requests.
+ * The instances the request excludes are left out of the scan, so a retry gets the least loaded of the others
+ */
+@Slf4j
+@Service
+public class LeastOutstandingStrategy implements LoadBalancingStrategy {
+
+    private final AtomicInteger counter;
+    private final InstanceTracker instanceTracker;
+    private final InstanceLoadTracker instanceLoadTracker;
+
+    public LeastOutstandingStrategy(InstanceTracker instanceTracker, InstanceLoadTracker instanceLoadTracker) {
+        this.counter = new AtomicInteger(0);
+        this.instanceTracker = instanceTracker;
+        this.instanceLoadTracker = instanceLoadTracker;
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances) {
+        return getInstanceUrl(instances, null);
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        int size = snapshot.healthyCount();
+        int start = size == 0 ? 0 : Math.floorMod(counter.getAndIncrement(), size);
+        boolean warmingUp = snapshot.isWarmingUp();
+        long now = warmingUp ? System.nanoTime() : 0;
+        String selected = null;
+        double selectedLoad = Double.MAX_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            String instance = snapshot.healthyInstance(index);
+            if (LoadBalancingStrategy.isExcluded(request, instance)) {
+                continue;
+            }
+            int inFlight = instanceLoadTracker.getInFlight(instance);
+            double load = warmingUp ? (inFlight + 1) / snapshot.healthyWeightFactor(index, now) : inFlight;
+            if (load < selectedLoad) {
+                selected = instance;
+                selectedLoad = load;
+            }
+        }
+
+        if (selected == null) {
+            throw new NoAvailableInstanceException(size > 0
+                    ? "Every healthy instance was already tried" : "No Healthy instance available");
+        }
+        return selected;
+    }
+
+    @Override
+    public String getName() {
+        return "leastoutstanding";
+    }
+}
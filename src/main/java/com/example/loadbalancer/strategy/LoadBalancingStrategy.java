@@ -1,5 +1,7 @@
 package com.example.loadbalancer.strategy;
 
+import com.example.loadbalancer.model.RoutingRequest;
+
 import java.util.List;
 
 /**
@@ -9,4 +11,20 @@ public interface LoadBalancingStrategy {
 
     String getInstanceUrl(List<String> instances);
     String getName();
+
+    /**
+     * Request aware selection, strategies that route on the request content override this.
+     * Every strategy skips the instances the request excludes, and throws NoAvailableInstanceException
+     * when every healthy instance is excluded
+     */
+    default String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        return getInstanceUrl(instances);
+    }
+
+    /**
+     * @return, Whether the instance is excluded for the request, no request excludes nothing
+     */
+    static boolean isExcluded(RoutingRequest request, String instance) {
+        return request != null && request.isExcluded(instance);
+    }
 }
@@ -0,0 +1,134 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implements the LoadBalancingStrategy operations using Power of Two Choices with peak EWMA scoring
+ * Samples two distinct healthy instances at random and returns the one with the lower score,
+ * where the score is the latency average multiplied by the number of pending requests.
+ * An instance with pending requests but no latency observation yet loses to any measured one, so it does not
+ * soak up every request until its first response, and two such instances compare by their pending requests.
+ * The score of an instance in slow start is divided by its weight factor.
+ * Selection takes no lock and allocates nothing, retries included
+ */
+@Slf4j
+@Service
+public class PowerOfTwoChoicesStrategy implements LoadBalancingStrategy {
+
+    private final InstanceTracker instanceTracker;
+    private final InstanceLoadTracker instanceLoadTracker;
+
+    public PowerOfTwoChoicesStrategy(InstanceTracker instanceTracker, InstanceLoadTracker instanceLoadTracker) {
+        this.instanceTracker = instanceTracker;
+        this.instanceLoadTracker = instanceLoadTracker;
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances) {
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        int size = snapshot.healthyCount();
+        if (size == 0) {
+            throw new NoAvailableInstanceException("No Healthy instance available");
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int firstIndex = random.nextInt(size);
+        if (size == 1) {
+            return snapshot.healthyInstance(firstIndex);
+        }
+        return choose(snapshot, firstIndex, (firstIndex + 1 + random.nextInt(size - 1)) % size);
+    }
+
+    /**
+     * Samples the two instances among the healthy ones the request does not exclude.
+     * The eligible instances are counted first and the sampled ranks are then looked up again, instead of
+     * collecting them into an array
+     */
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        if (request == null || !request.hasExclusions()) {
+            return getInstanceUrl(instances);
+        }
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        int size = snapshot.healthyCount();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (!request.isExcluded(snapshot.healthyInstance(i))) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            throw new NoAvailableInstanceException(size > 0
+                    ? "Every healthy instance was already tried" : "No Healthy instance available");
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        if (count == 1) {
+            return snapshot.healthyInstance(eligibleIndex(snapshot, request, first));
+        }
+        int second = (first + 1 + random.nextInt(count - 1)) % count;
+        return choose(snapshot, eligibleIndex(snapshot, request, first), eligibleIndex(snapshot, request, second));
+    }
+
+    /**
+     * @return, The healthy index of the instance at the given rank among the ones the request does not exclude
+     */
+    private static int eligibleIndex(HealthySnapshot snapshot, RoutingRequest request, int rank) {
+        int size = snapshot.healthyCount();
+        for (int i = 0; i < size; i++) {
+            if (!request.isExcluded(snapshot.healthyInstance(i)) && rank-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Rank " + rank + " is out of the eligible instances");
+    }
+
+    private String choose(HealthySnapshot snapshot, int firstIndex, int secondIndex) {
+        String first = snapshot.healthyInstance(firstIndex);
+        String second = snapshot.healthyInstance(secondIndex);
+        double firstLatency = instanceLoadTracker.getLatencyEwma(first);
+        double secondLatency = instanceLoadTracker.getLatencyEwma(second);
+        int firstPending = instanceLoadTracker.getInFlight(first);
+        int secondPending = instanceLoadTracker.getInFlight(second);
+        // Compared as the tuple (unknown, score), where an unknown instance is scored by its pending requests alone
+        boolean firstUnknown = isUnknown(firstLatency, firstPending);
+        boolean secondUnknown = isUnknown(secondLatency, secondPending);
+        if (firstUnknown != secondUnknown) {
+            return firstUnknown ? second : first;
+        }
+        double firstScore = firstUnknown ? firstPending : score(firstLatency, firstPending);
+        double secondScore = secondUnknown ? secondPending : score(secondLatency, secondPending);
+        if (snapshot.isWarmingUp()) {
+            long now = System.nanoTime();
+            firstScore /= snapshot.healthyWeightFactor(firstIndex, now);
+            secondScore /= snapshot.healthyWeightFactor(secondIndex, now);
+        }
+        return secondScore < firstScore ? second : first;
+    }
+
+    @Override
+    public String getName() {
+        return "p2c";
+    }
+
+    /**
+     * @return, Whether the instance has pending requests but no latency observation to score them with
+     */
+    static boolean isUnknown(double latency, int pending) {
+        return latency == 0 && pending > 0;
+    }
+
+    static double score(double latency, int pending) {
+        return latency * (pending + 1);
+    }
+}
@@ -1,17 +1,22 @@
 package com.example.loadbalancer.strategy;
 
 import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.HealthySnapshot;
 import com.example.loadbalancer.tracker.InstanceTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implements the LoadBalancingStrategy operations using the Round Robin Strategy
- * Distributes the requests evenly across the instances
- * and returns a healthy instance while skipping unhealthy instances
+ * Distributes the requests evenly across the healthy instances
+ * by indexing into the healthy snapshot published by {@link InstanceTracker}.
+ * An instance in slow start keeps its turn with the probability of its weight factor, otherwise the turn moves on.
+ * The turn also moves on past the instances the request excludes, the remaining ones keep their slow start odds
  */
 @Slf4j
 @Service
@@ -26,15 +31,62 @@ public class RoundRobinStrategy implements LoadBalancingStrategy{
     }
     @Override
     public String getInstanceUrl(List<String> instances) {
-        for (int i = 0; i < instances.size(); i++) {
-            int index = counter.getAndUpdate(
-                    current -> (current >= Integer.MAX_VALUE - 1) ? 0 : current + 1) % instances.size();
-            String instance = instances.get(index);
-            if (!instanceTracker.isInstanceUnhealthy(instance)) {
-                return instance;
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        int healthyCount = snapshot.healthyCount();
+        if (healthyCount == 0) {
+            throw new NoAvailableInstanceException("No Healthy instance available");
+        }
+        int index = nextIndex(healthyCount);
+        if (!snapshot.isWarmingUp()) {
+            return snapshot.healthyInstance(index);
+        }
+
+        long now = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0, candidate = index; i < healthyCount; i++, candidate = nextIndex(healthyCount)) {
+            if (random.nextDouble() < snapshot.healthyWeightFactor(candidate, now)) {
+                return snapshot.healthyInstance(candidate);
             }
         }
-        throw new NoAvailableInstanceException("No Healthy instance available");
+        return snapshot.healthyInstance(index);
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        if (request == null || !request.hasExclusions()) {
+            return getInstanceUrl(instances);
+        }
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        int healthyCount = snapshot.healthyCount();
+        if (healthyCount == 0) {
+            throw new NoAvailableInstanceException("No Healthy instance available");
+        }
+        int start = nextIndex(healthyCount);
+        boolean warmingUp = snapshot.isWarmingUp();
+        long now = warmingUp ? System.nanoTime() : 0L;
+        String firstEligible = null;
+        for (int i = 0; i < healthyCount; i++) {
+            int index = (start + i) % healthyCount;
+            String candidate = snapshot.healthyInstance(index);
+            if (request.isExcluded(candidate)) {
+                continue;
+            }
+            if (!warmingUp || ThreadLocalRandom.current().nextDouble() < snapshot.healthyWeightFactor(index, now)) {
+                return candidate;
+            }
+            if (firstEligible == null) {
+                firstEligible = candidate;
+            }
+        }
+        if (firstEligible == null) {
+            throw new NoAvailableInstanceException("Every healthy instance was already tried");
+        }
+        return firstEligible;
+    }
+
+    private int nextIndex(int healthyCount) {
+        return counter.getAndUpdate(
+                current -> (current >= Integer.MAX_VALUE - 1) ? 0 : current + 1) % healthyCount;
     }
 
     @Override
@@ -0,0 +1,161 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.registry.BackendRegistry;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implements the LoadBalancingStrategy operations using the nginx Smooth Weighted Round Robin Strategy
+ * Heavier instances receive proportionally more requests, interleaved with the others instead of in bursts.
+ * The smooth sequence for one weight period is precomputed, so concurrent selections only
+ * advance a shared cursor instead of mutating per-instance state under a lock.
+ * Weights come from the {@link BackendRegistry}, which publishes a new instance list on every change,
+ * so the sequence is rebuilt whenever a weight changes.
+ * An instance in slow start keeps its slot with the probability of its weight factor, which scales its
+ * configured weight by that factor without rebuilding the sequence as the ramp advances.
+ * The slots of the instances the request excludes are passed over like those of unhealthy instances
+ */
+@Slf4j
+@Service
+public class WeightedRoundRobinStrategy implements LoadBalancingStrategy {
+
+    /**
+     * Longest precomputed sequence, larger weight sums are scaled down to about this many steps
+     */
+    static final int MAX_PERIOD = 4096;
+
+    private final AtomicLong counter;
+    private final InstanceTracker instanceTracker;
+    private final BackendRegistry backendRegistry;
+    private final InstanceListCache<Schedule> schedules = new InstanceListCache<>();
+
+    public WeightedRoundRobinStrategy(InstanceTracker instanceTracker, BackendRegistry backendRegistry) {
+        this.counter = new AtomicLong(0);
+        this.instanceTracker = instanceTracker;
+        this.backendRegistry = backendRegistry;
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances) {
+        return getInstanceUrl(instances, null);
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        if (snapshot.healthyCount() == 0) {
+            throw new NoAvailableInstanceException("No Healthy instance available");
+        }
+        Schedule current = scheduleFor(instances);
+        int[] order = current.order();
+        boolean warmingUp = snapshot.isWarmingUp();
+        long now = warmingUp ? System.nanoTime() : 0;
+        int skipped = -1;
+        for (int i = 0; i < order.length; i++) {
+            int slot = (int) Math.floorMod(counter.getAndIncrement(), (long) order.length);
+            if (!snapshot.isHealthy(order[slot]) || LoadBalancingStrategy.isExcluded(request, instances.get(order[slot]))) {
+                continue;
+            }
+            if (!warmingUp || ThreadLocalRandom.current().nextDouble() < snapshot.weightFactor(order[slot], now)) {
+                return instances.get(order[slot]);
+            }
+            if (skipped < 0) {
+                skipped = order[slot];
+            }
+        }
+        if (skipped >= 0) {
+            return instances.get(skipped);
+        }
+        throw new NoAvailableInstanceException(request != null && request.hasExclusions()
+                ? "Every healthy instance was already tried" : "No Healthy instance available");
+    }
+
+    @Override
+    public String getName() {
+        return "weightedroundrobin";
+    }
+
+    private Schedule scheduleFor(List<String> instances) {
+        Schedule current = schedules.get(instances);
+        if (current == null) {
+            current = new Schedule(buildOrder(instances));
+            schedules.put(instances, current);
+        }
+        return current;
+    }
+
+    /**
+     * Runs the nginx smooth weighted round robin once over a full period of the reduced weights
+     * and records the picked instance index of every step.
+     * Weight sums above {@link #MAX_PERIOD} are scaled down proportionally, every instance keeping at least
+     * one slot, so arbitrary weights cannot blow up the sequence or the time to build it
+     */
+    int[] buildOrder(List<String> instances) {
+        int size = instances.size();
+        int[] weights = new int[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = backendRegistry.getWeight(instances.get(i));
+        }
+        long sum = reduce(weights);
+        if (sum > MAX_PERIOD) {
+            for (int i = 0; i < size; i++) {
+                weights[i] = (int) Math.max(1, weights[i] * (long) MAX_PERIOD / sum);
+            }
+            sum = reduce(weights);
+        }
+        int total = (int) sum;
+
+        int[] order = new int[total];
+        int[] currentWeights = new int[size];
+        for (int step = 0; step < total; step++) {
+            int best = 0;
+            for (int i = 0; i < size; i++) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[best]) {
+                    best = i;
+                }
+            }
+            currentWeights[best] -= total;
+            order[step] = best;
+        }
+        return order;
+    }
+
+    /**
+     * Divides the weights by their greatest common divisor
+     *
+     * @return, The sum of the reduced weights
+     */
+    private static long reduce(int[] weights) {
+        int divisor = 0;
+        for (int weight : weights) {
+            divisor = gcd(divisor, weight);
+        }
+        long sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] /= divisor;
+            sum += weights[i];
+        }
+        return sum;
+    }
+
+    static int gcd(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    private record Schedule(int[] order) {
+    }
+}
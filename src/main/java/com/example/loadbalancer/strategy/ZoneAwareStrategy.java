@@ -0,0 +1,206 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.HealthySnapshot;
+import com.example.loadbalancer.tracker.InstanceSubset;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wraps a LoadBalancingStrategy with zone-aware routing over priority tiers
+ * The instances are grouped into tiers ordered by priority, with the local zone first within a priority.
+ * A tier takes the traffic that reaches it up to its healthy share of instances divided by the spillover threshold,
+ * the rest spills to the next tier, so requests stay in the local zone while it has enough healthy capacity
+ * and move out in proportion as it loses it. Every request draws a tier and the wrapped strategy picks within it.
+ * Tiers are built once per instance list and their shares once per health snapshot.
+ * A retry whose drawn tier only holds instances it already tried moves on to the next tier
+ */
+@Slf4j
+public class ZoneAwareStrategy implements LoadBalancingStrategy {
+
+    private final LoadBalancingStrategy delegate;
+    private final InstanceTracker instanceTracker;
+    private final AppConfig appConfig;
+    private volatile Tiers tiers;
+
+    public ZoneAwareStrategy(LoadBalancingStrategy delegate, InstanceTracker instanceTracker, AppConfig appConfig) {
+        this.delegate = delegate;
+        this.instanceTracker = instanceTracker;
+        this.appConfig = appConfig;
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances) {
+        return getInstanceUrl(instances, null);
+    }
+
+    @Override
+    public String getInstanceUrl(List<String> instances, RoutingRequest request) {
+        Tiers current = tiersFor(instances);
+        InstanceSubset[] subsets = current.subsets();
+        if (subsets.length <= 1) {
+            return delegate.getInstanceUrl(instances, request);
+        }
+
+        double[] cumulativeShares = current.cumulativeShares(instanceTracker.getHealthySnapshot(instances),
+                appConfig.getZoneAware().getSpilloverThreshold());
+        if (cumulativeShares == null) {
+            // Nothing is healthy, the wrapped strategy reports it the usual way
+            return delegate.getInstanceUrl(instances, request);
+        }
+        double draw = ThreadLocalRandom.current().nextDouble();
+        int tier = 0;
+        while (tier < subsets.length - 1 && draw >= cumulativeShares[tier]) {
+            tier++;
+        }
+        if (request == null || !request.hasExclusions()) {
+            return delegate.getInstanceUrl(subsets[tier], request);
+        }
+        return selectNotExcluded(subsets, tier, request);
+    }
+
+    /**
+     * Tries the drawn tier first, then the others in order, until one still has an instance the request
+     * did not exclude
+     */
+    private String selectNotExcluded(InstanceSubset[] subsets, int drawn, RoutingRequest request) {
+        NoAvailableInstanceException exhausted;
+        try {
+            return delegate.getInstanceUrl(subsets[drawn], request);
+        } catch (NoAvailableInstanceException e) {
+            exhausted = e;
+        }
+        for (int tier = 0; tier < subsets.length; tier++) {
+            if (tier == drawn) {
+                continue;
+            }
+            try {
+                return delegate.getInstanceUrl(subsets[tier], request);
+            } catch (NoAvailableInstanceException e) {
+                exhausted = e;
+            }
+        }
+        throw exhausted;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    private Tiers tiersFor(List<String> instances) {
+        Tiers current = tiers;
+        if (current == null || current.instances() != instances) {
+            current = buildTiers(instances);
+            tiers = current;
+        }
+        return current;
+    }
+
+    /**
+     * Groups the instances by priority and zone, the tier of the local zone comes before the others of its priority.
+     * Every instance is local when no local zone is configured, which leaves the priorities only
+     */
+    Tiers buildTiers(List<String> instances) {
+        String localZone = appConfig.getZoneAware().getLocalZone();
+        TreeMap<Long, List<Integer>> groups = new TreeMap<>();
+        for (int i = 0; i < instances.size(); i++) {
+            String instance = instances.get(i);
+            boolean local = localZone == null || localZone.equals(appConfig.getZone(instance));
+            long order = 2L * appConfig.getPriority(instance) + (local ? 0 : 1);
+            groups.computeIfAbsent(order, key -> new ArrayList<>()).add(i);
+        }
+
+        List<InstanceSubset> subsets = new ArrayList<>(groups.size());
+        for (Map.Entry<Long, List<Integer>> group : groups.entrySet()) {
+            InstanceSubset subset = new InstanceSubset(instances,
+                    group.getValue().stream().mapToInt(Integer::intValue).toArray());
+            subsets.add(subset);
+            log.debug("Tier of priority {} in {} zone: {}", group.getKey() / 2,
+                    group.getKey() % 2 == 0 ? "the local" : "another", subset);
+        }
+        return new Tiers(instances, subsets.toArray(new InstanceSubset[0]));
+    }
+
+    /**
+     * Spills the traffic over the tiers in order, every tier takes what is left up to its capacity
+     *
+     * @param healthyCounts, The healthy instances of every tier
+     * @param sizes, The instances of every tier
+     * @param threshold, The healthy share of instances from which a tier takes all the traffic it reaches
+     * @return, The cumulative traffic share of the tiers, normalized to end at 1, or null when nothing is healthy
+     */
+    static double[] cumulativeShares(int[] healthyCounts, int[] sizes, double threshold) {
+        double[] cumulative = new double[sizes.length];
+        double remaining = 1.0;
+        for (int i = 0; i < sizes.length; i++) {
+            double capacity = Math.min(1.0, healthyCounts[i] / (sizes[i] * threshold));
+            double share = Math.min(remaining, capacity);
+            remaining -= share;
+            cumulative[i] = (i == 0 ? 0 : cumulative[i - 1]) + share;
+        }
+
+        double total = cumulative[sizes.length - 1];
+        if (total <= 0) {
+            return null;
+        }
+        // Degraded tiers together cover less than all the traffic, it is split in proportion to their capacity
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    static final class Tiers {
+
+        private final List<String> instances;
+        private final InstanceSubset[] subsets;
+        private volatile Shares shares;
+
+        Tiers(List<String> instances, InstanceSubset[] subsets) {
+            this.instances = instances;
+            this.subsets = subsets;
+        }
+
+        List<String> instances() {
+            return instances;
+        }
+
+        InstanceSubset[] subsets() {
+            return subsets;
+        }
+
+        /**
+         * @return, The cumulative traffic shares of the tiers for the snapshot, computed once per snapshot version
+         */
+        double[] cumulativeShares(HealthySnapshot snapshot, double threshold) {
+            Shares current = shares;
+            if (current == null || current.version() != snapshot.version()) {
+                int[] healthyCounts = new int[subsets.length];
+                int[] sizes = new int[subsets.length];
+                for (int tier = 0; tier < subsets.length; tier++) {
+                    sizes[tier] = subsets[tier].size();
+                    for (int i = 0; i < sizes[tier]; i++) {
+                        if (snapshot.isHealthy(subsets[tier].parentIndex(i))) {
+                            healthyCounts[tier]++;
+                        }
+                    }
+                }
+                current = new Shares(snapshot.version(), ZoneAwareStrategy.cumulativeShares(healthyCounts, sizes, threshold));
+                shares = current;
+            }
+            return current.cumulative();
+        }
+    }
+
+    private record Shares(long version, double[] cumulative) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.loadbalancer.tracker;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker of one backend instance with closed, open and half-open states.
+ * A half-open breaker lets a limited number of live requests through as trials, enough trial
+ * successes close it and a single trial failure opens it again.
+ * Every transition is a compare-and-set on one immutable state, no lock is taken
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Admission of one request. Trials carry the generation of the half-open period they belong to,
+     * so a late result from an earlier period cannot close or open the breaker again
+     */
+    public record Permit(boolean trial, long generation) {
+
+        public static final Permit PASS = new Permit(false, 0);
+    }
+
+    private record Snapshot(State state, long generation, int trials, int successes) {
+    }
+
+    private final int halfOpenPermits;
+    private final int halfOpenSuccesses;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(new Snapshot(State.CLOSED, 0, 0, 0));
+
+    public CircuitBreaker(int halfOpenPermits, int halfOpenSuccesses) {
+        this.halfOpenPermits = Math.max(halfOpenPermits, 1);
+        this.halfOpenSuccesses = Math.max(halfOpenSuccesses, 1);
+    }
+
+    public State getState() {
+        return current.get().state();
+    }
+
+    /**
+     * @return, {@link Permit#PASS} when closed, a trial permit while half-open trials are left, otherwise null
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot.state() == State.CLOSED) {
+                return Permit.PASS;
+            }
+            if (snapshot.state() == State.OPEN || snapshot.trials() >= halfOpenPermits) {
+                return null;
+            }
+            Snapshot next = new Snapshot(State.HALF_OPEN, snapshot.generation(),
+                    snapshot.trials() + 1, snapshot.successes());
+            if (current.compareAndSet(snapshot, next)) {
+                return new Permit(true, snapshot.generation());
+            }
+        }
+    }
+
+    /**
+     * Records the result of a trial request
+     *
+     * @return, The state the result moved the breaker to, or null when the state did not change
+     */
+    public State onTrialResult(Permit permit, boolean success) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot.state() != State.HALF_OPEN || snapshot.generation() != permit.generation()) {
+                return null;
+            }
+            Snapshot next;
+            if (!success) {
+                next = new Snapshot(State.OPEN, snapshot.generation() + 1, 0, 0);
+            } else if (snapshot.successes() + 1 >= halfOpenSuccesses) {
+                next = new Snapshot(State.CLOSED, snapshot.generation() + 1, 0, 0);
+            } else {
+                next = new Snapshot(State.HALF_OPEN, snapshot.generation(), snapshot.trials() - 1, snapshot.successes() + 1);
+            }
+            if (current.compareAndSet(snapshot, next)) {
+                return next.state() == State.HALF_OPEN ? null : next.state();
+            }
+        }
+    }
+
+    /**
+     * Gives back a trial permit whose request ended without a result, such as a cancelled request
+     */
+    public void releaseTrial(Permit permit) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot.state() != State.HALF_OPEN || snapshot.generation() != permit.generation()) {
+                return;
+            }
+            Snapshot next = new Snapshot(State.HALF_OPEN, snapshot.generation(), snapshot.trials() - 1, snapshot.successes());
+            if (current.compareAndSet(snapshot, next)) {
+                return;
+            }
+        }
+    }
+
+    public void open() {
+        transition(State.OPEN);
+    }
+
+    public void close() {
+        transition(State.CLOSED);
+    }
+
+    /**
+     * Moves an open breaker to half-open, a closed breaker stays closed
+     *
+     * @return, Whether the breaker moved to half-open
+     */
+    public boolean halfOpen() {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot.state() != State.OPEN) {
+                return false;
+            }
+            if (current.compareAndSet(snapshot, new Snapshot(State.HALF_OPEN, snapshot.generation() + 1, 0, 0))) {
+                return true;
+            }
+        }
+    }
+
+    private void transition(State state) {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot.state() == state) {
+                return;
+            }
+            if (current.compareAndSet(snapshot, new Snapshot(state, snapshot.generation() + 1, 0, 0))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.loadbalancer.tracker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Immutable view of the configured instances at one health version.
+ * Holds the healthy instances as a dense array, so strategies pick by index instead of
+ * scanning the configured list and hashing every candidate into the unhealthy set.
+ * Instances in their slow start window carry a weight factor below 1, which the strategies use to
+ * scale the traffic they send them. The factor is computed from the start of the ramp on every read,
+ * so the snapshot does not have to be rebuilt while the ramp advances
+ */
+public final class HealthySnapshot {
+
+    private final long version;
+    private final List<String> instances;
+    private final String[] healthyInstances;
+    private final boolean[] healthy;
+    private final Ramp ramp;
+
+    HealthySnapshot(long version, List<String> instances, String[] healthyInstances, boolean[] healthy) {
+        this(version, instances, healthyInstances, healthy, null);
+    }
+
+    HealthySnapshot(long version, List<String> instances, String[] healthyInstances, boolean[] healthy, Ramp ramp) {
+        this.version = version;
+        this.instances = instances;
+        this.healthyInstances = healthyInstances;
+        this.healthy = healthy;
+        this.ramp = ramp;
+    }
+
+    /**
+     * @return, A number that changes every time the snapshot is rebuilt
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return, The configured instance list the snapshot was built from
+     */
+    public List<String> instances() {
+        return instances;
+    }
+
+    public int healthyCount() {
+        return healthyInstances.length;
+    }
+
+    /**
+     * @return, The healthy instance at the index, in configuration order
+     */
+    public String healthyInstance(int index) {
+        return healthyInstances[index];
+    }
+
+    /**
+     * @return, Whether the configured instance at the index is healthy
+     */
+    public boolean isHealthy(int instanceIndex) {
+        return healthy[instanceIndex];
+    }
+
+    /**
+     * @return, Whether an instance of the snapshot was in its slow start window when the snapshot was built
+     */
+    public boolean isWarmingUp() {
+        return ramp != null;
+    }
+
+    /**
+     * @return, The weight factor of the configured instance at the index, 1 once its slow start is over
+     */
+    public double weightFactor(int instanceIndex, long nowNanos) {
+        return ramp == null ? 1.0 : ramp.factor(ramp.starts()[instanceIndex], nowNanos);
+    }
+
+    /**
+     * @return, The weight factor of the healthy instance at the index, 1 once its slow start is over
+     */
+    public double healthyWeightFactor(int healthyIndex, long nowNanos) {
+        return ramp == null ? 1.0 : ramp.factor(ramp.healthyStarts()[healthyIndex], nowNanos);
+    }
+
+    /**
+     * @return, The time by which every ramp of the snapshot is over, only meaningful while warming up
+     */
+    long rampEndNanos() {
+        return ramp.endNanos();
+    }
+
+    /**
+     * Derives the snapshot of a subset of the instances, it keeps the version of this snapshot
+     */
+    HealthySnapshot subset(InstanceSubset subset) {
+        return derive(subset, subset::parentIndex);
+    }
+
+    /**
+     * Derives the snapshot of another instance list, such as a list the registry has replaced since.
+     * An instance is healthy when it is part of this snapshot and healthy in it, so instances removed since
+     * get no traffic. It keeps the version of this snapshot
+     */
+    HealthySnapshot filter(List<String> others) {
+        Map<String, Integer> positions = new HashMap<>(instances.size() * 2);
+        for (int i = 0; i < instances.size(); i++) {
+            positions.put(instances.get(i), i);
+        }
+        return derive(others, i -> positions.getOrDefault(others.get(i), -1));
+    }
+
+    /**
+     * @param parentIndex, The index in this snapshot of every derived instance, -1 for the ones it does not hold
+     */
+    private HealthySnapshot derive(List<String> derived, IntUnaryOperator parentIndex) {
+        int size = derived.size();
+        boolean[] derivedHealthy = new boolean[size];
+        long[] starts = ramp == null ? null : new long[size];
+        int healthyCount = 0;
+        boolean ramping = false;
+        for (int i = 0; i < size; i++) {
+            int index = parentIndex.applyAsInt(i);
+            derivedHealthy[i] = index >= 0 && healthy[index];
+            if (derivedHealthy[i]) {
+                healthyCount++;
+            }
+            if (starts != null) {
+                starts[i] = index >= 0 ? ramp.starts()[index] : Ramp.NOT_RAMPING;
+                ramping |= starts[i] != Ramp.NOT_RAMPING;
+            }
+        }
+
+        String[] derivedHealthyInstances = new String[healthyCount];
+        long[] healthyStarts = ramping ? new long[healthyCount] : null;
+        for (int i = 0, next = 0; i < size; i++) {
+            if (derivedHealthy[i]) {
+                if (ramping) {
+                    healthyStarts[next] = starts[i];
+                }
+                derivedHealthyInstances[next++] = derived.get(i);
+            }
+        }
+        Ramp derivedRamp = ramping ? new Ramp(ramp.windowNanos(), ramp.minFactor(), ramp.exponent(), starts,
+                healthyStarts, ramp.endNanos()) : null;
+        return new HealthySnapshot(version, derived, derivedHealthyInstances, derivedHealthy, derivedRamp);
+    }
+
+    boolean isFor(List<String> candidates) {
+        return instances == candidates || instances.equals(candidates);
+    }
+
+    /**
+     * Slow start ramps of the snapshot, instances that are not ramping start at {@link Long#MIN_VALUE}
+     *
+     * @param exponent, The configured aggression, the factor grows with the elapsed share of the window to this power
+     */
+    record Ramp(long windowNanos, double minFactor, double exponent, long[] starts, long[] healthyStarts,
+                long endNanos) {
+
+        static final long NOT_RAMPING = Long.MIN_VALUE;
+
+        double factor(long startNanos, long nowNanos) {
+            return factor(startNanos, nowNanos, windowNanos, minFactor, exponent);
+        }
+
+        static double factor(long startNanos, long nowNanos, long windowNanos, double minFactor, double exponent) {
+            if (startNanos == NOT_RAMPING) {
+                return 1.0;
+            }
+            long elapsed = nowNanos - startNanos;
+            if (elapsed >= windowNanos) {
+                return 1.0;
+            }
+            double progress = Math.max(elapsed, 0) / (double) windowNanos;
+            return Math.max(minFactor, exponent == 1.0 ? progress : Math.pow(progress, exponent));
+        }
+    }
+}
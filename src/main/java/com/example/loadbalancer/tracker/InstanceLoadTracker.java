@@ -0,0 +1,84 @@
+package com.example.loadbalancer.tracker;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the load of backend instances: the number of in-flight requests and a
+ * peak-sensitive exponentially weighted moving average of the observed latency.
+ * Each instance owns its own counters, so requests to different instances never contend.
+ */
+@Component
+public class InstanceLoadTracker {
+
+    /**
+     * Time constant of the latency average, an old observation loses ~63% of its weight after this long
+     */
+    static final long DECAY_TIME_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<String, InstanceLoad> instanceLoads = new ConcurrentHashMap<>();
+
+    public void incrementInFlight(String workerUrl) {
+        loadFor(workerUrl).inFlight.incrementAndGet();
+    }
+
+    public void decrementInFlight(String workerUrl) {
+        loadFor(workerUrl).inFlight.decrementAndGet();
+    }
+
+    public int getInFlight(String workerUrl) {
+        InstanceLoad load = instanceLoads.get(workerUrl);
+        return load == null ? 0 : load.inFlight.get();
+    }
+
+    /**
+     * Folds an observed latency into the peak EWMA of the instance. A latency above the
+     * current average replaces it immediately, lower latencies are blended in by elapsed time
+     */
+    public void recordLatency(String workerUrl, long latencyNanos) {
+        loadFor(workerUrl).observe(Math.max(latencyNanos, 0), System.nanoTime());
+    }
+
+    /**
+     * @return, The latency average in nanoseconds decayed to now, or 0 when nothing was observed yet
+     */
+    public double getLatencyEwma(String workerUrl) {
+        InstanceLoad load = instanceLoads.get(workerUrl);
+        return load == null ? 0 : load.decayedCost(System.nanoTime());
+    }
+
+    private InstanceLoad loadFor(String workerUrl) {
+        return instanceLoads.computeIfAbsent(workerUrl, url -> new InstanceLoad());
+    }
+
+    private static final class InstanceLoad {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong costBits = new AtomicLong(Double.doubleToRawLongBits(0));
+        private final AtomicLong stampNanos = new AtomicLong(System.nanoTime());
+
+        void observe(double latencyNanos, long nowNanos) {
+            long elapsed = Math.max(nowNanos - stampNanos.getAndSet(nowNanos), 0);
+            double weight = Math.exp(-(double) elapsed / DECAY_TIME_NANOS);
+            long current;
+            long next;
+            do {
+                current = costBits.get();
+                double cost = Double.longBitsToDouble(current);
+                double updated = latencyNanos > cost ? latencyNanos : cost * weight + latencyNanos * (1 - weight);
+                next = Double.doubleToRawLongBits(updated);
+            } while (!costBits.compareAndSet(current, next));
+        }
+
+        double decayedCost(long nowNanos) {
+            double cost = Double.longBitsToDouble(costBits.get());
+            long elapsed = Math.max(nowNanos - stampNanos.get(), 0);
+            return cost * Math.exp(-(double) elapsed / DECAY_TIME_NANOS);
+        }
+    }
+}
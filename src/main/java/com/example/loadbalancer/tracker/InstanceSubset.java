@@ -0,0 +1,55 @@
+package com.example.loadbalancer.tracker;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable subset of an instance list, handed to a strategy to restrict its choice to a group of instances.
+ * {@link InstanceTracker} derives the healthy snapshot of a subset from the snapshot of its parent list instead of
+ * publishing the subset as the instance list, and caches the derived view here until the parent snapshot changes
+ */
+public final class InstanceSubset extends AbstractList<String> implements RandomAccess {
+
+    private final List<String> parent;
+    private final int[] parentIndexes;
+    private volatile HealthySnapshot view;
+
+    /**
+     * @param parent, The full instance list, the subset is only valid as long as it is
+     * @param parentIndexes, The indexes of the subset instances in the parent list
+     */
+    public InstanceSubset(List<String> parent, int[] parentIndexes) {
+        this.parent = parent;
+        this.parentIndexes = parentIndexes.clone();
+    }
+
+    public List<String> parent() {
+        return parent;
+    }
+
+    /**
+     * @return, The index in the parent list of the subset instance at the index
+     */
+    public int parentIndex(int index) {
+        return parentIndexes[index];
+    }
+
+    @Override
+    public String get(int index) {
+        return parent.get(parentIndexes[index]);
+    }
+
+    @Override
+    public int size() {
+        return parentIndexes.length;
+    }
+
+    HealthySnapshot view() {
+        return view;
+    }
+
+    void view(HealthySnapshot view) {
+        this.view = view;
+    }
+}
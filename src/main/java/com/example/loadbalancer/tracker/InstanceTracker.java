@@ -1,31 +1,167 @@
 package com.example.loadbalancer.tracker;
 
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.registry.BackendRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Tracks the health status of backend instances.
- * Stores the instances that are marked as unhealthy.
+ * Stores the instances that are marked as unhealthy and publishes an immutable {@link HealthySnapshot}
+ * of the configured instances through a single volatile reference. The snapshot is only rebuilt
+ * when the health of an instance actually changes, reading it is a plain volatile load.
+ * The instance list of the snapshot follows the {@link BackendRegistry} through its change listener, a reader
+ * still holding a list the registry has replaced gets that list filtered against the current snapshot.
+ * A tracker that no registry feeds publishes the lists it is asked for instead.
+ * Every instance has a {@link CircuitBreaker}, the unhealthy set holds the instances whose breaker is open.
+ * Half-open instances are part of the snapshot but only admit a limited number of trial requests.
+ * Every health transition is counted in {@link LoadBalancerMetrics}.
+ * With slow start enabled, an instance that recovers, closes its breaker or joins the instance list
+ * ramps up its weight factor over the configured window instead of taking its full share at once.
  */
 @Slf4j
 @Component
 public class InstanceTracker {
 
+    private static final long NO_REGISTRY = -1;
+
     private final Set<String> unhealthyInstances = ConcurrentHashMap.newKeySet();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final int halfOpenPermits;
+    private final int halfOpenSuccesses;
+    private final AppConfig.SlowStart slowStart;
+    private final Map<String, Long> rampStarts = new ConcurrentHashMap<>();
+    private final LoadBalancerMetrics loadBalancerMetrics;
+    private volatile HealthySnapshot snapshot = new HealthySnapshot(0, List.of(), new String[0], new boolean[0]);
+    private volatile HealthySnapshot staleView;
+    private volatile long registryVersion = NO_REGISTRY;
+
+    public InstanceTracker() {
+        this(new AppConfig.CircuitBreaker(), new AppConfig.SlowStart(), LoadBalancerMetrics.noop());
+    }
 
+    public InstanceTracker(AppConfig appConfig, LoadBalancerMetrics loadBalancerMetrics) {
+        this(appConfig.getCircuitBreaker(), appConfig.getSlowStart(), loadBalancerMetrics);
+    }
+
+    @Autowired
+    public InstanceTracker(AppConfig appConfig, LoadBalancerMetrics loadBalancerMetrics,
+                           BackendRegistry backendRegistry) {
+        this(appConfig, loadBalancerMetrics);
+        backendRegistry.addListener(this::onRegistryChange);
+        onRegistryChange(backendRegistry.getSnapshot());
+    }
+
+    private InstanceTracker(AppConfig.CircuitBreaker config, AppConfig.SlowStart slowStart,
+                            LoadBalancerMetrics loadBalancerMetrics) {
+        this.halfOpenPermits = config.getHalfOpenPermits();
+        this.halfOpenSuccesses = config.getHalfOpenSuccesses();
+        this.slowStart = slowStart;
+        this.loadBalancerMetrics = loadBalancerMetrics;
+    }
+
+    /**
+     * Opens the circuit breaker of the instance and takes it out of rotation
+     */
     public void markInstanceUnHealthy(String workerUrl) {
-        unhealthyInstances.add(workerUrl);
+        circuitBreakerFor(workerUrl).open();
+        rampStarts.remove(workerUrl);
+        if (unhealthyInstances.add(workerUrl)) {
+            republish();
+            loadBalancerMetrics.recordHealthTransition(workerUrl, CircuitBreaker.State.OPEN);
+        }
         log.warn("Marked instance {} as unhealthy", workerUrl);
     }
 
+    /**
+     * Closes the circuit breaker of the instance and puts it back into rotation, through its slow start when enabled
+     */
     public void markInstanceHealthy(String workerUrl) {
-        unhealthyInstances.remove(workerUrl);
+        circuitBreakerFor(workerUrl).close();
+        if (unhealthyInstances.remove(workerUrl)) {
+            startRamp(workerUrl);
+            republish();
+            loadBalancerMetrics.recordHealthTransition(workerUrl, CircuitBreaker.State.CLOSED);
+        }
         log.info("Recovered instance {} and added back to available instances", workerUrl);
     }
 
+    /**
+     * Moves an open instance to half-open, it rejoins the rotation but only admits trial requests
+     * until enough of them succeed
+     */
+    public void markInstanceHalfOpen(String workerUrl) {
+        if (circuitBreakerFor(workerUrl).halfOpen()) {
+            if (unhealthyInstances.remove(workerUrl)) {
+                republish();
+            }
+            loadBalancerMetrics.recordHealthTransition(workerUrl, CircuitBreaker.State.HALF_OPEN);
+            log.info("Instance {} is half-open, admitting trial requests", workerUrl);
+        }
+    }
+
+    /**
+     * Asks the circuit breaker of the instance to admit a request
+     *
+     * @return, The permit of the request, or null when the breaker rejects it
+     */
+    public CircuitBreaker.Permit tryAcquire(String workerUrl) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(workerUrl);
+        return circuitBreaker == null ? CircuitBreaker.Permit.PASS : circuitBreaker.tryAcquire();
+    }
+
+    /**
+     * Reports the outcome of a request admitted with the permit, only trial outcomes move the breaker
+     *
+     * @param success, Whether the request succeeded, null when it ended without a result
+     */
+    public void onRequestComplete(String workerUrl, CircuitBreaker.Permit permit, Boolean success) {
+        if (!permit.trial()) {
+            return;
+        }
+        CircuitBreaker circuitBreaker = circuitBreakerFor(workerUrl);
+        if (success == null) {
+            circuitBreaker.releaseTrial(permit);
+            return;
+        }
+        CircuitBreaker.State state = circuitBreaker.onTrialResult(permit, success);
+        if (state != null) {
+            loadBalancerMetrics.recordHealthTransition(workerUrl, state);
+        }
+        if (state == CircuitBreaker.State.CLOSED) {
+            if (startRamp(workerUrl)) {
+                republish();
+            }
+            log.info("Trial requests to instance {} succeeded, closed its circuit breaker", workerUrl);
+        } else if (state == CircuitBreaker.State.OPEN) {
+            if (unhealthyInstances.add(workerUrl)) {
+                republish();
+            }
+            log.warn("Trial request to instance {} failed, opened its circuit breaker again", workerUrl);
+        }
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState(String workerUrl) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(workerUrl);
+        return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+    }
+
+    /**
+     * @return, The current slow start weight factor of the instance, 1 when it is not ramping up
+     */
+    public double getWeightFactor(String workerUrl) {
+        Long start = rampStarts.get(workerUrl);
+        return start == null ? 1.0 : HealthySnapshot.Ramp.factor(start, System.nanoTime(),
+                slowStart.getWindow().toNanos(), slowStart.getMinWeightFactor(), slowStart.getAggression());
+    }
+
     public boolean isInstanceUnhealthy(String workerUrl) {
         return unhealthyInstances.contains(workerUrl);
     }
@@ -33,4 +169,161 @@ public class InstanceTracker {
     public Set<String> getUnhealthyInstances() {
         return unhealthyInstances;
     }
+
+    /**
+     * Publishes the instance list of the registry snapshot, older snapshots than the last one applied are ignored
+     */
+    synchronized void onRegistryChange(BackendRegistry.Snapshot registrySnapshot) {
+        if (registrySnapshot.version() <= registryVersion) {
+            return;
+        }
+        registryVersion = registrySnapshot.version();
+        if (snapshot.instances() != registrySnapshot.instances()) {
+            publish(registrySnapshot.instances());
+        }
+    }
+
+    /**
+     * Returns the current healthy snapshot of the passed instances, rebuilt once its slow start ramps are over.
+     * A list other than the published one, held since the registry replaced it, gets a view filtered against
+     * the current snapshot with the same version, nothing is republished.
+     * The snapshot of an {@link InstanceSubset} is a view derived from the snapshot of its parent list
+     *
+     * @param instances, The configured instances, or a subset of them
+     * @return, The latest snapshot of the passed instances
+     */
+    public HealthySnapshot getHealthySnapshot(List<String> instances) {
+        if (instances instanceof InstanceSubset subset) {
+            return subsetSnapshot(subset);
+        }
+        HealthySnapshot current = snapshot;
+        if (current.isWarmingUp() && System.nanoTime() - current.rampEndNanos() >= 0) {
+            current = endRamps(current);
+        }
+        if (current.isFor(instances)) {
+            return current;
+        }
+        if (registryVersion == NO_REGISTRY) {
+            return publishUnfed(instances);
+        }
+        HealthySnapshot view = staleView;
+        if (view == null || view.version() != current.version() || view.instances() != instances) {
+            view = current.filter(instances);
+            staleView = view;
+        }
+        return view;
+    }
+
+    private HealthySnapshot subsetSnapshot(InstanceSubset subset) {
+        HealthySnapshot parent = getHealthySnapshot(subset.parent());
+        HealthySnapshot view = subset.view();
+        if (view == null || view.version() != parent.version()) {
+            view = parent.subset(subset);
+            subset.view(view);
+        }
+        return view;
+    }
+
+    private CircuitBreaker circuitBreakerFor(String workerUrl) {
+        return circuitBreakers.computeIfAbsent(workerUrl, url -> new CircuitBreaker(halfOpenPermits, halfOpenSuccesses));
+    }
+
+    private synchronized void republish() {
+        publish(snapshot.instances());
+    }
+
+    private synchronized HealthySnapshot endRamps(HealthySnapshot expired) {
+        return snapshot == expired ? publish(expired.instances()) : snapshot;
+    }
+
+    private synchronized HealthySnapshot publishUnfed(List<String> instances) {
+        return snapshot.isFor(instances) ? snapshot : publish(instances);
+    }
+
+    /**
+     * Starts the slow start ramp of the instance
+     *
+     * @return, Whether a ramp was started, false when slow start is disabled
+     */
+    private boolean startRamp(String workerUrl) {
+        if (!slowStart.isEnabled()) {
+            return false;
+        }
+        rampStarts.put(workerUrl, System.nanoTime());
+        loadBalancerMetrics.recordSlowStart(workerUrl, () -> getWeightFactor(workerUrl));
+        log.info("Instance {} is in slow start for {}", workerUrl, slowStart.getWindow());
+        return true;
+    }
+
+    /**
+     * Rebuilds the snapshot from the current unhealthy set. Rebuilds are serialized and each one reads
+     * the set after its own change, so the last published snapshot always reflects the latest state
+     */
+    private synchronized HealthySnapshot publish(List<String> instances) {
+        List<String> previous = snapshot.instances();
+        // The first list is the startup configuration, only instances joining later start cold
+        if (!previous.isEmpty() && previous != instances) {
+            for (String instance : instances) {
+                if (!previous.contains(instance)) {
+                    startRamp(instance);
+                }
+            }
+        }
+
+        int size = instances.size();
+        boolean[] healthy = new boolean[size];
+        int healthyCount = 0;
+        for (int i = 0; i < size; i++) {
+            healthy[i] = !unhealthyInstances.contains(instances.get(i));
+            if (healthy[i]) {
+                healthyCount++;
+            }
+        }
+
+        String[] healthyInstances = new String[healthyCount];
+        for (int i = 0, next = 0; i < size; i++) {
+            if (healthy[i]) {
+                healthyInstances[next++] = instances.get(i);
+            }
+        }
+
+        HealthySnapshot next = new HealthySnapshot(snapshot.version() + 1, instances, healthyInstances, healthy,
+                buildRamp(instances, healthy, healthyCount));
+        snapshot = next;
+        return next;
+    }
+
+    /**
+     * Drops the ramps that are over and copies the start of the others into the snapshot
+     *
+     * @return, The ramps of the passed instances, or null when none of them is ramping up
+     */
+    private HealthySnapshot.Ramp buildRamp(List<String> instances, boolean[] healthy, int healthyCount) {
+        if (rampStarts.isEmpty()) {
+            return null;
+        }
+        long now = System.nanoTime();
+        long windowNanos = slowStart.getWindow().toNanos();
+        rampStarts.values().removeIf(start -> now - start >= windowNanos);
+
+        long[] starts = new long[instances.size()];
+        long[] healthyStarts = new long[healthyCount];
+        long endNanos = now;
+        boolean ramping = false;
+        for (int i = 0, next = 0; i < starts.length; i++) {
+            Long start = rampStarts.get(instances.get(i));
+            starts[i] = start == null ? HealthySnapshot.Ramp.NOT_RAMPING : start;
+            if (start != null) {
+                ramping = true;
+                if (start + windowNanos - endNanos > 0) {
+                    endNanos = start + windowNanos;
+                }
+            }
+            if (healthy[i]) {
+                healthyStarts[next++] = starts[i];
+            }
+        }
+        return ramping ? new HealthySnapshot.Ramp(windowNanos, slowStart.getMinWeightFactor(),
+                slowStart.getAggression(), starts, healthyStarts, endNanos) : null;
+    }
 }
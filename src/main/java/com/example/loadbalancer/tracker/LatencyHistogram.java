@@ -0,0 +1,88 @@
+package com.example.loadbalancer.tracker;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency distribution of the successful worker calls across the whole fleet, used to derive the hedging delay.
+ * Latencies are counted in microseconds into log-linear buckets, eight per power of two, so a percentile is
+ * within 12.5% of the true value. Recording is a single atomic increment.
+ * The histogram covers the last one to two rotation periods: it keeps the current and the previous window
+ * and drops the older one on every rotation
+ */
+@Component
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    public void record(long latencyNanos) {
+        current.incrementAndGet(bucketOf(Math.max(latencyNanos / 1000, 1)));
+    }
+
+    /**
+     * Returns the latency below which the passed share of the recorded calls fell
+     *
+     * @param percentile, The share of calls between 0 and 1
+     * @return, The latency in nanoseconds, or -1 when nothing was recorded
+     */
+    public long percentileNanos(double percentile) {
+        AtomicLongArray currentWindow = current;
+        AtomicLongArray previousWindow = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = currentWindow.get(i) + previousWindow.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return -1;
+        }
+
+        long rank = Math.max((long) Math.ceil(total * Math.min(Math.max(percentile, 0), 1)), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBoundOf(i) * 1000;
+            }
+        }
+        return upperBoundOf(BUCKETS - 1) * 1000;
+    }
+
+    /**
+     * Starts a new window and drops the oldest one
+     */
+    @Scheduled(fixedRate = 10000)
+    public void rotate() {
+        previous = current;
+        current = new AtomicLongArray(BUCKETS);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return, The largest latency in microseconds that falls into the bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.loadbalancer.tracker;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.registry.BackendRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passive outlier detection over live traffic.
+ * Keeps a sliding window of the last outcomes and latencies of every instance and ejects an instance
+ * through {@link InstanceTracker} on consecutive failures, on a failure rate above the threshold,
+ * or when its mean latency is an outlier compared to the rest of the fleet.
+ * Never ejects more than the configured share of the pool, and an ejected instance is only
+ * handed back to the health checks once its ejection time is over
+ */
+@Slf4j
+@Component
+public class OutlierDetector {
+
+    private final InstanceTracker instanceTracker;
+    private final AppConfig appConfig;
+    private final BackendRegistry backendRegistry;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final Map<String, Long> ejectedUntilNanos = new ConcurrentHashMap<>();
+
+    public OutlierDetector(InstanceTracker instanceTracker, AppConfig appConfig, BackendRegistry backendRegistry) {
+        this.instanceTracker = instanceTracker;
+        this.appConfig = appConfig;
+        this.backendRegistry = backendRegistry;
+    }
+
+    public void recordSuccess(String workerUrl, long latencyNanos) {
+        windowFor(workerUrl).record(Math.max(latencyNanos, 0), false);
+    }
+
+    /**
+     * Records a failed call and ejects the instance right away when a failure threshold is crossed
+     */
+    public void recordFailure(String workerUrl) {
+        AppConfig.OutlierDetection config = appConfig.getOutlierDetection();
+        Window window = windowFor(workerUrl);
+        int consecutiveFailures = window.record(0, true);
+
+        if (consecutiveFailures >= config.getConsecutiveFailures()) {
+            eject(workerUrl, window, consecutiveFailures + " consecutive failures");
+            return;
+        }
+        WindowStats stats = window.stats();
+        if (stats.count() >= config.getMinimumRequests()
+                && stats.failureRate() >= config.getFailureRateThreshold()) {
+            eject(workerUrl, window, String.format("failure rate %.2f", stats.failureRate()));
+        }
+    }
+
+    /**
+     * Ejects the healthy instances whose mean latency exceeds the configured factor of the mean of the others.
+     * Only instances with enough successful requests in their window take part
+     */
+    @Scheduled(fixedRate = 5000)
+    public void detectLatencyOutliers() {
+        AppConfig.OutlierDetection config = appConfig.getOutlierDetection();
+        List<String> instances = backendRegistry.getInstances();
+        String[] candidates = new String[instances.size()];
+        double[] means = new double[instances.size()];
+        int size = 0;
+        double total = 0;
+
+        for (String instance : instances) {
+            Window window = windows.get(instance);
+            if (window == null || instanceTracker.isInstanceUnhealthy(instance)) {
+                continue;
+            }
+            WindowStats stats = window.stats();
+            if (stats.successes() >= config.getMinimumRequests()) {
+                candidates[size] = instance;
+                means[size] = stats.meanLatencyNanos();
+                total += means[size];
+                size++;
+            }
+        }
+        if (size < 2) {
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            double othersMean = (total - means[i]) / (size - 1);
+            if (othersMean > 0 && means[i] > othersMean * config.getLatencyOutlierFactor()) {
+                eject(candidates[i], windows.get(candidates[i]),
+                        String.format("mean latency %.1fms against %.1fms for the others",
+                                means[i] / 1_000_000, othersMean / 1_000_000));
+            }
+        }
+    }
+
+    /**
+     * @return, Whether the instance was ejected and its ejection time is not over yet
+     */
+    public boolean isEjected(String workerUrl) {
+        Long until = ejectedUntilNanos.get(workerUrl);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            ejectedUntilNanos.remove(workerUrl, until);
+            return false;
+        }
+        return true;
+    }
+
+    WindowStats getStats(String workerUrl) {
+        return windowFor(workerUrl).stats();
+    }
+
+    private synchronized void eject(String workerUrl, Window window, String reason) {
+        if (instanceTracker.isInstanceUnhealthy(workerUrl)) {
+            return;
+        }
+        List<String> pool = backendRegistry.getInstances();
+        int poolSize = pool.size();
+        int maxEjected = Math.min(poolSize - 1,
+                Math.max(1, poolSize * appConfig.getOutlierDetection().getMaxEjectionPercent() / 100));
+        // instances removed from the registry may still be marked unhealthy, only the current pool counts
+        int ejected = 0;
+        for (String instance : pool) {
+            if (instanceTracker.isInstanceUnhealthy(instance)) {
+                ejected++;
+            }
+        }
+        if (ejected >= maxEjected) {
+            log.warn("Not ejecting instance {} ({}), {} of {} instances are already out of rotation",
+                    workerUrl, reason, maxEjected, poolSize);
+            return;
+        }
+
+        ejectedUntilNanos.put(workerUrl, System.nanoTime() + appConfig.getOutlierDetection().getEjectionTime().toNanos());
+        window.reset();
+        log.warn("Ejecting instance {}: {}", workerUrl, reason);
+        instanceTracker.markInstanceUnHealthy(workerUrl);
+    }
+
+    private Window windowFor(String workerUrl) {
+        return windows.computeIfAbsent(workerUrl,
+                url -> new Window(Math.max(appConfig.getOutlierDetection().getWindowSize(), 1)));
+    }
+
+    record WindowStats(int count, int failures, double meanLatencyNanos) {
+
+        int successes() {
+            return count - failures;
+        }
+
+        double failureRate() {
+            return count == 0 ? 0 : (double) failures / count;
+        }
+    }
+
+    /**
+     * Ring buffer of the last outcomes of one instance. Guarded by its own monitor,
+     * so only requests to the same instance ever contend on it
+     */
+    private static final class Window {
+
+        private final long[] latencies;
+        private final boolean[] failed;
+        private int next;
+        private int count;
+        private int failures;
+        private long latencySum;
+        private int consecutiveFailures;
+
+        Window(int size) {
+            this.latencies = new long[size];
+            this.failed = new boolean[size];
+        }
+
+        /**
+         * @return, The number of consecutive failures including this outcome
+         */
+        synchronized int record(long latencyNanos, boolean failure) {
+            if (count == latencies.length) {
+                latencySum -= latencies[next];
+                if (failed[next]) {
+                    failures--;
+                }
+            } else {
+                count++;
+            }
+            latencies[next] = failure ? 0 : latencyNanos;
+            failed[next] = failure;
+            latencySum += latencies[next];
+            if (failure) {
+                failures++;
+            }
+            next = (next + 1) % latencies.length;
+            consecutiveFailures = failure ? consecutiveFailures + 1 : 0;
+            return consecutiveFailures;
+        }
+
+        synchronized WindowStats stats() {
+            int successes = count - failures;
+            return new WindowStats(count, failures, successes == 0 ? 0 : (double) latencySum / successes);
+        }
+
+        synchronized void reset() {
+            next = 0;
+            count = 0;
+            failures = 0;
+            latencySum = 0;
+            consecutiveFailures = 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.loadbalancer.tracker;
+
+import com.example.loadbalancer.config.AppConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket capping retries and hedges at a fraction of the base traffic.
+ * Every routed request deposits a fraction of a token, every retry or hedge has to withdraw a whole one.
+ * The bucket starts full so a quiet load balancer can still retry, and never holds more than its capacity,
+ * so a burst of failures after a long healthy period only retries a bounded number of times.
+ * Tokens are kept in thousandths in a single atomic counter
+ */
+@Component
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(AppConfig appConfig) {
+        AppConfig.RetryBudget config = appConfig.getRetryBudget();
+        this.deposit = Math.max(Math.round(config.getRatio() * SCALE), 0);
+        this.capacity = Math.max(config.getMaxTokens(), 1) * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * Credits the bucket for one base request
+     */
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, credit) -> Math.min(current + credit, capacity));
+    }
+
+    /**
+     * @return, Whether a whole token was available and taken for a retry or hedge
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return, The whole tokens currently available
+     */
+    public long getAvailableTokens() {
+        return balance.get() / SCALE;
+    }
+}
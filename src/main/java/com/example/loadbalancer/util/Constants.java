@@ -4,6 +4,8 @@ public class Constants {
     public static final String DEFAULT_ALGORITHM = "roundrobin";
     public static final String ERROR_NO_AVAILABLE_INSTANCE = "No available instances for handling the request";
     public static final String ERROR_INVALID_REQUEST = "Invalid request payload";
+    public static final String ERROR_OVERLOADED = "Load balancer is overloaded, try again later";
+    public static final String ERROR_RATE_LIMITED = "Request rate limit exceeded";
     public static final String ERROR_INTERNAL_SERVER = "Internal server error occurred";
     public static final String HEALTH_STATUS_UP = "UP";
     public static final String STATUS = "status";
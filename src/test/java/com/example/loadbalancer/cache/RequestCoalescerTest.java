@@ -0,0 +1,105 @@
+package com.example.loadbalancer.cache;
+
+import com.example.loadbalancer.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private AppConfig appConfig;
+
+    private RequestCoalescer requestCoalescer;
+
+    private AtomicInteger upstreamCalls;
+
+    private Sinks.One<String> upstream;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        requestCoalescer = new RequestCoalescer(appConfig, new SimpleMeterRegistry());
+        upstreamCalls = new AtomicInteger();
+        upstream = Sinks.one();
+    }
+
+    private Mono<String> call() {
+        return requestCoalescer.coalesce("key", () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+    }
+
+    @Test
+    void givenCallInFlight_whenSameKeyArrives_thenResponseIsShared() {
+        Mono<String> first = call().cache();
+        Mono<String> second = call().cache();
+        first.subscribe();
+        second.subscribe();
+
+        upstream.tryEmitValue("response");
+
+        assertEquals("response", first.block(Duration.ofSeconds(1)));
+        assertEquals("response", second.block(Duration.ofSeconds(1)));
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    @Test
+    void givenCallFails_whenSameKeyArrivesLater_thenNewCallIsStarted() {
+        Mono<String> first = call().cache();
+        first.subscribe(value -> { }, error -> { });
+
+        upstream.tryEmitError(new IllegalStateException("Instance down"));
+
+        assertThrows(IllegalStateException.class, () -> first.block(Duration.ofSeconds(1)));
+        assertEquals(0, requestCoalescer.inFlightCount());
+        upstream = Sinks.one();
+        upstream.tryEmitValue("response");
+        assertEquals("response", call().block(Duration.ofSeconds(1)));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void givenResponseBeingEmitted_whenSameKeyArrives_thenItStartsItsOwnCall() {
+        AtomicReference<String> late = new AtomicReference<>();
+        call().subscribe(value -> call().subscribe(late::set));
+
+        upstream.tryEmitValue("response");
+
+        assertEquals("response", late.get());
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    @Test
+    void givenAttachedRequests_whenOneCancels_thenCallKeepsRunningUntilTheLastCancels() {
+        Disposable first = call().subscribe();
+        Disposable second = call().subscribe();
+
+        first.dispose();
+        assertEquals(1, requestCoalescer.inFlightCount());
+        second.dispose();
+
+        assertEquals(0, requestCoalescer.inFlightCount());
+        assertEquals(0, upstream.currentSubscriberCount());
+    }
+
+    @Test
+    void givenCoalescingEnabledForSomeRoutes_whenChecked_thenOnlyThoseRoutesAreCoalesced() {
+        appConfig.getCoalescing().setEnabled(true);
+        appConfig.getCoalescing().getRoutes().remove(RequestCoalescer.BATCH);
+
+        assertTrue(requestCoalescer.isEnabled(RequestCoalescer.ROUTE));
+        assertFalse(requestCoalescer.isEnabled(RequestCoalescer.BATCH));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.loadbalancer.cache;
+
+import com.example.loadbalancer.config.AppConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private AppConfig appConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getResponseCache().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void givenPayloadsWithDifferentFieldOrder_whenKeyed_thenKeysAreEqual() {
+        ResponseCache responseCache = new ResponseCache(appConfig, meterRegistry);
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("game", "Mobile Legends");
+        first.put("gamerID", "GYUTDTE");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("gamerID", "GYUTDTE");
+        second.put("game", "Mobile Legends");
+
+        assertEquals(responseCache.keyOf(first), responseCache.keyOf(second));
+        assertNotEquals(responseCache.keyOf(first), responseCache.keyOf(Map.of("gamerID", "OTHER")));
+    }
+
+    @Test
+    void givenKeyField_whenKeyed_thenOnlyThatFieldIsUsed() {
+        appConfig.getResponseCache().setKeyField("gamerID");
+        ResponseCache responseCache = new ResponseCache(appConfig, meterRegistry);
+
+        assertEquals(responseCache.keyOf(Map.of("gamerID", "GYUTDTE", "points", 20)),
+                responseCache.keyOf(Map.of("gamerID", "GYUTDTE", "points", 30)));
+    }
+
+    @Test
+    void givenBypassHeaderOrDisabledCache_whenChecked_thenRequestIsNotCacheable() {
+        ResponseCache responseCache = new ResponseCache(appConfig, meterRegistry);
+        HttpHeaders bypass = new HttpHeaders();
+        bypass.add("X-Cache-Bypass", "true");
+
+        assertTrue(responseCache.isCacheable(HttpHeaders.EMPTY));
+        assertFalse(responseCache.isCacheable(bypass));
+        appConfig.getResponseCache().setEnabled(false);
+        assertFalse(responseCache.isCacheable(HttpHeaders.EMPTY));
+    }
+
+    @Test
+    void givenCachedResponse_whenSourceOrCopyIsModified_thenCachedResponseIsUnchanged() {
+        ResponseCache responseCache = new ResponseCache(appConfig, meterRegistry);
+        Map<String, Object> response = new HashMap<>(Map.of("gamerID", "GYUTDTE", "points", 20));
+
+        responseCache.put("key", response);
+        response.put("points", 30);
+        responseCache.get("key").put("points", 40);
+
+        assertEquals(Map.of("gamerID", "GYUTDTE", "points", 20), responseCache.get("key"));
+        assertNull(responseCache.get("missing"));
+    }
+
+    @Test
+    void givenMaxSize_whenResponsesExceedIt_thenEntriesAreEvicted() {
+        appConfig.getResponseCache().setMaxSize(DataSize.ofBytes(1000));
+        ResponseCache responseCache = new ResponseCache(appConfig, meterRegistry);
+
+        for (int i = 0; i < 50; i++) {
+            responseCache.put("key-" + i, Map.of("value", "x".repeat(50)));
+        }
+        responseCache.cleanUp();
+
+        assertTrue(meterRegistry.get("cache.size").tag("cache", "responses").gauge().value() < 50);
+        assertTrue(meterRegistry.get("cache.evictions").tag("cache", "responses").functionCounter().count() > 0);
+    }
+}
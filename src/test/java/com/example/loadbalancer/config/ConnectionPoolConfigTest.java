@@ -0,0 +1,59 @@
+package com.example.loadbalancer.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolConfigTest {
+
+    private AppConfig appConfig;
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.setInstances(List.of("http://localhost:8081", "http://localhost:8082"));
+        appConfig.getConnectionPool().setMaxConnections(8);
+        appConfig.getConnectionPool().setPendingAcquireTimeout(Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+    }
+
+    @Test
+    void givenPoolSettings_whenProviderIsBuilt_thenLimitsAreApplied() {
+        connectionProvider = appConfig.workerConnectionProvider();
+
+        assertEquals(8, connectionProvider.maxConnections());
+    }
+
+    @Test
+    void givenDefaultSettings_whenClientIsBuilt_thenItSpeaksHttp11() {
+        connectionProvider = appConfig.workerConnectionProvider();
+
+        HttpProtocol[] protocols = appConfig.workerHttpClient(connectionProvider).configuration().protocols();
+
+        assertArrayEquals(new HttpProtocol[]{HttpProtocol.HTTP11}, protocols);
+    }
+
+    @Test
+    void givenH2cEnabled_whenClientIsBuilt_thenItSpeaksHttp2WithPriorKnowledge() {
+        appConfig.getConnectionPool().setH2cEnabled(true);
+        connectionProvider = appConfig.workerConnectionProvider();
+
+        HttpProtocol[] protocols = appConfig.workerHttpClient(connectionProvider).configuration().protocols();
+
+        assertArrayEquals(new HttpProtocol[]{HttpProtocol.H2C}, protocols);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.loadbalancer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingAsyncTimeoutInterceptorTest {
+
+    private static final long DEFAULT_TIMEOUT = 30_000;
+
+    private final StreamingAsyncTimeoutInterceptor interceptor = new StreamingAsyncTimeoutInterceptor();
+
+    private MockHttpServletRequest startAsync(String path, boolean callable) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setAsyncSupported(true);
+        StandardServletAsyncWebRequest asyncWebRequest =
+                new StandardServletAsyncWebRequest(request, new MockHttpServletResponse());
+        asyncWebRequest.setTimeout(DEFAULT_TIMEOUT);
+        if (callable) {
+            interceptor.beforeConcurrentHandling(asyncWebRequest, () -> "response");
+        } else {
+            interceptor.beforeConcurrentHandling(asyncWebRequest, new DeferredResult<>());
+        }
+        asyncWebRequest.startAsync();
+        return request;
+    }
+
+    @Test
+    void givenStreamRequest_whenItGoesAsync_thenBothPhasesHaveNoTimeout() {
+        assertEquals(-1, startAsync("/route/stream", false).getAsyncContext().getTimeout());
+        assertEquals(-1, startAsync("/route/stream", true).getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void givenOtherRoute_whenItGoesAsync_thenConfiguredTimeoutIsKept() {
+        assertEquals(DEFAULT_TIMEOUT, startAsync("/route", false).getAsyncContext().getTimeout());
+        assertEquals(DEFAULT_TIMEOUT, startAsync("/route/batch", true).getAsyncContext().getTimeout());
+    }
+}
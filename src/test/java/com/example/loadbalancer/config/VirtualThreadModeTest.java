@@ -0,0 +1,57 @@
+package com.example.loadbalancer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "loadbalancer.virtual-threads-enabled=true")
+class VirtualThreadModeTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private Scheduler streamingScheduler;
+
+    @Test
+    void givenVirtualThreadsEnabled_whenTomcatHandlesRequests_thenUsesVirtualThreads() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+        Executor executor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+        CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+        executor.execute(() -> isVirtual.complete(Thread.currentThread().isVirtual()));
+
+        assertTrue(isVirtual.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void givenVirtualThreadsEnabled_whenTaskIsScheduled_thenRunsOnVirtualThread() throws Exception {
+        CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+        taskScheduler.schedule(() -> isVirtual.complete(Thread.currentThread().isVirtual()), Instant.now());
+
+        assertTrue(isVirtual.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void givenVirtualThreadsEnabled_whenStreamBodyIsHandled_thenRunsOnVirtualThread() throws Exception {
+        CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+        streamingScheduler.schedule(() -> isVirtual.complete(Thread.currentThread().isVirtual()));
+
+        assertTrue(isVirtual.get(2, TimeUnit.SECONDS));
+    }
+}
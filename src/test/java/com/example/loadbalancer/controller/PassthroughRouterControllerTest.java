@@ -0,0 +1,104 @@
+package com.example.loadbalancer.controller;
+
+import com.example.loadbalancer.exception.InvalidRequestException;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.service.LoadBalancerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PassthroughRouterControllerTest {
+
+    @Mock
+    private LoadBalancerService loadBalancerService;
+
+    @InjectMocks
+    private PassthroughRouterController passthroughRouterController;
+
+    private static final byte[] VALID_BODY =
+            "{\"game\":\"Mobile Legends\",\"gamerID\":\"GYUTDTE\",\"points\":20}".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @DisplayName("Should return the worker bytes untouched when a valid body is routed")
+    @Test
+    void givenValidBody_whenServiceSucceeds_thenReturnsWorkerBytes() {
+        when(loadBalancerService.routeRawRequest(VALID_BODY, HttpHeaders.EMPTY)).thenReturn(Mono.just(VALID_BODY));
+
+        ResponseEntity<byte[]> response = passthroughRouterController.routeRequest(VALID_BODY, HttpHeaders.EMPTY).block();
+
+        assertAll(
+                () -> assertEquals(200, response.getStatusCode().value(), "Status code should be 200"),
+                () -> assertSame(VALID_BODY, response.getBody(), "Response bytes should not be copied")
+        );
+        verify(loadBalancerService, never()).routeRequest(any(), any());
+    }
+
+    @DisplayName("Should throw InvalidRequestException when the body is missing, blank or an empty object")
+    @Test
+    void givenEmptyBodies_whenValidated_thenThrowsInvalidRequestException() {
+        for (String body : new String[]{"", "  \n", "{}", " { \t } ", "null"}) {
+            InvalidRequestException exception = assertThrows(
+                    InvalidRequestException.class,
+                    () -> passthroughRouterController.routeRequest(body.getBytes(StandardCharsets.UTF_8), HttpHeaders.EMPTY)
+            );
+            assertEquals("Payload cannot be empty", exception.getMessage());
+        }
+        assertThrows(InvalidRequestException.class, () -> passthroughRouterController.routeRequest(null, HttpHeaders.EMPTY));
+        verifyNoInteractions(loadBalancerService);
+    }
+
+    @DisplayName("Should throw InvalidRequestException when the body is not a single JSON object")
+    @Test
+    void givenNonObjectBodies_whenValidated_thenThrowsInvalidRequestException() {
+        for (String body : new String[]{"[]", "[{\"a\":1}]", "42", "\"text\"", "not json", "{\"a\":", "{\"a\":1} trailing",
+                "{\"a\":1}{\"b\":2}", "{\"a\":[1,{\"b\":2}]"}) {
+            InvalidRequestException exception = assertThrows(
+                    InvalidRequestException.class,
+                    () -> passthroughRouterController.routeRequest(body.getBytes(StandardCharsets.UTF_8), HttpHeaders.EMPTY),
+                    body
+            );
+            assertEquals("Payload must be a JSON object", exception.getMessage());
+        }
+        verifyNoInteractions(loadBalancerService);
+    }
+
+    @DisplayName("Should accept a JSON object with nested values and surrounding whitespace")
+    @Test
+    void givenNestedObject_whenValidated_thenIsRouted() {
+        byte[] body = " {\"a\":{\"b\":[1,2,{\"c\":null}]},\"d\":\"}\"} \n".getBytes(StandardCharsets.UTF_8);
+        when(loadBalancerService.routeRawRequest(body, HttpHeaders.EMPTY)).thenReturn(Mono.just(VALID_BODY));
+
+        ResponseEntity<byte[]> response = passthroughRouterController.routeRequest(body, HttpHeaders.EMPTY).block();
+
+        assertEquals(200, response.getStatusCode().value());
+    }
+
+    @DisplayName("Should propagate NoAvailableInstanceException from the service")
+    @Test
+    void givenValidBody_whenNoInstanceAvailable_thenThrowsNoAvailableInstanceException() {
+        when(loadBalancerService.routeRawRequest(VALID_BODY, HttpHeaders.EMPTY)).thenReturn(
+                Mono.error(new NoAvailableInstanceException("No healthy instance available")));
+
+        NoAvailableInstanceException exception = assertThrows(
+                NoAvailableInstanceException.class,
+                () -> passthroughRouterController.routeRequest(VALID_BODY, HttpHeaders.EMPTY).block()
+        );
+
+        assertEquals("No healthy instance available", exception.getMessage());
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.loadbalancer.controller;
 
+import com.example.loadbalancer.config.AppConfig;
 import com.example.loadbalancer.exception.InvalidRequestException;
 import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import com.example.loadbalancer.limiter.ClientRateLimiter;
+import com.example.loadbalancer.model.BatchItemResponse;
 import com.example.loadbalancer.service.LoadBalancerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,13 +13,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -26,6 +35,12 @@ class RouterControllerTest {
     @Mock
     private LoadBalancerService loadBalancerService;
 
+    @Mock
+    private AppConfig appConfig;
+
+    @Mock
+    private ClientRateLimiter clientRateLimiter;
+
     @InjectMocks
     private RouterController routerController;
 
@@ -38,21 +53,24 @@ class RouterControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        AppConfig.Batch batch = new AppConfig.Batch();
+        batch.setMaxItems(3);
+        when(appConfig.getBatch()).thenReturn(batch);
     }
 
     @DisplayName("Should return 200 OK when a valid request is routed")
     @Test
     void givenValidRequest_whenServiceSucceeds_thenReturns200() {
-        when(loadBalancerService.routeRequest(VALID_PAYLOAD)).thenReturn(VALID_PAYLOAD);
+        when(loadBalancerService.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY)).thenReturn(Mono.just(VALID_PAYLOAD));
 
-        ResponseEntity<Map<String, Object>> response = routerController.routeRequest(VALID_PAYLOAD);
+        ResponseEntity<Map<String, Object>> response = routerController.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY).block();
 
         assertAll(
                 () -> assertEquals(200, response.getStatusCode().value(), "Status code should be 200"),
                 () -> assertEquals(VALID_PAYLOAD, response.getBody(), "Response body should match request payload")
         );
 
-        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD);
+        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY);
     }
 
     @DisplayName("Should throw InvalidRequestException when request payload is empty")
@@ -62,7 +80,7 @@ class RouterControllerTest {
 
         InvalidRequestException exception = assertThrows(
                 InvalidRequestException.class,
-                () -> routerController.routeRequest(emptyPayload)
+                () -> routerController.routeRequest(emptyPayload, HttpHeaders.EMPTY)
         );
 
         assertEquals("Payload cannot be empty", exception.getMessage());
@@ -72,30 +90,91 @@ class RouterControllerTest {
     @DisplayName("Should return 500 Internal Server Error when service throws an unexpected exception")
     @Test
     void givenValidRequest_whenServiceThrowsException_thenReturns500() {
-        when(loadBalancerService.routeRequest(VALID_PAYLOAD)).thenThrow(
-                new RuntimeException("An unexpected error occurred"));
+        when(loadBalancerService.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY)).thenReturn(
+                Mono.error(new RuntimeException("An unexpected error occurred")));
 
         Exception exception = assertThrows(
                 Exception.class,
-                () -> routerController.routeRequest(VALID_PAYLOAD)
+                () -> routerController.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY).block()
         );
 
         assertEquals("An unexpected error occurred", exception.getMessage());
-        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD);
+        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY);
     }
 
     @DisplayName("Should throw NoAvailableInstanceException when no healthy instances are available")
     @Test
     void givenValidRequest_whenNoInstanceAvailable_thenThrowsNoAvailableInstanceException() {
-        when(loadBalancerService.routeRequest(VALID_PAYLOAD)).thenThrow(
-                new NoAvailableInstanceException("No healthy instance available"));
+        when(loadBalancerService.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY)).thenReturn(
+                Mono.error(new NoAvailableInstanceException("No healthy instance available")));
 
         NoAvailableInstanceException exception = assertThrows(
                 NoAvailableInstanceException.class,
-                () -> routerController.routeRequest(VALID_PAYLOAD)
+                () -> routerController.routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY).block()
         );
 
         assertEquals("No healthy instance available", exception.getMessage());
-        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD);
+        verify(loadBalancerService, times(1)).routeRequest(VALID_PAYLOAD, HttpHeaders.EMPTY);
+    }
+
+    @DisplayName("Should return the results of every payload when a valid batch is routed")
+    @Test
+    void givenValidBatch_whenServiceSucceeds_thenReturns200WithResults() {
+        List<Map<String, Object>> payloads = List.of(VALID_PAYLOAD, VALID_PAYLOAD);
+        List<BatchItemResponse> results = List.of(
+                BatchItemResponse.success(0, VALID_PAYLOAD), BatchItemResponse.success(1, VALID_PAYLOAD));
+        when(loadBalancerService.routeBatch(payloads, HttpHeaders.EMPTY)).thenReturn(Mono.just(results));
+
+        ResponseEntity<List<BatchItemResponse>> response = routerController.routeBatch(payloads, HttpHeaders.EMPTY, null).block();
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(results, response.getBody());
+    }
+
+    @DisplayName("Should throw InvalidRequestException when the batch is empty or too large")
+    @Test
+    void givenEmptyOrOversizedBatch_whenValidated_thenThrowsInvalidRequestException() {
+        InvalidRequestException empty = assertThrows(InvalidRequestException.class,
+                () -> routerController.routeBatch(List.of(), HttpHeaders.EMPTY, null));
+        InvalidRequestException oversized = assertThrows(InvalidRequestException.class,
+                () -> routerController.routeBatch(Collections.nCopies(4, VALID_PAYLOAD), HttpHeaders.EMPTY, null));
+
+        assertEquals("Batch cannot be empty", empty.getMessage());
+        assertEquals("Batch cannot hold more than 3 payloads", oversized.getMessage());
+        verifyNoInteractions(loadBalancerService);
+    }
+
+    @DisplayName("Should throw InvalidRequestException when a payload of the batch is empty")
+    @Test
+    void givenBatchWithEmptyPayload_whenValidated_thenThrowsInvalidRequestException() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> routerController.routeBatch(List.of(VALID_PAYLOAD, Map.of()), HttpHeaders.EMPTY, null));
+
+        assertEquals("Payload cannot be empty", exception.getMessage());
+        verifyNoInteractions(loadBalancerService);
+    }
+
+    @DisplayName("Should charge the rate limit one request per payload of the batch")
+    @Test
+    void givenRateLimitedClient_whenBatchIsRouted_thenEveryPayloadIsCharged() {
+        List<Map<String, Object>> payloads = List.of(VALID_PAYLOAD, VALID_PAYLOAD, VALID_PAYLOAD);
+        when(loadBalancerService.routeBatch(payloads, HttpHeaders.EMPTY)).thenReturn(Mono.just(List.of()));
+
+        routerController.routeBatch(payloads, HttpHeaders.EMPTY, "client").block();
+
+        verify(clientRateLimiter).acquire("client", 2);
+    }
+
+    @DisplayName("Should throw RateLimitExceededException when the bucket cannot cover the batch")
+    @Test
+    void givenBatchOverTheRateLimit_whenValidated_thenNothingIsRouted() {
+        List<Map<String, Object>> payloads = List.of(VALID_PAYLOAD, VALID_PAYLOAD, VALID_PAYLOAD);
+        doThrow(new RateLimitExceededException("Too many requests from the client", 1))
+                .when(clientRateLimiter).acquire("client", 2);
+
+        assertThrows(RateLimitExceededException.class,
+                () -> routerController.routeBatch(payloads, HttpHeaders.EMPTY, "client"));
+
+        verifyNoInteractions(loadBalancerService);
     }
 }
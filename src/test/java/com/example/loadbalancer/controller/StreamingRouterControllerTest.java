@@ -0,0 +1,81 @@
+package com.example.loadbalancer.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingRouterControllerTest {
+
+    private static DataBuffer chunk(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void givenChunks_whenWritten_thenAllBytesAreWrittenInOrderAndFlushedPerChunk() throws IOException {
+        AtomicInteger flushes = new AtomicInteger();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes.incrementAndGet();
+            }
+        };
+
+        StreamingRouterController.writeChunks(Flux.just(chunk("{\"a\":1}\n"), chunk("{\"b\":2}\n")), outputStream);
+
+        assertEquals("{\"a\":1}\n{\"b\":2}\n", outputStream.toString(StandardCharsets.UTF_8));
+        assertEquals(2, flushes.get());
+    }
+
+    @Test
+    void givenChunkLargerThanCopyBuffer_whenWritten_thenItIsWrittenWhole() throws IOException {
+        String large = "x".repeat(20_000);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        StreamingRouterController.writeChunks(Flux.just(chunk(large)), outputStream);
+
+        assertEquals(large, outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void givenClientGoesAway_whenWriting_thenWorkerResponseIsCancelled() {
+        AtomicInteger cancelled = new AtomicInteger();
+        Flux<DataBuffer> chunks = Flux.just(chunk("a"), chunk("b")).concatWith(Flux.never())
+                .doOnCancel(cancelled::incrementAndGet);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                throw new IllegalStateException("client disconnected");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> StreamingRouterController.writeChunks(chunks, outputStream));
+        assertEquals(1, cancelled.get());
+    }
+
+    @Test
+    void givenWorkerHeaders_whenCopied_thenHopByHopHeadersAreDropped() {
+        HttpHeaders workerHeaders = new HttpHeaders();
+        workerHeaders.add(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
+        workerHeaders.add(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        workerHeaders.add(HttpHeaders.CONNECTION, "keep-alive");
+        workerHeaders.add("Keep-Alive", "timeout=5");
+        workerHeaders.add("X-Worker", "w1");
+
+        HttpHeaders headers = StreamingRouterController.responseHeaders(workerHeaders);
+
+        assertEquals("application/x-ndjson", headers.getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("w1", headers.getFirst("X-Worker"));
+        assertFalse(headers.containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(headers.containsKey(HttpHeaders.CONNECTION));
+        assertFalse(headers.containsKey("Keep-Alive"));
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.loadbalancer.factory;
 
+import com.example.loadbalancer.config.AppConfig;
 import com.example.loadbalancer.strategy.LoadBalancingStrategy;
+import com.example.loadbalancer.strategy.ZoneAwareStrategy;
+import com.example.loadbalancer.tracker.InstanceTracker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -28,7 +31,8 @@ class LoadBalancerFactoryTest {
         when(roundRobinStrategy.getName()).thenReturn("roundrobin");
         when(customStrategy.getName()).thenReturn("custom");
 
-        loadBalancerFactory = new LoadBalancerFactory(List.of(roundRobinStrategy, customStrategy));
+        loadBalancerFactory = new LoadBalancerFactory(List.of(roundRobinStrategy, customStrategy), new AppConfig(),
+                new InstanceTracker());
     }
 
     @Test
@@ -45,11 +49,24 @@ class LoadBalancerFactoryTest {
 
     @Test
     void givenNoValidStrategy_whenGetStrategy_thenThrowsException() {
-        LoadBalancerFactory emptyFactory = new LoadBalancerFactory(List.of());
+        LoadBalancerFactory emptyFactory = new LoadBalancerFactory(List.of(), new AppConfig(), new InstanceTracker());
 
         IllegalStateException exception = assertThrows(IllegalStateException.class,
                 () -> emptyFactory.getStrategy("random"));
 
         assertEquals("No valid load balancing strategy available", exception.getMessage());
     }
+
+    @Test
+    void givenZoneAwareRouting_whenGetStrategy_thenStrategyIsWrappedUnderItsName() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getZoneAware().setEnabled(true);
+        LoadBalancerFactory zoneAwareFactory = new LoadBalancerFactory(List.of(roundRobinStrategy, customStrategy),
+                appConfig, new InstanceTracker());
+
+        LoadBalancingStrategy strategy = zoneAwareFactory.getStrategy("custom");
+
+        assertInstanceOf(ZoneAwareStrategy.class, strategy);
+        assertEquals("custom", strategy.getName());
+    }
 }
@@ -8,6 +8,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.test.annotation.DirtiesContext;
@@ -22,8 +23,10 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "loadbalancer.outlier-detection.ejection-time=1s")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@AutoConfigureObservability(tracing = false)
 public class LoadBalancerIntegrationTest {
 
     @LocalServerPort
@@ -49,6 +52,7 @@ public class LoadBalancerIntegrationTest {
     static void configureProperties(DynamicPropertyRegistry registry) {
         registry.add("loadbalancer.instances",
                 () -> wireMockInstance1.baseUrl() + "," + wireMockInstance2.baseUrl());
+        registry.add("loadbalancer.registry.admin-enabled", () -> true);
     }
 
     private static final Map<String, Object> requestPayload = Map.of(
@@ -135,6 +139,38 @@ public class LoadBalancerIntegrationTest {
         assertEquals(503, exception.getStatusCode().value());
     }
 
+    @Test
+    void givenWorkerRejectsRequest_whenRouted_thenWorkerStatusAndBodyAreReturned() {
+        String baseUrl = "http://localhost:" + port + "/route";
+        String rejection = "{\"error\":\"points must be positive\"}";
+
+        wireMockInstance1.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(422)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(rejection)));
+
+        wireMockInstance2.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(422)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(rejection)));
+
+        WebClientResponseException exception = assertThrows(
+                WebClientResponseException.class,
+                () -> webClient.post()
+                        .uri(baseUrl)
+                        .bodyValue(requestPayload)
+                        .retrieve()
+                        .bodyToMono(Map.class)
+                        .block()
+        );
+
+        assertEquals(422, exception.getStatusCode().value());
+        assertEquals(rejection, exception.getResponseBodyAsString());
+        assertEquals(1, wireMockInstance1.getAllServeEvents().size() + wireMockInstance2.getAllServeEvents().size());
+    }
+
     @Test
     void givenInvalidRequest_whenRouteIsCalled_thenReturns400() {
         String baseUrl = "http://localhost:" + port + "/route";
@@ -173,6 +209,19 @@ public class LoadBalancerIntegrationTest {
         assertEquals(requestPayload, responseBody);
     }
 
+    @Test
+    void givenSingleFailure_whenRouted_thenInstanceStaysInRotation() {
+        String baseUrl = "http://localhost:" + port + "/route";
+
+        wireMockInstance1.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(500)));
+
+        webClient.post().uri(baseUrl).bodyValue(requestPayload).retrieve().bodyToMono(Map.class).block();
+
+        assertFalse(instanceTracker.isInstanceUnhealthy(wireMockInstance1.baseUrl()));
+    }
+
     @Test
     void givenOneInstanceFails_whenHealthIsRestored_thenInstanceIsRecovered()
             throws JsonProcessingException, InterruptedException {
@@ -188,10 +237,70 @@ public class LoadBalancerIntegrationTest {
                         .withHeader("Content-Type", "application/json")
                         .withBody(objectMapper.writeValueAsString(healthUpResponse))));
 
-        webClient.post().uri(baseUrl).bodyValue(requestPayload).retrieve().bodyToMono(Map.class).block();
+        // Round robin alternates the first pick, so ten requests give the instance five consecutive failures
+        for (int i = 0; i < 10; i++) {
+            webClient.post().uri(baseUrl).bodyValue(requestPayload).retrieve().bodyToMono(Map.class).block();
+        }
 
         assertTrue(instanceTracker.isInstanceUnhealthy(wireMockInstance1.baseUrl()));
         Thread.sleep(6000);
         assertFalse(instanceTracker.isInstanceUnhealthy(wireMockInstance1.baseUrl()));
     }
+
+    @Test
+    void givenDrainedInstance_whenRequestsAreRouted_thenOnlyTheOtherInstanceIsCalled() {
+        String adminUrl = "http://localhost:" + port + "/admin/backends/drain?url={url}";
+        webClient.post().uri(adminUrl, wireMockInstance1.baseUrl()).retrieve().toBodilessEntity().block();
+
+        for (int i = 0; i < 4; i++) {
+            webClient.post()
+                    .uri("http://localhost:" + port + "/route")
+                    .bodyValue(requestPayload)
+                    .retrieve()
+                    .bodyToMono(Map.class)
+                    .block();
+        }
+
+        wireMockInstance1.verify(0, postRequestedFor(urlEqualTo("/process")));
+        wireMockInstance2.verify(4, postRequestedFor(urlEqualTo("/process")));
+    }
+
+    @Test
+    void givenRoutedRequest_whenMetricsAreRead_thenConnectionPoolMetricsArePublished() {
+        webClient.post()
+                .uri("http://localhost:" + port + "/route")
+                .bodyValue(requestPayload)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+
+        Map<?, ?> metric = webClient.get()
+                .uri("http://localhost:" + port + "/actuator/metrics/reactor.netty.connection.provider.total.connections")
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+
+        assertNotNull(metric);
+        assertEquals("reactor.netty.connection.provider.total.connections", metric.get("name"));
+    }
+
+    @Test
+    void givenRoutedRequest_whenPrometheusIsScraped_thenRoutingMetricsArePublished() {
+        webClient.post()
+                .uri("http://localhost:" + port + "/route")
+                .bodyValue(requestPayload)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+
+        String scrape = webClient.get()
+                .uri("http://localhost:" + port + "/actuator/prometheus")
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        assertNotNull(scrape);
+        assertTrue(scrape.contains("loadbalancer_selections_total"));
+        assertTrue(scrape.contains("loadbalancer_upstream_latency_seconds_bucket"));
+    }
 }
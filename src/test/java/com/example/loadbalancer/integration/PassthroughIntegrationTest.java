@@ -0,0 +1,80 @@
+package com.example.loadbalancer.integration;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "loadbalancer.passthrough-enabled=true")
+public class PassthroughIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClient webClient;
+
+    @RegisterExtension
+    static WireMockExtension wireMockInstance = WireMockExtension.newInstance()
+            .options(options().dynamicPort())
+            .build();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadbalancer.instances", wireMockInstance::baseUrl);
+    }
+
+    // Key order and spacing would not survive a Map round trip
+    private static final String REQUEST_BODY = "{\"points\": 20,  \"game\": \"Mobile Legends\"}";
+    private static final String WORKER_BODY = "{\"status\" :\"processed\",\"points\":20}";
+
+    @BeforeEach
+    void setupMocks() {
+        wireMockInstance.resetAll();
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .withRequestBody(equalTo(REQUEST_BODY))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(WORKER_BODY)));
+    }
+
+    @Test
+    void givenValidBody_whenRouted_thenBytesArePassedThroughUnchanged() {
+        String responseBody = webClient.post()
+                .uri("http://localhost:" + port + "/route")
+                .bodyValue(REQUEST_BODY)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        assertEquals(WORKER_BODY, responseBody);
+    }
+
+    @Test
+    void givenEmptyObject_whenRouted_thenReturns400() {
+        WebClientResponseException exception = assertThrows(
+                WebClientResponseException.class,
+                () -> webClient.post()
+                        .uri("http://localhost:" + port + "/route")
+                        .bodyValue("{ }")
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .block()
+        );
+
+        assertEquals(400, exception.getStatusCode().value());
+    }
+}
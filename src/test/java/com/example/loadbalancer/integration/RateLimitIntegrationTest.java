@@ -0,0 +1,95 @@
+package com.example.loadbalancer.integration;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "loadbalancer.rate-limit.enabled=true",
+                "loadbalancer.rate-limit.requests-per-second=0.1",
+                "loadbalancer.rate-limit.burst=2"
+        })
+public class RateLimitIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClient webClient;
+
+    @RegisterExtension
+    static WireMockExtension wireMockInstance = WireMockExtension.newInstance()
+            .options(options().dynamicPort())
+            .build();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadbalancer.instances", wireMockInstance::baseUrl);
+    }
+
+    private static final Map<String, Object> REQUEST_PAYLOAD = Map.of("gamerID", "GYUTDTE", "points", 20);
+
+    @BeforeEach
+    void setupMocks() {
+        wireMockInstance.resetAll();
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"gamerID\":\"GYUTDTE\",\"points\":20}")));
+    }
+
+    private Map<?, ?> route(String apiKey) {
+        return webClient.post()
+                .uri("http://localhost:" + port + "/route")
+                .header("X-Api-Key", apiKey)
+                .bodyValue(REQUEST_PAYLOAD)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block();
+    }
+
+    @Test
+    void givenClientOverItsRate_whenRouted_thenReturns429WithRetryAfter() {
+        route("noisy");
+        route("noisy");
+
+        WebClientResponseException exception = assertThrows(WebClientResponseException.class, () -> route("noisy"));
+
+        assertEquals(429, exception.getStatusCode().value());
+        assertEquals("10", exception.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(REQUEST_PAYLOAD, route("quiet"));
+        wireMockInstance.verify(3, postRequestedFor(urlEqualTo("/process")));
+    }
+
+    @Test
+    void givenBatchLargerThanTheBucket_whenRouted_thenReturns429WithoutRouting() {
+        WebClientResponseException exception = assertThrows(WebClientResponseException.class, () -> webClient.post()
+                .uri("http://localhost:" + port + "/route/batch")
+                .header("X-Api-Key", "batching")
+                .bodyValue(List.of(REQUEST_PAYLOAD, REQUEST_PAYLOAD, REQUEST_PAYLOAD))
+                .retrieve()
+                .bodyToMono(List.class)
+                .block());
+
+        assertEquals(429, exception.getStatusCode().value());
+        wireMockInstance.verify(0, postRequestedFor(urlEqualTo("/process")));
+    }
+}
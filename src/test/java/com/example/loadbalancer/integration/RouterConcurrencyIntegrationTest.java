@@ -0,0 +1,138 @@
+package com.example.loadbalancer.integration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ServeEventListener;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that proxied requests do not pin servlet threads while waiting on slow workers.
+ * Tomcat is limited to a handful of threads, a blocking pipeline could never have more
+ * requests outstanding at the worker than it has servlet threads.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class RouterConcurrencyIntegrationTest {
+
+    private static final int SERVLET_THREADS = 4;
+    private static final int CONCURRENT_REQUESTS = 32;
+    private static final int WORKER_DELAY_MILLIS = 500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClient webClient;
+
+    private static final ConcurrencyListener concurrency = new ConcurrencyListener();
+
+    @RegisterExtension
+    static WireMockExtension slowWorker = WireMockExtension.newInstance()
+            .options(options().dynamicPort()
+                    .asynchronousResponseEnabled(true)
+                    .asynchronousResponseThreads(CONCURRENT_REQUESTS)
+                    .extensions(concurrency))
+            .build();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadbalancer.instances", slowWorker::baseUrl);
+        registry.add("server.tomcat.threads.max", () -> SERVLET_THREADS);
+        registry.add("server.tomcat.threads.min-spare", () -> 1);
+    }
+
+    private static final Map<String, Object> requestPayload = Map.of(
+            "game", "Mobile Legends",
+            "gamerID", "GYUTDTE",
+            "points", 20
+    );
+
+    @BeforeEach
+    void setupMocks() throws JsonProcessingException {
+        slowWorker.resetAll();
+        concurrency.reset();
+        slowWorker.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(WORKER_DELAY_MILLIS)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(new ObjectMapper().writeValueAsString(requestPayload))));
+    }
+
+    @Test
+    void givenSlowWorker_whenBurstExceedsServletThreads_thenWorkerSeesMoreConcurrentRequestsThanThreads() {
+        List<Map> responses = sendBurst();
+
+        assertNotNull(responses);
+        assertEquals(CONCURRENT_REQUESTS, responses.size());
+        responses.forEach(response -> assertEquals(requestPayload, response));
+        assertTrue(concurrency.peak() > SERVLET_THREADS,
+                "Requests should not be serialised on servlet threads, peak worker concurrency was "
+                        + concurrency.peak());
+    }
+
+    private List<Map> sendBurst() {
+        String baseUrl = "http://localhost:" + port + "/route";
+        return Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> webClient.post()
+                        .uri(baseUrl)
+                        .bodyValue(requestPayload)
+                        .retrieve()
+                        .bodyToMono(Map.class), CONCURRENT_REQUESTS)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Tracks how many requests the worker is serving at once, from arrival until the response is sent
+     */
+    private static final class ConcurrencyListener implements ServeEventListener {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public void beforeMatch(ServeEvent serveEvent, Parameters parameters) {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+
+        @Override
+        public void afterComplete(ServeEvent serveEvent, Parameters parameters) {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public String getName() {
+            return "concurrency";
+        }
+
+        int peak() {
+            return peak.get();
+        }
+
+        void reset() {
+            inFlight.set(0);
+            peak.set(0);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.loadbalancer.integration;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"loadbalancer.streaming.enabled=true", "loadbalancer.streaming.chunk-size=4KB",
+                "spring.mvc.async.request-timeout=500ms"})
+public class StreamingIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClient webClient;
+
+    @RegisterExtension
+    static WireMockExtension wireMockInstance = WireMockExtension.newInstance()
+            .options(options().dynamicPort().containerThreads(50))
+            .build();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("loadbalancer.instances", wireMockInstance::baseUrl);
+    }
+
+    @BeforeEach
+    void setupMocks() {
+        wireMockInstance.resetAll();
+    }
+
+    @Test
+    void givenBodyLargerThanChunkSize_whenStreamed_thenWorkerReceivesItWhole() {
+        byte[] body = new byte[1024 * 1024];
+        Arrays.fill(body, (byte) 'x');
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/octet-stream")
+                        .withBody(body)));
+
+        // Read chunk by chunk, the response is larger than what the client would buffer
+        Long responseBytes = webClient.post()
+                .uri("http://localhost:" + port + "/route/stream")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .map(chunk -> {
+                    int length = chunk.readableByteCount();
+                    DataBufferUtils.release(chunk);
+                    return (long) length;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+
+        assertEquals(body.length, responseBytes);
+        wireMockInstance.verify(postRequestedFor(urlEqualTo("/process"))
+                .withRequestBody(binaryEqualTo(body)));
+    }
+
+    @Test
+    void givenNdjsonResponse_whenStreamed_thenContentTypeAndLinesArePassedThrough() {
+        String lines = "{\"line\":1}\n{\"line\":2}\n{\"line\":3}\n";
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/x-ndjson")
+                        .withBody(lines)));
+
+        ResponseEntity<String> response = webClient.post()
+                .uri("http://localhost:" + port + "/route/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"points\":20}\n")
+                .retrieve()
+                .toEntity(String.class)
+                .block();
+
+        assertNotNull(response);
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(lines, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONNECTION));
+    }
+
+    @Test
+    void givenWorkerSlowerThanAsyncTimeout_whenStreamed_thenStreamIsNotTimedOut() {
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/x-ndjson")
+                        .withBody("{\"line\":1}\n")
+                        .withFixedDelay(1500)));
+
+        ResponseEntity<String> response = webClient.post()
+                .uri("http://localhost:" + port + "/route/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"points\":20}\n")
+                .retrieve()
+                .toEntity(String.class)
+                .block();
+
+        assertNotNull(response);
+        assertEquals("{\"line\":1}\n", response.getBody());
+    }
+
+    @Test
+    void givenMoreStreamsThanTheDefaultTaskExecutor_whenStreamedAtOnce_thenTheyAreWrittenConcurrently() {
+        wireMockInstance.stubFor(post(urlEqualTo("/process"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/x-ndjson")
+                        .withBody("{\"line\":1}\n{\"line\":2}\n")
+                        .withChunkedDribbleDelay(2, 1000)));
+        // Twice the 8 threads of the application task executor of Spring Boot
+        int streams = 16;
+
+        long start = System.nanoTime();
+        List<String> bodies = Flux.range(0, streams)
+                .flatMap(i -> webClient.post()
+                        .uri("http://localhost:" + port + "/route/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .bodyValue("{\"points\":20}\n")
+                        .retrieve()
+                        .bodyToMono(String.class), streams)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(bodies);
+        assertEquals(streams, bodies.size());
+        bodies.forEach(body -> assertEquals("{\"line\":1}\n{\"line\":2}\n", body));
+        assertTrue(elapsedMillis < 1800, "Streams were written one batch of threads after the other: " + elapsedMillis + "ms");
+    }
+}
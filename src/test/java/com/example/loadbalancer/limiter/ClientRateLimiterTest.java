@@ -0,0 +1,114 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private AppConfig appConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getRateLimit().setEnabled(true);
+        appConfig.getRateLimit().setRequestsPerSecond(10);
+        appConfig.getRateLimit().setBurst(5);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void givenNewClient_whenBurstIsSent_thenBurstIsAdmittedAndNextRequestWaitsOneInterval() {
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        long now = 42 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client", now));
+        }
+
+        assertEquals(SECOND / 10, limiter.tryAcquire("client", now));
+    }
+
+    @Test
+    void givenSeveralPermits_whenBucketCannotCoverThemAll_thenNoneIsCharged() {
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        long now = 42 * SECOND;
+
+        assertEquals(0, limiter.tryAcquire("client", 3, now));
+        assertEquals(SECOND / 10, limiter.tryAcquire("client", 3, now));
+        assertEquals(0, limiter.tryAcquire("client", 2, now));
+        assertTrue(limiter.tryAcquire("client", now) > 0);
+    }
+
+    @Test
+    void givenEmptyBucket_whenTimePasses_thenTokensAreRefilledAtTheRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("client", now);
+        }
+
+        assertEquals(0, limiter.tryAcquire("client", now + SECOND / 10));
+        assertTrue(limiter.tryAcquire("client", now + SECOND / 10) > 0);
+        assertEquals(0, limiter.tryAcquire("client", now + 10 * SECOND));
+    }
+
+    @Test
+    void givenNoisyClient_whenThrottled_thenOtherClientsAreNotAffected() {
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("noisy", 0);
+        }
+
+        assertTrue(limiter.tryAcquire("noisy", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("quiet", 0));
+    }
+
+    @Test
+    void givenEmptyBucket_whenAcquired_thenThrowsWithRetryAfterInWholeSeconds() {
+        appConfig.getRateLimit().setRequestsPerSecond(0.5);
+        appConfig.getRateLimit().setBurst(1);
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        limiter.acquire("client");
+
+        RateLimitExceededException exception = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("client"));
+
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("loadbalancer.ratelimit.rejections").counter().count());
+    }
+
+    @Test
+    void givenConcurrentRequests_whenSameClient_thenExactlyTheBurstIsAdmitted() throws InterruptedException {
+        appConfig.getRateLimit().setRequestsPerSecond(0.001);
+        appConfig.getRateLimit().setBurst(1000);
+        ClientRateLimiter limiter = new ClientRateLimiter(appConfig, meterRegistry);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 5000; i++) {
+            executor.execute(() -> {
+                if (limiter.tryAcquire("client", 0) == 0) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, admitted.get());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private AppConfig appConfig;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getConcurrencyLimit().setEnabled(true);
+        appConfig.getConcurrencyLimit().setInitialLimit(20);
+        appConfig.getConcurrencyLimit().setLongWindow(100);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void givenLimitReached_whenRequestArrives_thenItIsRejectedRightAway() {
+        appConfig.getConcurrencyLimit().setInitialLimit(1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+        Sinks.One<String> pending = Sinks.one();
+        limiter.limit(pending.asMono()).subscribe();
+
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.limit(Mono.just("second")).block(Duration.ofSeconds(1)));
+        assertEquals(1.0, meterRegistry.get("loadbalancer.limiter.rejections").counter().count());
+
+        pending.tryEmitValue("first");
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("third", limiter.limit(Mono.just("third")).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void givenDisabledLimiter_whenManyRequestsAreInFlight_thenNoneIsRejected() {
+        appConfig.getConcurrencyLimit().setEnabled(false);
+        appConfig.getConcurrencyLimit().setInitialLimit(1);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+        limiter.limit(Sinks.<String>one().asMono()).subscribe();
+
+        assertEquals("second", limiter.limit(Mono.just("second")).block(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void givenRisingRoundTripTime_whenSaturated_thenLimitShrinks() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(10 * MILLIS, limiter.getLimit(), false);
+        }
+        int steadyLimit = limiter.getLimit();
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100 * MILLIS, limiter.getLimit(), false);
+        }
+
+        assertTrue(limiter.getLimit() < steadyLimit, limiter.getLimit() + " should be below " + steadyLimit);
+    }
+
+    @Test
+    void givenSteadyRoundTripTime_whenSaturated_thenLimitGrowsUpToMax() {
+        appConfig.getConcurrencyLimit().setMaxLimit(50);
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+
+        for (int i = 0; i < 500; i++) {
+            limiter.onSample(10 * MILLIS, limiter.getLimit(), false);
+        }
+
+        assertEquals(50, limiter.getLimit());
+        assertEquals(50.0, meterRegistry.get("loadbalancer.limiter.limit").gauge().value());
+    }
+
+    @Test
+    void givenFewRequestsInFlight_whenSampled_thenLimitDoesNotGrow() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(10 * MILLIS, 1, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void givenFailedRequests_whenSampled_thenLimitBacksOffToMin() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+
+        limiter.onSample(10 * MILLIS, 20, true);
+        assertEquals(18, limiter.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(10 * MILLIS, 20, true);
+        }
+
+        assertEquals(appConfig.getConcurrencyLimit().getMinLimit(), limiter.getLimit());
+    }
+
+    @Test
+    void givenWorkerClientErrors_whenLimited_thenLimitIsUnchanged() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.limit(Mono.error(WebClientResponseException.create(HttpStatus.BAD_REQUEST.value(), "Bad Request",
+                    null, null, null))).onErrorComplete().block(Duration.ofSeconds(1));
+        }
+
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void givenWorkerServerErrorsOrTimeouts_whenLimited_thenLimitBacksOff() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry);
+
+        limiter.limit(Mono.error(WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable", null, null, null))).onErrorComplete().block(Duration.ofSeconds(1));
+        assertEquals(18, limiter.getLimit());
+        limiter.limit(Mono.error(new TimeoutException())).onErrorComplete().block(Duration.ofSeconds(1));
+        assertEquals(16, limiter.getLimit());
+    }
+
+    @Test
+    void givenWinningHedge_whenCancelledAfterItsResponse_thenItIsSampledOnce() {
+        List<Boolean> samples = new ArrayList<>();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(appConfig, meterRegistry) {
+            @Override
+            void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+                samples.add(dropped);
+            }
+        };
+        Sinks.One<String> losing = Sinks.one();
+
+        String winner = Flux.merge(limiter.limit(losing.asMono()), limiter.limit(Flux.just("winner", "late").next()))
+                .next()
+                .block(Duration.ofSeconds(1));
+
+        assertEquals("winner", winner);
+        assertEquals(List.of(false), samples);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
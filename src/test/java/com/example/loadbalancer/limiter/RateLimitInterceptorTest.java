@@ -0,0 +1,83 @@
+package com.example.loadbalancer.limiter;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+
+    private AppConfig appConfig;
+
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.getRateLimit().setEnabled(true);
+        appConfig.getRateLimit().setRequestsPerSecond(0.001);
+        appConfig.getRateLimit().setBurst(1);
+        rateLimitInterceptor = new RateLimitInterceptor(
+                new ClientRateLimiter(appConfig, new SimpleMeterRegistry()), appConfig);
+    }
+
+    private MockHttpServletRequest request(String remoteAddress, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/route");
+        request.setRemoteAddr(remoteAddress);
+        if (apiKey != null) {
+            request.addHeader("X-Api-Key", apiKey);
+        }
+        return request;
+    }
+
+    @Test
+    void givenApiKey_whenSentFromDifferentAddresses_thenTheyShareOneBucket() {
+        assertTrue(rateLimitInterceptor.preHandle(request("10.0.0.1", "key"), new MockHttpServletResponse(), null));
+
+        assertThrows(RateLimitExceededException.class,
+                () -> rateLimitInterceptor.preHandle(request("10.0.0.2", "key"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void givenChargedRequest_whenHandled_thenClientIsKeptForTheHandler() {
+        MockHttpServletRequest request = request("10.0.0.1", "key");
+
+        assertTrue(rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), null));
+
+        assertEquals("key", request.getAttribute(RateLimitInterceptor.CLIENT_ATTRIBUTE));
+    }
+
+    @Test
+    void givenNoApiKey_whenSentFromDifferentAddresses_thenEachAddressHasItsBucket() {
+        assertTrue(rateLimitInterceptor.preHandle(request("10.0.0.1", null), new MockHttpServletResponse(), null));
+        assertTrue(rateLimitInterceptor.preHandle(request("10.0.0.2", null), new MockHttpServletResponse(), null));
+
+        assertThrows(RateLimitExceededException.class,
+                () -> rateLimitInterceptor.preHandle(request("10.0.0.1", null), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void givenDisabledRateLimit_whenManyRequestsArrive_thenAllPass() {
+        appConfig.getRateLimit().setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rateLimitInterceptor.preHandle(request("10.0.0.1", null), new MockHttpServletResponse(), null));
+        }
+    }
+
+    @Test
+    void givenAsyncDispatch_whenHandled_thenRequestIsNotChargedAgain() {
+        MockHttpServletRequest request = request("10.0.0.1", null);
+        assertTrue(rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), null));
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        assertTrue(rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), null));
+    }
+}
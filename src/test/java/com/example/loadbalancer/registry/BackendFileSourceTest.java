@@ -0,0 +1,99 @@
+package com.example.loadbalancer.registry;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendFileSourceTest {
+
+    private static final String INSTANCE_A = "http://localhost:8081";
+    private static final String INSTANCE_B = "http://localhost:8082";
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private BackendRegistry backendRegistry;
+
+    private BackendFileSource backendFileSource;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("backends.txt");
+        AppConfig appConfig = new AppConfig();
+        appConfig.setInstances(List.of(INSTANCE_A));
+        appConfig.getRegistry().setFile(file.toString());
+        backendRegistry = new BackendRegistry(appConfig);
+        backendFileSource = new BackendFileSource(backendRegistry, appConfig);
+    }
+
+    @Test
+    void givenLinesWithCommentsAndWeights_whenParsed_thenWeightsAreReadInOrder() {
+        Map<String, Integer> weights = BackendFileSource.parse(List.of(
+                "# workers", "", INSTANCE_B + " 3", "  " + INSTANCE_A + "  "));
+
+        assertEquals(List.of(INSTANCE_B, INSTANCE_A), List.copyOf(weights.keySet()));
+        assertEquals(3, weights.get(INSTANCE_B));
+        assertEquals(1, weights.get(INSTANCE_A));
+    }
+
+    @Test
+    void givenMalformedLine_whenParsed_thenThrowsInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> BackendFileSource.parse(List.of(INSTANCE_A + " heavy")));
+        assertThrows(InvalidRequestException.class, () -> BackendFileSource.parse(List.of(INSTANCE_A + " 1 2")));
+    }
+
+    @Test
+    void givenChangedFile_whenPolled_thenRegistryIsReplaced() throws IOException {
+        Files.writeString(file, INSTANCE_B + " 2\n");
+
+        backendFileSource.poll();
+
+        assertEquals(List.of(INSTANCE_B), backendRegistry.getInstances());
+        assertEquals(2, backendRegistry.getWeight(INSTANCE_B));
+    }
+
+    @Test
+    void givenUnchangedFile_whenPolledAgain_thenApiChangesAreKept() throws IOException {
+        Files.writeString(file, INSTANCE_B + "\n");
+        backendFileSource.poll();
+        backendRegistry.register(INSTANCE_A, 1);
+
+        backendFileSource.poll();
+
+        assertTrue(backendRegistry.contains(INSTANCE_A));
+    }
+
+    @Test
+    void givenInvalidFile_whenPolled_thenRegistryIsKeptAndFixedFileIsApplied() throws IOException {
+        Files.writeString(file, "localhost:8082\n");
+        backendFileSource.poll();
+        assertEquals(List.of(INSTANCE_A), backendRegistry.getInstances());
+
+        Files.writeString(file, INSTANCE_B + "\n");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        backendFileSource.poll();
+
+        assertEquals(List.of(INSTANCE_B), backendRegistry.getInstances());
+    }
+
+    @Test
+    void givenMissingFile_whenPolled_thenRegistryIsKept() {
+        backendFileSource.poll();
+
+        assertEquals(List.of(INSTANCE_A), backendRegistry.getInstances());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.loadbalancer.registry;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.InvalidRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendRegistryTest {
+
+    private static final String INSTANCE_A = "http://localhost:8081";
+    private static final String INSTANCE_B = "http://localhost:8082";
+    private static final String INSTANCE_C = "http://localhost:8083";
+
+    private BackendRegistry backendRegistry;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setInstances(List.of(INSTANCE_A, INSTANCE_B));
+        appConfig.setWeights(Map.of(INSTANCE_B, 3));
+        backendRegistry = new BackendRegistry(appConfig);
+    }
+
+    @Test
+    void givenConfiguredInstances_whenCreated_thenRegistryIsSeededWithTheirWeights() {
+        assertEquals(List.of(INSTANCE_A, INSTANCE_B), backendRegistry.getInstances());
+        assertEquals(1, backendRegistry.getWeight(INSTANCE_A));
+        assertEquals(3, backendRegistry.getWeight(INSTANCE_B));
+    }
+
+    @Test
+    void givenNoChange_whenInstancesAreReadTwice_thenSameListIsReturned() {
+        assertSame(backendRegistry.getInstances(), backendRegistry.getInstances());
+    }
+
+    @Test
+    void givenRegisteredInstance_whenRead_thenItIsRoutableAndSnapshotVersionChanged() {
+        List<String> before = backendRegistry.getInstances();
+        long version = backendRegistry.getSnapshot().version();
+
+        backendRegistry.register(INSTANCE_C, 2);
+
+        assertEquals(List.of(INSTANCE_A, INSTANCE_B, INSTANCE_C), backendRegistry.getInstances());
+        assertEquals(List.of(INSTANCE_A, INSTANCE_B), before);
+        assertEquals(version + 1, backendRegistry.getSnapshot().version());
+        assertEquals(2, backendRegistry.getWeight(INSTANCE_C));
+    }
+
+    @Test
+    void givenDrainedInstance_whenRead_thenItIsRegisteredButNotRoutable() {
+        assertTrue(backendRegistry.drain(INSTANCE_A));
+
+        assertEquals(List.of(INSTANCE_B), backendRegistry.getInstances());
+        assertTrue(backendRegistry.contains(INSTANCE_A));
+        assertEquals(Backend.State.DRAINING, backendRegistry.getSnapshot().backends().get(INSTANCE_A).state());
+    }
+
+    @Test
+    void givenDrainedInstance_whenRegisteredAgain_thenItIsRoutableAgain() {
+        backendRegistry.drain(INSTANCE_A);
+
+        backendRegistry.register(INSTANCE_A, 1);
+
+        assertEquals(List.of(INSTANCE_A, INSTANCE_B), backendRegistry.getInstances());
+    }
+
+    @Test
+    void givenUnknownInstance_whenDeregisteredOrDrained_thenNothingChanges() {
+        long version = backendRegistry.getSnapshot().version();
+
+        assertFalse(backendRegistry.deregister(INSTANCE_C));
+        assertFalse(backendRegistry.drain(INSTANCE_C));
+        assertEquals(version, backendRegistry.getSnapshot().version());
+    }
+
+    @Test
+    void givenInvalidUrlOrWeight_whenRegistered_thenThrowsInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> backendRegistry.register("localhost:8083", 1));
+        assertThrows(InvalidRequestException.class, () -> backendRegistry.register(INSTANCE_C, 0));
+        assertFalse(backendRegistry.contains(INSTANCE_C));
+    }
+
+    @Test
+    void givenReplacement_whenApplied_thenRegistryHoldsExactlyThoseInstancesAndKeepsDraining() {
+        backendRegistry.drain(INSTANCE_B);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        weights.put(INSTANCE_B, 1);
+        weights.put(INSTANCE_C, 4);
+
+        backendRegistry.replaceAll(weights);
+
+        assertFalse(backendRegistry.contains(INSTANCE_A));
+        assertEquals(List.of(INSTANCE_C), backendRegistry.getInstances());
+        assertEquals(Backend.State.DRAINING, backendRegistry.getSnapshot().backends().get(INSTANCE_B).state());
+        assertEquals(4, backendRegistry.getWeight(INSTANCE_C));
+    }
+
+    @Test
+    void givenUnchangedReplacement_whenApplied_thenNothingIsPublished() {
+        long version = backendRegistry.getSnapshot().version();
+
+        backendRegistry.replaceAll(Map.of(INSTANCE_A, 1));
+        backendRegistry.replaceAll(Map.of(INSTANCE_A, 1));
+
+        assertEquals(version + 1, backendRegistry.getSnapshot().version());
+    }
+
+    @Test
+    void givenListener_whenRegistryChanges_thenEverySnapshotIsPassedInOrder() {
+        List<BackendRegistry.Snapshot> published = new ArrayList<>();
+        backendRegistry.addListener(published::add);
+
+        backendRegistry.register(INSTANCE_C, 1);
+        backendRegistry.drain(INSTANCE_A);
+        backendRegistry.replaceAll(new LinkedHashMap<>(Map.of(INSTANCE_B, 3, INSTANCE_C, 1)));
+
+        assertEquals(3, published.size());
+        assertSame(backendRegistry.getSnapshot(), published.get(2));
+        assertTrue(published.get(0).version() < published.get(1).version());
+        assertTrue(published.get(1).version() < published.get(2).version());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.loadbalancer.scheduler;
 
 import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.registry.BackendRegistry;
 import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.tracker.OutlierDetector;
 import com.example.loadbalancer.util.Constants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class HealthCheckSchedulerTest {
@@ -27,6 +33,12 @@ class HealthCheckSchedulerTest {
     @Mock
     private AppConfig appConfig;
 
+    @Mock
+    private OutlierDetector outlierDetector;
+
+    @Mock
+    private BackendRegistry backendRegistry;
+
     @InjectMocks
     private HealthCheckScheduler healthCheckScheduler;
 
@@ -36,6 +48,7 @@ class HealthCheckSchedulerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(backendRegistry.contains(anyString())).thenReturn(true);
     }
 
     @Test
@@ -43,24 +56,27 @@ class HealthCheckSchedulerTest {
         when(instanceTracker.getUnhealthyInstances()).thenReturn(Set.of(INSTANCE_1, INSTANCE_2));
         when(appConfig.getWorkerHealthEndpoint()).thenReturn("/actuator/health");
 
+        // Set.of has no stable iteration order, so each instance gets its own stub chain
         WebClient.RequestHeadersUriSpec<?> requestHeadersUriSpec = mock(WebClient.RequestHeadersUriSpec.class);
-        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+        WebClient.RequestHeadersSpec<?> firstHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.RequestHeadersSpec<?> secondHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec firstResponseSpec = mock(WebClient.ResponseSpec.class);
+        WebClient.ResponseSpec secondResponseSpec = mock(WebClient.ResponseSpec.class);
 
         doReturn(requestHeadersUriSpec).when(webClient).get();
 
-        doReturn(requestHeadersUriSpec).when(requestHeadersUriSpec).uri(INSTANCE_1 + "/actuator/health");
-        doReturn(requestHeadersUriSpec).when(requestHeadersUriSpec).uri(INSTANCE_2 + "/actuator/health");
-        when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
+        doReturn(firstHeadersSpec).when(requestHeadersUriSpec).uri(INSTANCE_1 + "/actuator/health");
+        doReturn(secondHeadersSpec).when(requestHeadersUriSpec).uri(INSTANCE_2 + "/actuator/health");
+        when(firstHeadersSpec.retrieve()).thenReturn(firstResponseSpec);
+        when(secondHeadersSpec.retrieve()).thenReturn(secondResponseSpec);
 
-        when(responseSpec.bodyToMono(Map.class)).thenReturn(
-                Mono.just(Map.of(Constants.STATUS, "UP")),
-                Mono.just(Map.of(Constants.STATUS, "DOWN"))
-        );
+        when(firstResponseSpec.bodyToMono(Map.class)).thenReturn(Mono.just(Map.of(Constants.STATUS, "UP")));
+        when(secondResponseSpec.bodyToMono(Map.class)).thenReturn(Mono.just(Map.of(Constants.STATUS, "DOWN")));
 
         healthCheckScheduler.healthCheck();
 
-        verify(instanceTracker, times(1)).markInstanceHealthy(INSTANCE_1);
-        verify(instanceTracker, never()).markInstanceHealthy(INSTANCE_2);
+        verify(instanceTracker, times(1)).markInstanceHalfOpen(INSTANCE_1);
+        verify(instanceTracker, never()).markInstanceHalfOpen(INSTANCE_2);
     }
 
     @Test
@@ -81,7 +97,7 @@ class HealthCheckSchedulerTest {
 
         healthCheckScheduler.healthCheck();
 
-        verify(instanceTracker, never()).markInstanceHealthy(INSTANCE_1);
+        verify(instanceTracker, never()).markInstanceHalfOpen(INSTANCE_1);
     }
 
     @Test
@@ -97,6 +113,93 @@ class HealthCheckSchedulerTest {
 
         healthCheckScheduler.healthCheck();
 
-        verify(instanceTracker, never()).markInstanceHealthy(INSTANCE_1);
+        verify(instanceTracker, never()).markInstanceHalfOpen(INSTANCE_1);
+    }
+
+    @Test
+    void givenManyUnhealthyInstances_whenHealthCheckRuns_thenProbesRunConcurrentlyUpToTheCap() {
+        Set<String> unhealthyInstances = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            unhealthyInstances.add("http://localhost:" + (9000 + i));
+        }
+        when(instanceTracker.getUnhealthyInstances()).thenReturn(unhealthyInstances);
+        when(appConfig.getWorkerHealthEndpoint()).thenReturn("/actuator/health");
+        when(appConfig.getHealthCheckConcurrency()).thenReturn(25);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        WebClient.RequestHeadersUriSpec<?> requestHeadersUriSpec = mock(WebClient.RequestHeadersUriSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+        doReturn(requestHeadersUriSpec).when(webClient).get();
+        doReturn(requestHeadersUriSpec).when(requestHeadersUriSpec).uri(anyString());
+        when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Map.class)).thenAnswer(invocation -> Mono.delay(Duration.ofMillis(500))
+                .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .map(tick -> Map.of(Constants.STATUS, "UP"))
+                .doOnTerminate(inFlight::decrementAndGet));
+
+        long startNanos = System.nanoTime();
+        healthCheckScheduler.checkUnhealthyInstances().block();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        // Two waves of 25 probes, a sequential cycle would take 25 seconds
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "Cycle took " + elapsed);
+        assertEquals(25, maxInFlight.get());
+        unhealthyInstances.forEach(instance -> verify(instanceTracker, times(1)).markInstanceHalfOpen(instance));
+    }
+
+    @Test
+    void givenHangingInstance_whenHealthCheckRuns_thenProbeTimesOutAndInstanceRemainsUnhealthy() {
+        when(instanceTracker.getUnhealthyInstances()).thenReturn(Set.of(INSTANCE_1));
+        when(appConfig.getWorkerHealthEndpoint()).thenReturn("/actuator/health");
+
+        WebClient.RequestHeadersUriSpec<?> requestHeadersUriSpec = mock(WebClient.RequestHeadersUriSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+        doReturn(requestHeadersUriSpec).when(webClient).get();
+        doReturn(requestHeadersUriSpec).when(requestHeadersUriSpec).uri(INSTANCE_1 + "/actuator/health");
+        when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.never());
+
+        assertFalse(healthCheckScheduler.isInstanceHealthy(INSTANCE_1).block(Duration.ofSeconds(5)));
+        verify(instanceTracker, never()).markInstanceHalfOpen(INSTANCE_1);
+    }
+
+    @Test
+    void givenPreviousCycleStillRunning_whenHealthCheckTicks_thenTickIsSkipped() {
+        when(instanceTracker.getUnhealthyInstances()).thenReturn(Set.of(INSTANCE_1));
+        when(appConfig.getWorkerHealthEndpoint()).thenReturn("/actuator/health");
+
+        WebClient.RequestHeadersUriSpec<?> requestHeadersUriSpec = mock(WebClient.RequestHeadersUriSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+        doReturn(requestHeadersUriSpec).when(webClient).get();
+        doReturn(requestHeadersUriSpec).when(requestHeadersUriSpec).uri(INSTANCE_1 + "/actuator/health");
+        when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(Map.class)).thenReturn(Mono.never());
+
+        healthCheckScheduler.healthCheck();
+        healthCheckScheduler.healthCheck();
+
+        verify(instanceTracker, times(1)).getUnhealthyInstances();
+    }
+
+    @Test
+    void givenEjectedInstance_whenHealthCheckRuns_thenItIsNotProbedBeforeEjectionTimeIsOver() {
+        when(instanceTracker.getUnhealthyInstances()).thenReturn(Set.of(INSTANCE_1));
+        when(outlierDetector.isEjected(INSTANCE_1)).thenReturn(true);
+
+        healthCheckScheduler.checkUnhealthyInstances().block();
+
+        verifyNoInteractions(webClient);
+        verify(instanceTracker, never()).markInstanceHalfOpen(INSTANCE_1);
+    }
+
+    @Test
+    void givenDeregisteredInstance_whenHealthCheckRuns_thenItIsNotProbed() {
+        when(instanceTracker.getUnhealthyInstances()).thenReturn(Set.of(INSTANCE_1));
+        when(backendRegistry.contains(INSTANCE_1)).thenReturn(false);
+
+        healthCheckScheduler.checkUnhealthyInstances().block();
+
+        verifyNoInteractions(webClient);
     }
 }
@@ -1,24 +1,52 @@
 package com.example.loadbalancer.service.impl;
 
+import com.example.loadbalancer.cache.RequestCoalescer;
+import com.example.loadbalancer.cache.ResponseCache;
 import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.ConcurrencyLimitExceededException;
 import com.example.loadbalancer.exception.NoAvailableInstanceException;
 import com.example.loadbalancer.factory.LoadBalancerFactory;
+import com.example.loadbalancer.limiter.ConcurrencyLimiter;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.model.BatchItemResponse;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.registry.BackendRegistry;
+import com.example.loadbalancer.strategy.ConsistentHashStrategy;
 import com.example.loadbalancer.strategy.LoadBalancingStrategy;
+import com.example.loadbalancer.tracker.CircuitBreaker;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
 import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.tracker.LatencyHistogram;
+import com.example.loadbalancer.tracker.OutlierDetector;
+import com.example.loadbalancer.tracker.RetryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class LoadBalancerServiceImplTest {
@@ -33,14 +61,38 @@ public class LoadBalancerServiceImplTest {
     private WebClient webClient;
 
     @Mock
-    private InstanceTracker instanceTracker;
+    private OutlierDetector outlierDetector;
+
+    @Mock
+    private InstanceLoadTracker instanceLoadTracker;
 
     @Mock
     private LoadBalancingStrategy loadBalancingStrategy;
 
+    @Mock
+    private BackendRegistry backendRegistry;
+
     @InjectMocks
     private LoadBalancerServiceImpl loadBalancerService;
 
+    private InstanceTracker instanceTracker;
+
+    private AppConfig.Hedging hedging;
+
+    private AppConfig.RetryBudget retryBudgetConfig;
+
+    private LatencyHistogram latencyHistogram;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AppConfig.Batch batch;
+
+    private AppConfig.ResponseCache responseCacheConfig;
+
+    private AppConfig.Coalescing coalescing;
+
+    private AppConfig.ConcurrencyLimit concurrencyLimit;
+
     private static final List<String> INSTANCES = List.of(
             "http://localhost:8081",
             "http://localhost:8082"
@@ -58,16 +110,39 @@ public class LoadBalancerServiceImplTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         webClient = mock(WebClient.class, RETURNS_DEEP_STUBS);
-        loadBalancerService = new LoadBalancerServiceImpl(loadBalancerFactory, appConfig, webClient, instanceTracker);
+        instanceTracker = new InstanceTracker();
+        hedging = new AppConfig.Hedging();
+        retryBudgetConfig = new AppConfig.RetryBudget();
+        latencyHistogram = new LatencyHistogram();
+        meterRegistry = new SimpleMeterRegistry();
+        batch = new AppConfig.Batch();
+        responseCacheConfig = new AppConfig.ResponseCache();
+        coalescing = new AppConfig.Coalescing();
+        when(appConfig.getCoalescing()).thenReturn(coalescing);
+        concurrencyLimit = new AppConfig.ConcurrencyLimit();
+        when(appConfig.getConcurrencyLimit()).thenReturn(concurrencyLimit);
+        when(appConfig.getBatch()).thenReturn(batch);
+        when(appConfig.getResponseCache()).thenReturn(responseCacheConfig);
+        when(appConfig.getHedging()).thenReturn(hedging);
+        when(appConfig.getRetryBudget()).thenReturn(retryBudgetConfig);
+        createService();
+    }
+
+    private void createService() {
+        loadBalancerService = new LoadBalancerServiceImpl(loadBalancerFactory, appConfig, webClient,
+                instanceLoadTracker, outlierDetector, instanceTracker, new RetryBudget(appConfig), latencyHistogram,
+                new LoadBalancerMetrics(meterRegistry), new ResponseCache(appConfig, meterRegistry),
+                new RequestCoalescer(appConfig, meterRegistry), backendRegistry,
+                new ConcurrencyLimiter(appConfig, meterRegistry));
     }
 
     @Test
     void givenValidRequest_whenServiceIsHealthy_thenReturnsResponse() {
-        when(appConfig.getInstances()).thenReturn(INSTANCES);
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
         when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
         when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
         when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
-        when(loadBalancingStrategy.getInstanceUrl(INSTANCES)).thenReturn("http://localhost:8081");
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any())).thenReturn("http://localhost:8081");
 
         WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
         WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
@@ -81,19 +156,24 @@ public class LoadBalancerServiceImplTest {
         when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
                 .thenReturn(Mono.just(REQUEST_PAYLOAD));
 
-        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD);
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
 
         assertEquals(REQUEST_PAYLOAD, response);
         verify(loadBalancerFactory, times(1)).getStrategy(ROUND_ROBIN_ALGORITHM);
+        verify(instanceLoadTracker, times(1)).incrementInFlight("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).decrementInFlight("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).recordLatency(eq("http://localhost:8081"), anyLong());
+        verify(outlierDetector, times(1)).recordSuccess(eq("http://localhost:8081"), anyLong());
+        verify(outlierDetector, never()).recordFailure(anyString());
     }
 
     @Test
     void givenFirstInstanceFails_whenSecondInstanceWorks_thenReturnsResponse() {
-        when(appConfig.getInstances()).thenReturn(INSTANCES);
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
         when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
         when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
         when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
-        when(loadBalancingStrategy.getInstanceUrl(INSTANCES))
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
                 .thenReturn("http://localhost:8081")
                 .thenReturn("http://localhost:8082");
 
@@ -125,20 +205,57 @@ public class LoadBalancerServiceImplTest {
         when(secondResponseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
                 .thenReturn(Mono.just(REQUEST_PAYLOAD));
 
-        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD);
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
 
         assertEquals(REQUEST_PAYLOAD, response);
-        verify(instanceTracker, times(1)).markInstanceUnHealthy("http://localhost:8081");
+        verify(outlierDetector, times(1)).recordFailure("http://localhost:8081");
         verify(webClient, times(2)).post();
+        assertEquals(1, meterRegistry.get("loadbalancer.retries").counter().count());
+        assertEquals(1, meterRegistry.get("loadbalancer.upstream.failures").tag("instance", "http://localhost:8081").counter().count());
+        assertEquals(1, meterRegistry.get("loadbalancer.selections").tag("instance", "http://localhost:8082").counter().count());
+        assertEquals(1, meterRegistry.get("loadbalancer.upstream.latency").tag("instance", "http://localhost:8082").timer().count());
+        verify(instanceLoadTracker, times(1)).decrementInFlight("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).decrementInFlight("http://localhost:8082");
+    }
+
+    @Test
+    void givenKeyedRequestFails_whenRetried_thenRetryGoesToAnotherInstance() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn("consistenthash");
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(appConfig.getHashKeyField()).thenReturn("gamerID");
+        when(loadBalancerFactory.getStrategy("consistenthash"))
+                .thenReturn(new ConsistentHashStrategy(instanceTracker, appConfig));
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.error(new RuntimeException("Instance down")))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        // The key maps to one instance, without exclusion the retry would hit the failed instance again
+        ArgumentCaptor<String> uris = ArgumentCaptor.forClass(String.class);
+        verify(requestBodyUriSpec, times(2)).uri(uris.capture());
+        assertNotEquals(uris.getAllValues().get(0), uris.getAllValues().get(1));
     }
 
     @Test
     void givenValidRequest_whenAllInstancesFail_throwsNoAvailableInstance() {
-        when(appConfig.getInstances()).thenReturn(INSTANCES);
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
         when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
         when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
         when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
-        when(loadBalancingStrategy.getInstanceUrl(INSTANCES))
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
                 .thenReturn("http://localhost:8081")
                 .thenReturn("http://localhost:8082");
 
@@ -172,22 +289,23 @@ public class LoadBalancerServiceImplTest {
 
         NoAvailableInstanceException noAvailableInstanceException = assertThrows(
                 NoAvailableInstanceException.class,
-                () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD)
+                () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block()
         );
 
         assertEquals("No healthy instance available to route the request",
                 noAvailableInstanceException.getMessage());
-        verify(instanceTracker, times(2)).markInstanceUnHealthy(anyString());
+        assertEquals(1, meterRegistry.get("loadbalancer.rejections").counter().count());
+        verify(outlierDetector, times(2)).recordFailure(anyString());
         verify(webClient, times(2)).post();
     }
 
     @Test
-    void givenInstanceFails_whenServiceRetries_thenMarksInstanceUnhealthy() {
-        when(appConfig.getInstances()).thenReturn(INSTANCES);
+    void givenInstanceFails_whenServiceRetries_thenReportsFailureToOutlierDetector() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
         when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
         when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
         when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
-        when(loadBalancingStrategy.getInstanceUrl(INSTANCES))
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
                 .thenReturn("http://localhost:8081")
                 .thenReturn("http://localhost:8082");
 
@@ -203,18 +321,18 @@ public class LoadBalancerServiceImplTest {
         when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
                 .thenThrow(new RuntimeException("Instance down"));
 
-        assertThrows(NoAvailableInstanceException.class, () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD));
+        assertThrows(NoAvailableInstanceException.class, () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block());
 
-        verify(instanceTracker, times(1)).markInstanceUnHealthy("http://localhost:8081");
+        verify(outlierDetector, times(1)).recordFailure("http://localhost:8081");
     }
 
     @Test
     void givenAllInstancesFail_whenServiceRetries_thenRetriesExpectedTimes() {
-        when(appConfig.getInstances()).thenReturn(INSTANCES);
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
         when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
         when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
         when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
-        when(loadBalancingStrategy.getInstanceUrl(INSTANCES))
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
                 .thenReturn("http://localhost:8081")
                 .thenReturn("http://localhost:8082");
 
@@ -230,8 +348,499 @@ public class LoadBalancerServiceImplTest {
         when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
                 .thenThrow(new RuntimeException("Instance down"));
 
-        assertThrows(NoAvailableInstanceException.class, () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD));
+        assertThrows(NoAvailableInstanceException.class, () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block());
+
+        verify(loadBalancingStrategy, times(2)).getInstanceUrl(eq(INSTANCES), any());
+    }
+
+    @Test
+    void givenClientError_whenRouted_thenItIsReturnedWithoutRetryOrFailingTheInstance() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any())).thenReturn("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.error(WebClientResponseException.create(400, "Bad Request", null, null, null)));
+
+        WebClientResponseException exception = assertThrows(WebClientResponseException.class,
+                () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block());
+
+        assertEquals(400, exception.getStatusCode().value());
+        verify(webClient, times(1)).post();
+        verify(outlierDetector, never()).recordFailure(anyString());
+        verify(outlierDetector, times(1)).recordSuccess(eq("http://localhost:8081"), anyLong());
+        assertEquals(0, meterRegistry.get("loadbalancer.retries").counter().count());
+    }
+
+    @Test
+    void givenHalfOpenInstanceWithTrialTaken_whenRouted_thenRequestGoesToNextInstance() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+        CircuitBreaker.Permit trial = instanceTracker.tryAcquire("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(eq("http://localhost:8082/process"))).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        assertTrue(trial.trial());
+        verify(instanceLoadTracker, never()).incrementInFlight("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).incrementInFlight("http://localhost:8082");
+    }
+
+    @Test
+    void givenKeyOwnerHalfOpenWithTrialTaken_whenRouted_thenRequestFallsBackToAnotherInstance() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn("consistenthash");
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(appConfig.getHashKeyField()).thenReturn("gamerID");
+        ConsistentHashStrategy strategy = new ConsistentHashStrategy(instanceTracker, appConfig);
+        when(loadBalancerFactory.getStrategy("consistenthash")).thenReturn(strategy);
+
+        String owner = strategy.getInstanceUrl(INSTANCES, RoutingRequest.of(REQUEST_PAYLOAD, HttpHeaders.EMPTY));
+        String other = INSTANCES.get(0).equals(owner) ? INSTANCES.get(1) : INSTANCES.get(0);
+        instanceTracker.markInstanceUnHealthy(owner);
+        instanceTracker.markInstanceHalfOpen(owner);
+        instanceTracker.tryAcquire(owner);
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(eq(other + "/process"))).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        // The key keeps mapping to its half-open owner, without exclusion every pick would be refused
+        assertEquals(REQUEST_PAYLOAD, response);
+        verify(instanceLoadTracker, never()).incrementInFlight(owner);
+        verify(instanceLoadTracker, times(1)).incrementInFlight(other);
+    }
+
+    @Test
+    void givenHalfOpenInstance_whenTrialRequestFails_thenCircuitBreakerOpensAgain() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.error(new RuntimeException("Instance down")))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        assertEquals(CircuitBreaker.State.OPEN, instanceTracker.getCircuitBreakerState("http://localhost:8081"));
+        assertTrue(instanceTracker.isInstanceUnhealthy("http://localhost:8081"));
+    }
+
+    @Test
+    void givenEmptyRetryBudget_whenInstanceFails_thenRequestIsNotRetried() {
+        retryBudgetConfig.setRatio(0);
+        retryBudgetConfig.setMaxTokens(1);
+        createService();
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.error(new RuntimeException("Instance down")));
+
+        // The bucket starts with one token, the first request spends it on its retry
+        assertThrows(NoAvailableInstanceException.class, () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block());
+        NoAvailableInstanceException exception = assertThrows(NoAvailableInstanceException.class,
+                () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block());
+
+        assertEquals("Request failed and the retry budget is exhausted", exception.getMessage());
+        verify(webClient, times(3)).post();
+    }
+
+    @Test
+    void givenSlowInstance_whenIdempotentRequestIsHedged_thenFasterInstanceAnswers() {
+        hedging.setEnabled(true);
+        hedging.setMinDelay(Duration.ofMillis(20));
+        latencyHistogram.record(Duration.ofMillis(1).toNanos());
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.never())
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Idempotency-Key", "a1b2c3");
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD, headers)
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        verify(instanceLoadTracker, times(1)).incrementInFlight("http://localhost:8081");
+        // The losing call is cancelled on the thread that delivered the winning response
+        verify(instanceLoadTracker, timeout(1000).times(1)).decrementInFlight("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).incrementInFlight("http://localhost:8082");
+    }
+
+    @Test
+    void givenHalfOpenInstanceWinsHedge_whenWinnerIsCancelled_thenOutcomeIsReportedOnce() {
+        hedging.setEnabled(true);
+        hedging.setMinDelay(Duration.ofMillis(20));
+        latencyHistogram.record(Duration.ofMillis(1).toNanos());
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+        instanceTracker.markInstanceUnHealthy("http://localhost:8082");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8082");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.never())
+                .thenReturn(Mono.just(REQUEST_PAYLOAD));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Idempotency-Key", "a1b2c3");
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD, headers)
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        verify(instanceLoadTracker, times(1)).recordLatency(eq("http://localhost:8082"), anyLong());
+        verify(instanceLoadTracker, never()).recordLatency(eq("http://localhost:8081"), anyLong());
+        // The winning trial counted as a success and its permit is back, a second release would admit two trials
+        assertTrue(instanceTracker.tryAcquire("http://localhost:8082").trial());
+        assertNull(instanceTracker.tryAcquire("http://localhost:8082"));
+    }
+
+    @Test
+    void givenSlowInstance_whenRequestIsNotIdempotent_thenItIsNotHedged() {
+        hedging.setEnabled(true);
+        latencyHistogram.record(Duration.ofMillis(1).toNanos());
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any())).thenReturn("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD).delayElement(Duration.ofMillis(100)));
+
+        Map<String, Object> response = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block(Duration.ofSeconds(2));
+
+        assertEquals(REQUEST_PAYLOAD, response);
+        verify(webClient, times(1)).post();
+    }
+
+    @Test
+    void givenBatch_whenOnePayloadFails_thenResultsKeepOrderWithItemError() {
+        Map<String, Object> failingPayload = Map.of("gamerID", "FAILING");
+        Map<String, Object> otherPayload = Map.of("gamerID", "OTHER");
+        when(backendRegistry.getInstances()).thenReturn(List.of("http://localhost:8081"));
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(any(), any())).thenReturn("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> okHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.RequestHeadersSpec<?> failingHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec okResponseSpec = mock(WebClient.ResponseSpec.class);
+        WebClient.ResponseSpec failingResponseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(okHeadersSpec).when(requestBodySpec).bodyValue(eq(REQUEST_PAYLOAD));
+        doReturn(okHeadersSpec).when(requestBodySpec).bodyValue(eq(otherPayload));
+        doReturn(failingHeadersSpec).when(requestBodySpec).bodyValue(eq(failingPayload));
+        when(okHeadersSpec.retrieve()).thenReturn(okResponseSpec);
+        when(failingHeadersSpec.retrieve()).thenReturn(failingResponseSpec);
+        // The first payload answers last, its result still comes first
+        when(okResponseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(REQUEST_PAYLOAD).delayElement(Duration.ofMillis(50)))
+                .thenReturn(Mono.just(otherPayload));
+        when(failingResponseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.error(new RuntimeException("Instance down")));
+
+        List<BatchItemResponse> results = loadBalancerService
+                .routeBatch(List.of(REQUEST_PAYLOAD, failingPayload, otherPayload), HttpHeaders.EMPTY)
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(3, results.size());
+        assertEquals(BatchItemResponse.success(0, REQUEST_PAYLOAD), results.get(0));
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals("No available instances for handling the request", results.get(1).getError().getError());
+        assertEquals(BatchItemResponse.success(2, otherPayload), results.get(2));
+    }
+
+    @Test
+    void givenWorkerBatchEndpoint_whenBatchIsRouted_thenPayloadsArePackedIntoUpstreamCalls() {
+        batch.setWorkerBatchEndpoint("/process/batch");
+        batch.setItemsPerCall(2);
+        Map<String, Object> second = Map.of("gamerID", "SECOND");
+        Map<String, Object> third = Map.of("gamerID", "THIRD");
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenReturn("http://localhost:8081")
+                .thenReturn("http://localhost:8082");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> firstChunkSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.RequestHeadersSpec<?> secondChunkSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec firstResponseSpec = mock(WebClient.ResponseSpec.class);
+        WebClient.ResponseSpec secondResponseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(firstChunkSpec).when(requestBodySpec).bodyValue(eq(List.of(REQUEST_PAYLOAD, second)));
+        doReturn(secondChunkSpec).when(requestBodySpec).bodyValue(eq(List.of(third)));
+        when(firstChunkSpec.retrieve()).thenReturn(firstResponseSpec);
+        when(secondChunkSpec.retrieve()).thenReturn(secondResponseSpec);
+        when(firstResponseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(List.of(REQUEST_PAYLOAD, second)));
+        when(secondResponseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Mono.just(List.of(third)));
+
+        List<BatchItemResponse> results = loadBalancerService
+                .routeBatch(List.of(REQUEST_PAYLOAD, second, third), HttpHeaders.EMPTY)
+                .block(Duration.ofSeconds(2));
+
+        assertEquals(List.of(BatchItemResponse.success(0, REQUEST_PAYLOAD), BatchItemResponse.success(1, second),
+                BatchItemResponse.success(2, third)), results);
+        verify(webClient, times(2)).post();
+        verify(requestBodyUriSpec, times(1)).uri("http://localhost:8081/process/batch");
+        verify(requestBodyUriSpec, times(1)).uri("http://localhost:8082/process/batch");
+    }
+
+    @Test
+    void givenResponseCache_whenSamePayloadIsRoutedTwice_thenSecondResponseIsCached() {
+        responseCacheConfig.setEnabled(true);
+        createService();
+        mockSuccessfulWorker();
+
+        Map<String, Object> first = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+        Map<String, Object> second = loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        assertEquals(REQUEST_PAYLOAD, first);
+        assertEquals(REQUEST_PAYLOAD, second);
+        verify(webClient, times(1)).post();
+    }
+
+    @Test
+    void givenResponseCache_whenBypassHeaderIsSent_thenRequestIsRoutedAndNotCached() {
+        responseCacheConfig.setEnabled(true);
+        createService();
+        mockSuccessfulWorker();
+        HttpHeaders bypass = new HttpHeaders();
+        bypass.add(responseCacheConfig.getBypassHeader(), "true");
+
+        loadBalancerService.routeRequest(REQUEST_PAYLOAD, bypass).block();
+        loadBalancerService.routeRequest(REQUEST_PAYLOAD).block();
+
+        verify(webClient, times(2)).post();
+    }
+
+    @Test
+    void givenCoalescing_whenIdenticalRequestsAreInFlight_thenOneUpstreamCallIsShared() {
+        coalescing.setEnabled(true);
+        WebClient.ResponseSpec responseSpec = mockSuccessfulWorker();
+        Sinks.One<Map<String, Object>> upstream = Sinks.one();
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class))).thenReturn(upstream.asMono());
+
+        Mono<List<Map<String, Object>>> responses = Flux.merge(
+                loadBalancerService.routeRequest(REQUEST_PAYLOAD),
+                loadBalancerService.routeRequest(new HashMap<>(REQUEST_PAYLOAD))).collectList().cache();
+        responses.subscribe();
+        upstream.tryEmitValue(REQUEST_PAYLOAD);
+
+        assertEquals(List.of(REQUEST_PAYLOAD, REQUEST_PAYLOAD), responses.block(Duration.ofSeconds(2)));
+        verify(loadBalancingStrategy, times(1)).getInstanceUrl(eq(INSTANCES), any());
+        assertEquals(0.5, meterRegistry.get("loadbalancer.coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void givenConcurrencyLimitReached_whenRequestArrives_thenItIsShedWithoutGoingUpstream() {
+        concurrencyLimit.setEnabled(true);
+        concurrencyLimit.setInitialLimit(1);
+        meterRegistry = new SimpleMeterRegistry();
+        createService();
+        WebClient.ResponseSpec responseSpec = mockSuccessfulWorker();
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenReturn(Sinks.<Map<String, Object>>one().asMono());
+        loadBalancerService.routeRequest(REQUEST_PAYLOAD).subscribe();
+
+        assertThrows(ConcurrencyLimitExceededException.class,
+                () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block(Duration.ofSeconds(1)));
+        verify(webClient, times(1)).post();
+        verify(outlierDetector, never()).recordFailure(anyString());
+    }
+
+    @Test
+    void givenEveryInstanceUnhealthy_whenRequestsAreRejected_thenConcurrencyLimitIsNotLowered() {
+        concurrencyLimit.setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        createService();
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any()))
+                .thenThrow(new NoAvailableInstanceException("No healthy instance available"));
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(NoAvailableInstanceException.class,
+                    () -> loadBalancerService.routeRequest(REQUEST_PAYLOAD).block(Duration.ofSeconds(1)));
+        }
+
+        assertEquals(concurrencyLimit.getInitialLimit(),
+                meterRegistry.get("loadbalancer.limiter.limit").gauge().value());
+    }
+
+    @Test
+    void givenStreamedBody_whenInstanceFails_thenRequestIsNotRetried() {
+        when(appConfig.getStreaming()).thenReturn(new AppConfig.Streaming());
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any())).thenReturn("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
 
-        verify(loadBalancingStrategy, times(2)).getInstanceUrl(INSTANCES);
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        when(requestBodySpec.headers(any())).thenReturn(requestBodySpec);
+        when(requestBodySpec.httpRequest(any())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).body(any(BodyInserter.class));
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.toEntityFlux(DataBuffer.class)).thenReturn(Mono.error(new RuntimeException("Instance down")));
+
+        Flux<DataBuffer> body = Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(new byte[]{1, 2, 3}));
+        assertThrows(NoAvailableInstanceException.class,
+                () -> loadBalancerService.routeStream(body, new HttpHeaders()).block());
+        verify(webClient, times(1)).post();
+        verify(outlierDetector, times(1)).recordFailure("http://localhost:8081");
+        verify(instanceLoadTracker, times(1)).decrementInFlight("http://localhost:8081");
+    }
+
+    private WebClient.ResponseSpec mockSuccessfulWorker() {
+        when(backendRegistry.getInstances()).thenReturn(INSTANCES);
+        when(appConfig.getAlgorithm()).thenReturn(ROUND_ROBIN_ALGORITHM);
+        when(appConfig.getWorkerApiEndpoint()).thenReturn("/process");
+        when(loadBalancerFactory.getStrategy(ROUND_ROBIN_ALGORITHM)).thenReturn(loadBalancingStrategy);
+        when(loadBalancingStrategy.getInstanceUrl(eq(INSTANCES), any())).thenReturn("http://localhost:8081");
+
+        WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
+        WebClient.RequestBodySpec requestBodySpec = mock(WebClient.RequestBodySpec.class);
+        WebClient.RequestHeadersSpec<?> requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
+        WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
+
+        when(webClient.post()).thenReturn(requestBodyUriSpec);
+        when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodySpec);
+        doReturn(requestHeadersSpec).when(requestBodySpec).bodyValue(any());
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.bodyToMono(any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> Mono.just(REQUEST_PAYLOAD));
+        return responseSpec;
     }
 }
@@ -0,0 +1,200 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashStrategyTest {
+
+    private InstanceTracker instanceTracker;
+
+    private AppConfig appConfig;
+
+    private ConsistentHashStrategy consistentHashStrategy;
+
+    private static final String INSTANCE_A = "http://localhost:8081";
+    private static final String INSTANCE_B = "http://localhost:8082";
+    private static final String INSTANCE_C = "http://localhost:8083";
+
+    private static final List<String> INSTANCES = List.of(INSTANCE_A, INSTANCE_B, INSTANCE_C);
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        appConfig = new AppConfig();
+        appConfig.setHashKeyHeader("X-Routing-Key");
+        appConfig.setHashKeyField("gamerID");
+        consistentHashStrategy = new ConsistentHashStrategy(instanceTracker, appConfig);
+    }
+
+    @Test
+    void givenSameKey_whenSelectingRepeatedly_thenAlwaysReturnsSameInstance() {
+        RoutingRequest request = RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), HttpHeaders.EMPTY);
+
+        String first = consistentHashStrategy.getInstanceUrl(INSTANCES, request);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first, consistentHashStrategy.getInstanceUrl(INSTANCES, request));
+        }
+    }
+
+    @Test
+    void givenRawBodyAndDecodedPayload_whenKeysMatch_thenRouteToSameInstance() {
+        byte[] body = "{\"game\":{\"name\":\"Mobile Legends\"},\"gamerID\":\"GYUTDTE\",\"points\":20}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("GYUTDTE", consistentHashStrategy.routingKey(RoutingRequest.ofRaw(body, HttpHeaders.EMPTY)));
+        assertEquals(
+                consistentHashStrategy.getInstanceUrl(INSTANCES, RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), HttpHeaders.EMPTY)),
+                consistentHashStrategy.getInstanceUrl(INSTANCES, RoutingRequest.ofRaw(body, HttpHeaders.EMPTY)));
+    }
+
+    @Test
+    void givenHeaderAndField_whenReadingKey_thenHeaderWins() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Routing-Key", "from-header");
+
+        assertEquals("from-header",
+                consistentHashStrategy.routingKey(RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), headers)));
+        assertNull(consistentHashStrategy.routingKey(RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY)));
+        assertNull(consistentHashStrategy.routingKey(
+                RoutingRequest.ofRaw("not json".getBytes(StandardCharsets.UTF_8), HttpHeaders.EMPTY)));
+    }
+
+    @Test
+    void givenManyKeys_whenSelecting_thenSplitIsRoughlyEven() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30_000; i++) {
+            RoutingRequest request = RoutingRequest.of(Map.of("gamerID", "gamer-" + i), HttpHeaders.EMPTY);
+            counts.merge(consistentHashStrategy.getInstanceUrl(INSTANCES, request), 1, Integer::sum);
+        }
+
+        for (String instance : INSTANCES) {
+            assertTrue(Math.abs(counts.get(instance) - 10_000) < 1_000, instance + " got " + counts.get(instance));
+        }
+    }
+
+    @Test
+    void givenUnhealthyInstance_whenSelecting_thenOnlyItsKeysMove() {
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = "gamer-" + i;
+            before.put(key, consistentHashStrategy.getInstanceUrl(INSTANCES,
+                    RoutingRequest.of(Map.of("gamerID", key), HttpHeaders.EMPTY)));
+        }
+
+        instanceTracker.markInstanceUnHealthy(INSTANCE_B);
+
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String after = consistentHashStrategy.getInstanceUrl(INSTANCES,
+                    RoutingRequest.of(Map.of("gamerID", entry.getKey()), HttpHeaders.EMPTY));
+            assertNotEquals(INSTANCE_B, after);
+            if (!entry.getValue().equals(INSTANCE_B)) {
+                assertEquals(entry.getValue(), after, "key " + entry.getKey() + " moved");
+            }
+        }
+
+        instanceTracker.markInstanceHealthy(INSTANCE_B);
+
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            assertEquals(entry.getValue(), consistentHashStrategy.getInstanceUrl(INSTANCES,
+                    RoutingRequest.of(Map.of("gamerID", entry.getKey()), HttpHeaders.EMPTY)));
+        }
+    }
+
+    @Test
+    void givenNoKey_whenSelecting_thenSpreadsAcrossInstances() {
+        HashSet<String> selected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            selected.add(consistentHashStrategy.getInstanceUrl(INSTANCES));
+        }
+
+        assertEquals(new HashSet<>(INSTANCES), selected);
+    }
+
+    @Test
+    void givenKeyOwnerWasTried_whenRetried_thenKeyMovesToTheSameFallbackEveryTime() {
+        String owner = consistentHashStrategy.getInstanceUrl(INSTANCES,
+                RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), HttpHeaders.EMPTY));
+
+        Set<String> fallbacks = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            RoutingRequest retry = RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), HttpHeaders.EMPTY);
+            retry.exclude(owner);
+            fallbacks.add(consistentHashStrategy.getInstanceUrl(INSTANCES, retry));
+        }
+
+        assertEquals(1, fallbacks.size());
+        assertFalse(fallbacks.contains(owner));
+
+        RoutingRequest exhausted = RoutingRequest.of(Map.of("gamerID", "GYUTDTE"), HttpHeaders.EMPTY);
+        INSTANCES.forEach(exhausted::exclude);
+        assertThrows(NoAvailableInstanceException.class, () -> consistentHashStrategy.getInstanceUrl(INSTANCES, exhausted));
+    }
+
+    @Test
+    void givenAllInstancesUnhealthy_whenSelecting_throwsNoAvailableInstance() {
+        INSTANCES.forEach(instanceTracker::markInstanceUnHealthy);
+
+        NoAvailableInstanceException noAvailableInstanceException = assertThrows(
+                NoAvailableInstanceException.class,
+                () -> consistentHashStrategy.getInstanceUrl(INSTANCES)
+        );
+
+        assertEquals("No Healthy instance available", noAvailableInstanceException.getMessage());
+        assertThrows(NoAvailableInstanceException.class, () -> consistentHashStrategy.getInstanceUrl(List.of()));
+    }
+
+    @Test
+    void givenRecoveredInstanceInSlowStart_whenSelecting_thenItTakesAStableFractionOfItsKeys() {
+        Map<String, String> before = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = "gamer-" + i;
+            before.put(key, consistentHashStrategy.getInstanceUrl(INSTANCES,
+                    RoutingRequest.of(Map.of("gamerID", key), HttpHeaders.EMPTY)));
+        }
+        instanceTracker = slowStartTracker();
+        consistentHashStrategy = new ConsistentHashStrategy(instanceTracker, appConfig);
+        consistentHashStrategy.getInstanceUrl(INSTANCES);
+        instanceTracker.markInstanceUnHealthy(INSTANCE_B);
+        instanceTracker.markInstanceHealthy(INSTANCE_B);
+
+        int ownedKeys = 0;
+        int admittedKeys = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            RoutingRequest request = RoutingRequest.of(Map.of("gamerID", entry.getKey()), HttpHeaders.EMPTY);
+            String after = consistentHashStrategy.getInstanceUrl(INSTANCES, request);
+            assertEquals(after, consistentHashStrategy.getInstanceUrl(INSTANCES, request));
+            if (entry.getValue().equals(INSTANCE_B)) {
+                ownedKeys++;
+                admittedKeys += after.equals(INSTANCE_B) ? 1 : 0;
+            } else {
+                assertEquals(entry.getValue(), after, "key " + entry.getKey() + " moved");
+            }
+        }
+
+        assertTrue(admittedKeys > ownedKeys * 0.05 && admittedKeys < ownedKeys * 0.15,
+                admittedKeys + " of " + ownedKeys + " keys admitted");
+    }
+
+    private static InstanceTracker slowStartTracker() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSlowStart().setEnabled(true);
+        appConfig.getSlowStart().setWindow(Duration.ofHours(1));
+        return new InstanceTracker(appConfig, LoadBalancerMetrics.noop());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.model.RoutingRequest;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LeastOutstandingStrategyTest {
+
+    private InstanceTracker instanceTracker;
+
+    private InstanceLoadTracker instanceLoadTracker;
+
+    private LeastOutstandingStrategy leastOutstandingStrategy;
+
+    private static final List<String> INSTANCES = List.of(
+            "http://localhost:8081",
+            "http://localhost:8082",
+            "http://localhost:8083"
+    );
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        instanceLoadTracker = new InstanceLoadTracker();
+        leastOutstandingStrategy = new LeastOutstandingStrategy(instanceTracker, instanceLoadTracker);
+    }
+
+    @Test
+    void givenBusyInstances_whenGetInstanceIsCalled_thenReturnsLeastLoaded() {
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8083");
+
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            assertEquals("http://localhost:8082", leastOutstandingStrategy.getInstanceUrl(INSTANCES));
+        }
+    }
+
+    @Test
+    void givenEqualLoad_whenGetInstanceIsCalled_thenRotatesAcrossInstances() {
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            selected.add(leastOutstandingStrategy.getInstanceUrl(INSTANCES));
+        }
+
+        assertEquals(Set.copyOf(INSTANCES), selected);
+    }
+
+    @Test
+    void givenLeastLoadedInstanceIsUnhealthy_whenGetInstanceIsCalled_thenSkipsIt() {
+        instanceTracker.markInstanceUnHealthy("http://localhost:8082");
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8083");
+
+        assertEquals("http://localhost:8083", leastOutstandingStrategy.getInstanceUrl(INSTANCES));
+    }
+
+    @Test
+    void givenAllInstancesUnhealthy_whenGetInstanceIsCalled_throwsNoAvailableInstance() {
+        INSTANCES.forEach(instanceTracker::markInstanceUnHealthy);
+
+        NoAvailableInstanceException noAvailableInstanceException = assertThrows(
+                NoAvailableInstanceException.class,
+                () -> leastOutstandingStrategy.getInstanceUrl(INSTANCES)
+        );
+
+        assertEquals("No Healthy instance available", noAvailableInstanceException.getMessage());
+    }
+
+    @Test
+    void givenLeastLoadedInstanceWasTried_whenRetried_thenNextLeastLoadedIsReturned() {
+        RoutingRequest request = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8081");
+        instanceLoadTracker.incrementInFlight("http://localhost:8083");
+
+        String first = leastOutstandingStrategy.getInstanceUrl(INSTANCES, request);
+        request.exclude(first);
+        String second = leastOutstandingStrategy.getInstanceUrl(INSTANCES, request);
+        request.exclude(second);
+        String third = leastOutstandingStrategy.getInstanceUrl(INSTANCES, request);
+        request.exclude(third);
+
+        assertEquals(List.of("http://localhost:8082", "http://localhost:8083", "http://localhost:8081"),
+                List.of(first, second, third));
+        assertThrows(NoAvailableInstanceException.class, () -> leastOutstandingStrategy.getInstanceUrl(INSTANCES, request));
+    }
+
+    @Test
+    void givenEmptyInstances_whenGetInstanceIsCalled_throwsNoAvailableInstance() {
+        assertThrows(NoAvailableInstanceException.class, () -> leastOutstandingStrategy.getInstanceUrl(List.of()));
+    }
+
+    @Test
+    void givenStrategy_whenGetNameIsCalled_thenReturnsAlgorithmName() {
+        assertEquals("leastoutstanding", leastOutstandingStrategy.getName());
+    }
+
+    @Test
+    void givenIdleInstanceInSlowStart_whenOthersCarryFewRequests_thenOthersAreStillPreferred() {
+        instanceTracker = slowStartTracker();
+        leastOutstandingStrategy = new LeastOutstandingStrategy(instanceTracker, instanceLoadTracker);
+        leastOutstandingStrategy.getInstanceUrl(INSTANCES);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+        for (int i = 0; i < 2; i++) {
+            instanceLoadTracker.incrementInFlight("http://localhost:8082");
+            instanceLoadTracker.incrementInFlight("http://localhost:8083");
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals("http://localhost:8081", leastOutstandingStrategy.getInstanceUrl(INSTANCES));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            instanceLoadTracker.incrementInFlight("http://localhost:8082");
+            instanceLoadTracker.incrementInFlight("http://localhost:8083");
+        }
+        assertEquals("http://localhost:8081", leastOutstandingStrategy.getInstanceUrl(INSTANCES));
+    }
+
+    private static InstanceTracker slowStartTracker() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSlowStart().setEnabled(true);
+        appConfig.getSlowStart().setWindow(Duration.ofHours(1));
+        return new InstanceTracker(appConfig, LoadBalancerMetrics.noop());
+    }
+}
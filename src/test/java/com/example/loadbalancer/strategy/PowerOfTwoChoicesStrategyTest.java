@@ -0,0 +1,161 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.tracker.InstanceLoadTracker;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.model.RoutingRequest;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PowerOfTwoChoicesStrategyTest {
+
+    private InstanceTracker instanceTracker;
+
+    private InstanceLoadTracker instanceLoadTracker;
+
+    private PowerOfTwoChoicesStrategy powerOfTwoChoicesStrategy;
+
+    private static final String FAST_INSTANCE = "http://localhost:8081";
+    private static final String SLOW_INSTANCE = "http://localhost:8082";
+    private static final String THIRD_INSTANCE = "http://localhost:8083";
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        instanceLoadTracker = new InstanceLoadTracker();
+        powerOfTwoChoicesStrategy = new PowerOfTwoChoicesStrategy(instanceTracker, instanceLoadTracker);
+    }
+
+    @Test
+    void givenTwoInstances_whenOneIsSlower_thenAlwaysPicksFaster() {
+        instanceLoadTracker.recordLatency(FAST_INSTANCE, 1_000_000);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 80_000_000);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FAST_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE)));
+        }
+    }
+
+    @Test
+    void givenEqualLatency_whenOneHasMorePending_thenPicksLessLoaded() {
+        instanceLoadTracker.recordLatency(FAST_INSTANCE, 5_000_000);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 5_000_000);
+        instanceLoadTracker.incrementInFlight(FAST_INSTANCE);
+        instanceLoadTracker.incrementInFlight(FAST_INSTANCE);
+
+        assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE)));
+    }
+
+    @Test
+    void givenThreeInstances_whenOneIsSlow_thenSlowInstanceOnlyWinsWhenNotSampled() {
+        List<String> instances = List.of(FAST_INSTANCE, SLOW_INSTANCE, THIRD_INSTANCE);
+        instanceLoadTracker.recordLatency(FAST_INSTANCE, 1_000_000);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 80_000_000);
+        instanceLoadTracker.recordLatency(THIRD_INSTANCE, 1_000_000);
+
+        Map<String, Integer> selections = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            selections.merge(powerOfTwoChoicesStrategy.getInstanceUrl(instances), 1, Integer::sum);
+        }
+
+        assertNull(selections.get(SLOW_INSTANCE), "The slow instance loses every pairing it appears in");
+        assertTrue(selections.get(FAST_INSTANCE) > 500);
+        assertTrue(selections.get(THIRD_INSTANCE) > 500);
+    }
+
+    @Test
+    void givenOnlyOneHealthyInstance_whenGetInstanceIsCalled_thenReturnsIt() {
+        instanceTracker.markInstanceUnHealthy(FAST_INSTANCE);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 80_000_000);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE)));
+        }
+    }
+
+    @Test
+    void givenUnknownInstanceWithPendingRequests_whenSampled_thenMeasuredInstanceIsPicked() {
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 80_000_000);
+        instanceLoadTracker.incrementInFlight(FAST_INSTANCE);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE)));
+        }
+    }
+
+    @Test
+    void givenTwoUnknownInstances_whenOneHasMorePending_thenPicksLessLoaded() {
+        instanceLoadTracker.incrementInFlight(FAST_INSTANCE);
+        instanceLoadTracker.incrementInFlight(FAST_INSTANCE);
+        instanceLoadTracker.incrementInFlight(SLOW_INSTANCE);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE)));
+        }
+    }
+
+    @Test
+    void givenFasterInstanceWasTried_whenRetried_thenItIsNeverPicked() {
+        instanceLoadTracker.recordLatency(FAST_INSTANCE, 1_000_000);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 50_000_000);
+        instanceLoadTracker.recordLatency(THIRD_INSTANCE, 90_000_000);
+        List<String> instances = List.of(FAST_INSTANCE, SLOW_INSTANCE, THIRD_INSTANCE);
+        RoutingRequest request = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+        request.exclude(FAST_INSTANCE);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(instances, request));
+        }
+
+        request.exclude(SLOW_INSTANCE);
+        request.exclude(THIRD_INSTANCE);
+        assertThrows(NoAvailableInstanceException.class, () -> powerOfTwoChoicesStrategy.getInstanceUrl(instances, request));
+    }
+
+    @Test
+    void givenAllInstancesUnhealthy_whenGetInstanceIsCalled_throwsNoAvailableInstance() {
+        instanceTracker.markInstanceUnHealthy(FAST_INSTANCE);
+        instanceTracker.markInstanceUnHealthy(SLOW_INSTANCE);
+
+        NoAvailableInstanceException noAvailableInstanceException = assertThrows(
+                NoAvailableInstanceException.class,
+                () -> powerOfTwoChoicesStrategy.getInstanceUrl(List.of(FAST_INSTANCE, SLOW_INSTANCE))
+        );
+
+        assertEquals("No Healthy instance available", noAvailableInstanceException.getMessage());
+        assertThrows(NoAvailableInstanceException.class, () -> powerOfTwoChoicesStrategy.getInstanceUrl(List.of()));
+    }
+
+    @Test
+    void givenRecoveredInstanceInSlowStart_whenSlightlyFaster_thenWarmInstanceIsStillPicked() {
+        instanceTracker = slowStartTracker();
+        powerOfTwoChoicesStrategy = new PowerOfTwoChoicesStrategy(instanceTracker, instanceLoadTracker);
+        List<String> instances = List.of(FAST_INSTANCE, SLOW_INSTANCE);
+        powerOfTwoChoicesStrategy.getInstanceUrl(instances);
+        instanceTracker.markInstanceUnHealthy(FAST_INSTANCE);
+        instanceTracker.markInstanceHealthy(FAST_INSTANCE);
+        instanceLoadTracker.recordLatency(FAST_INSTANCE, 5_000_000);
+        instanceLoadTracker.recordLatency(SLOW_INSTANCE, 10_000_000);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(SLOW_INSTANCE, powerOfTwoChoicesStrategy.getInstanceUrl(instances));
+        }
+    }
+
+    private static InstanceTracker slowStartTracker() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSlowStart().setEnabled(true);
+        appConfig.getSlowStart().setWindow(Duration.ofHours(1));
+        return new InstanceTracker(appConfig, LoadBalancerMetrics.noop());
+    }
+}
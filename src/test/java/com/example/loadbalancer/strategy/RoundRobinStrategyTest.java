@@ -2,24 +2,26 @@ package com.example.loadbalancer.strategy;
 
 import com.example.loadbalancer.exception.NoAvailableInstanceException;
 import com.example.loadbalancer.tracker.InstanceTracker;
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.model.RoutingRequest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.*;
 
 public class RoundRobinStrategyTest {
 
-    @Mock
     private InstanceTracker instanceTracker;
 
-    @InjectMocks
     private RoundRobinStrategy roundRobinStrategy;
 
     private static final List<String> INSTANCES = List.of(
@@ -30,14 +32,12 @@ public class RoundRobinStrategyTest {
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
+        instanceTracker = new InstanceTracker();
+        roundRobinStrategy = new RoundRobinStrategy(instanceTracker);
     }
 
     @Test
     void givenMultipleInstances_whenGetInstanceIsCalled_thenCyclesCorrectly() {
-
-        when(instanceTracker.isInstanceUnhealthy(anyString())).thenReturn(false);
-
         assertEquals("http://localhost:8081", roundRobinStrategy.getInstanceUrl(INSTANCES));
         assertEquals("http://localhost:8082", roundRobinStrategy.getInstanceUrl(INSTANCES));
         assertEquals("http://localhost:8083", roundRobinStrategy.getInstanceUrl(INSTANCES));
@@ -46,7 +46,7 @@ public class RoundRobinStrategyTest {
 
     @Test
     void givenMultipleInstances_whenAllInstancesAreUnHealthy_throwsNoAvailableInstance() {
-        when(instanceTracker.isInstanceUnhealthy(anyString())).thenReturn(true);
+        INSTANCES.forEach(instanceTracker::markInstanceUnHealthy);
 
         NoAvailableInstanceException noAvailableInstanceException = assertThrows(
                 NoAvailableInstanceException.class,
@@ -58,11 +58,27 @@ public class RoundRobinStrategyTest {
 
     @Test
     void givenMultipleInstances_whenAnInstanceIsCalled_thenSkipsUnhealthyInstance() {
-        when(instanceTracker.isInstanceUnhealthy("http://localhost:8081")).thenReturn(true);
-        when(instanceTracker.isInstanceUnhealthy("http://localhost:8082")).thenReturn(false);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
 
         assertEquals("http://localhost:8082", roundRobinStrategy.getInstanceUrl(INSTANCES));
-        verify(instanceTracker, times(2)).isInstanceUnhealthy(anyString());
+        assertEquals("http://localhost:8083", roundRobinStrategy.getInstanceUrl(INSTANCES));
+        assertEquals("http://localhost:8082", roundRobinStrategy.getInstanceUrl(INSTANCES));
+    }
+
+    @Test
+    void givenExcludedInstances_whenGetInstanceIsCalled_thenOnlyOthersAreReturned() {
+        RoutingRequest request = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+        request.exclude("http://localhost:8081");
+        request.exclude("http://localhost:8082");
+
+        for (int i = 0; i < INSTANCES.size(); i++) {
+            assertEquals("http://localhost:8083", roundRobinStrategy.getInstanceUrl(INSTANCES, request));
+        }
+
+        request.exclude("http://localhost:8083");
+        NoAvailableInstanceException exception = assertThrows(NoAvailableInstanceException.class,
+                () -> roundRobinStrategy.getInstanceUrl(INSTANCES, request));
+        assertEquals("Every healthy instance was already tried", exception.getMessage());
     }
 
     @Test
@@ -79,9 +95,52 @@ public class RoundRobinStrategyTest {
     void givenSingleInstance_whenGetInstanceIsCalled_thenReturnsSameInstance() {
         List<String> singleInstance = List.of("http://localhost:8081");
 
-        when(instanceTracker.isInstanceUnhealthy("http://localhost:8081")).thenReturn(false);
-
         assertEquals("http://localhost:8081", roundRobinStrategy.getInstanceUrl(singleInstance));
         assertEquals("http://localhost:8081", roundRobinStrategy.getInstanceUrl(singleInstance));
     }
+
+    @Test
+    void givenRecoveredInstanceInSlowStart_whenSelecting_thenItGetsAFractionOfItsTurns() {
+        instanceTracker = slowStartTracker();
+        roundRobinStrategy = new RoundRobinStrategy(instanceTracker);
+        roundRobinStrategy.getInstanceUrl(INSTANCES);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            counts.merge(roundRobinStrategy.getInstanceUrl(INSTANCES), 1, Integer::sum);
+        }
+
+        assertTrue(counts.getOrDefault("http://localhost:8081", 0) > 0);
+        assertTrue(counts.getOrDefault("http://localhost:8081", 0) < counts.get("http://localhost:8082") / 4);
+        assertTrue(counts.getOrDefault("http://localhost:8081", 0) < counts.get("http://localhost:8083") / 4);
+    }
+
+    @Test
+    void givenRecoveredInstanceInSlowStart_whenRetrying_thenItGetsAFractionOfItsTurns() {
+        instanceTracker = slowStartTracker();
+        roundRobinStrategy = new RoundRobinStrategy(instanceTracker);
+        roundRobinStrategy.getInstanceUrl(INSTANCES);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            RoutingRequest retry = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+            retry.exclude("http://localhost:8083");
+            counts.merge(roundRobinStrategy.getInstanceUrl(INSTANCES, retry), 1, Integer::sum);
+        }
+
+        assertEquals(0, counts.getOrDefault("http://localhost:8083", 0));
+        assertTrue(counts.getOrDefault("http://localhost:8081", 0) > 0);
+        assertTrue(counts.getOrDefault("http://localhost:8081", 0) < counts.get("http://localhost:8082") / 4);
+    }
+
+    private static InstanceTracker slowStartTracker() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSlowStart().setEnabled(true);
+        appConfig.getSlowStart().setWindow(Duration.ofHours(1));
+        return new InstanceTracker(appConfig, LoadBalancerMetrics.noop());
+    }
 }
@@ -0,0 +1,174 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.registry.BackendRegistry;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedRoundRobinStrategyTest {
+
+    private InstanceTracker instanceTracker;
+
+    private AppConfig appConfig;
+
+    private WeightedRoundRobinStrategy weightedRoundRobinStrategy;
+
+    private static final String INSTANCE_A = "http://localhost:8081";
+    private static final String INSTANCE_B = "http://localhost:8082";
+    private static final String INSTANCE_C = "http://localhost:8083";
+
+    private static final List<String> INSTANCES = List.of(INSTANCE_A, INSTANCE_B, INSTANCE_C);
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        appConfig = new AppConfig();
+        appConfig.setInstances(INSTANCES);
+        weightedRoundRobinStrategy = strategyWithWeights(Map.of(INSTANCE_A, 5));
+    }
+
+    private WeightedRoundRobinStrategy strategyWithWeights(Map<String, Integer> weights) {
+        appConfig.setWeights(weights);
+        return new WeightedRoundRobinStrategy(instanceTracker, new BackendRegistry(appConfig));
+    }
+
+    @Test
+    void givenWeights_whenSelecting_thenFollowsSmoothNginxSequence() {
+        List<String> selected = new ArrayList<>();
+        for (int i = 0; i < 14; i++) {
+            selected.add(weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+        }
+
+        List<String> period = List.of(INSTANCE_A, INSTANCE_A, INSTANCE_B, INSTANCE_A, INSTANCE_C, INSTANCE_A, INSTANCE_A);
+        List<String> expected = new ArrayList<>(period);
+        expected.addAll(period);
+        assertEquals(expected, selected);
+    }
+
+    @Test
+    void givenEqualWeights_whenSelecting_thenBehavesLikeRoundRobin() {
+        weightedRoundRobinStrategy = strategyWithWeights(Map.of());
+
+        assertEquals(INSTANCE_A, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+        assertEquals(INSTANCE_B, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+        assertEquals(INSTANCE_C, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+        assertEquals(INSTANCE_A, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+    }
+
+    @Test
+    void givenWeightsWithCommonDivisor_whenBuildingOrder_thenPeriodIsReduced() {
+        weightedRoundRobinStrategy = strategyWithWeights(Map.of(INSTANCE_A, 40, INSTANCE_B, 20, INSTANCE_C, 20));
+
+        assertArrayEquals(new int[]{0, 1, 2, 0}, weightedRoundRobinStrategy.buildOrder(INSTANCES));
+    }
+
+    @Test
+    void givenHugeCoprimeWeights_whenBuildingOrder_thenPeriodIsCappedAndProportional() {
+        weightedRoundRobinStrategy = strategyWithWeights(
+                Map.of(INSTANCE_A, Integer.MAX_VALUE, INSTANCE_B, 1_000_003, INSTANCE_C, 1));
+
+        int[] order = weightedRoundRobinStrategy.buildOrder(INSTANCES);
+
+        assertTrue(order.length <= WeightedRoundRobinStrategy.MAX_PERIOD + INSTANCES.size());
+        int[] counts = new int[INSTANCES.size()];
+        for (int index : order) {
+            counts[index]++;
+        }
+        assertTrue(counts[0] > counts[1] && counts[1] > 0 && counts[2] > 0,
+                "Every instance keeps a slot and the heaviest keeps most of them");
+    }
+
+    @Test
+    void givenIntegers_whenComputingGcd_thenMatchesEuclid() {
+        assertEquals(5, WeightedRoundRobinStrategy.gcd(0, 5));
+        assertEquals(20, WeightedRoundRobinStrategy.gcd(40, 20));
+        assertEquals(1, WeightedRoundRobinStrategy.gcd(Integer.MAX_VALUE, 1_000_003));
+    }
+
+    @Test
+    void givenWeightChangedInRegistry_whenSelecting_thenNewWeightsAreFollowed() {
+        BackendRegistry backendRegistry = new BackendRegistry(appConfig);
+        WeightedRoundRobinStrategy strategy = new WeightedRoundRobinStrategy(instanceTracker, backendRegistry);
+        assertEquals(INSTANCE_A, strategy.getInstanceUrl(backendRegistry.getInstances()));
+
+        backendRegistry.register(INSTANCE_A, 1);
+
+        assertArrayEquals(new int[]{0, 1, 2}, strategy.buildOrder(backendRegistry.getInstances()));
+    }
+
+    @Test
+    void givenManyConcurrentSelections_whenCounted_thenDistributionMatchesWeights() throws InterruptedException {
+        WeightedRoundRobinStrategy strategy = strategyWithWeights(Map.of(INSTANCE_A, 5, INSTANCE_B, 3, INSTANCE_C, 2));
+        int threads = 8;
+        int selectionsPerThread = 500_000;
+        Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < selectionsPerThread; i++) {
+                    counts.computeIfAbsent(strategy.getInstanceUrl(INSTANCES), k -> new LongAdder())
+                            .increment();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        // 4M selections is a whole number of 10-slot periods, so the split is exact
+        assertEquals(2_000_000, counts.get(INSTANCE_A).sum());
+        assertEquals(1_200_000, counts.get(INSTANCE_B).sum());
+        assertEquals(800_000, counts.get(INSTANCE_C).sum());
+    }
+
+    @Test
+    void givenUnhealthyHeavyInstance_whenSelecting_thenRemainingInstancesShareTraffic() {
+        instanceTracker.markInstanceUnHealthy(INSTANCE_A);
+
+        for (int i = 0; i < 70; i++) {
+            assertNotEquals(INSTANCE_A, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES));
+        }
+    }
+
+    @Test
+    void givenHeavyInstanceWasTried_whenRetried_thenOthersShareTheRetries() {
+        RoutingRequest request = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+        request.exclude(INSTANCE_A);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotEquals(INSTANCE_A, weightedRoundRobinStrategy.getInstanceUrl(INSTANCES, request));
+        }
+
+        request.exclude(INSTANCE_B);
+        request.exclude(INSTANCE_C);
+        assertThrows(NoAvailableInstanceException.class, () -> weightedRoundRobinStrategy.getInstanceUrl(INSTANCES, request));
+    }
+
+    @Test
+    void givenAllInstancesUnhealthy_whenSelecting_throwsNoAvailableInstance() {
+        INSTANCES.forEach(instanceTracker::markInstanceUnHealthy);
+
+        NoAvailableInstanceException noAvailableInstanceException = assertThrows(
+                NoAvailableInstanceException.class,
+                () -> weightedRoundRobinStrategy.getInstanceUrl(INSTANCES)
+        );
+
+        assertEquals("No Healthy instance available", noAvailableInstanceException.getMessage());
+        assertThrows(NoAvailableInstanceException.class, () -> weightedRoundRobinStrategy.getInstanceUrl(List.of()));
+    }
+}
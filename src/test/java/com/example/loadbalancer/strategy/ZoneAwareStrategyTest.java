@@ -0,0 +1,144 @@
+package com.example.loadbalancer.strategy;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.exception.NoAvailableInstanceException;
+import com.example.loadbalancer.model.RoutingRequest;
+import com.example.loadbalancer.tracker.InstanceTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZoneAwareStrategyTest {
+
+    private InstanceTracker instanceTracker;
+
+    private AppConfig appConfig;
+
+    private ZoneAwareStrategy zoneAwareStrategy;
+
+    private static final String LOCAL_A = "http://localhost:8081";
+    private static final String LOCAL_B = "http://localhost:8082";
+    private static final String REMOTE_A = "http://localhost:8083";
+    private static final String REMOTE_B = "http://localhost:8084";
+    private static final String BACKUP = "http://localhost:8085";
+
+    private static final List<String> INSTANCES = List.of(LOCAL_A, LOCAL_B, REMOTE_A, REMOTE_B, BACKUP);
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        appConfig = new AppConfig();
+        appConfig.getZoneAware().setEnabled(true);
+        appConfig.getZoneAware().setLocalZone("zone-a");
+        appConfig.setZones(Map.of(LOCAL_A, "zone-a", LOCAL_B, "zone-a", REMOTE_A, "zone-b", REMOTE_B, "zone-b",
+                BACKUP, "zone-a"));
+        appConfig.setPriorities(Map.of(BACKUP, 1));
+        zoneAwareStrategy = new ZoneAwareStrategy(new RoundRobinStrategy(instanceTracker), instanceTracker, appConfig);
+    }
+
+    @Test
+    void givenHealthyLocalZone_whenSelecting_thenTrafficStaysLocal() {
+        for (int i = 0; i < 1000; i++) {
+            String selected = zoneAwareStrategy.getInstanceUrl(INSTANCES);
+            assertTrue(selected.equals(LOCAL_A) || selected.equals(LOCAL_B), selected);
+        }
+    }
+
+    @Test
+    void givenLocalZoneBelowThreshold_whenSelecting_thenTrafficSpillsOverInProportion() {
+        instanceTracker.markInstanceUnHealthy(LOCAL_A);
+
+        Map<String, Integer> counts = selectMany(10_000);
+
+        // Half of the local zone is healthy, with a threshold of 0.7 it keeps 0.5 / 0.7 of the traffic
+        double localShare = counts.getOrDefault(LOCAL_B, 0) / 10_000.0;
+        assertEquals(0.714, localShare, 0.03);
+        assertEquals(10_000 - counts.get(LOCAL_B), counts.get(REMOTE_A) + counts.get(REMOTE_B));
+        assertNull(counts.get(BACKUP));
+    }
+
+    @Test
+    void givenFirstPriorityDown_whenSelecting_thenBackupTierTakesAllTraffic() {
+        List.of(LOCAL_A, LOCAL_B, REMOTE_A, REMOTE_B).forEach(instanceTracker::markInstanceUnHealthy);
+
+        assertEquals(Map.of(BACKUP, 100), selectMany(100));
+    }
+
+    @Test
+    void givenNoLocalZone_whenSelecting_thenOnlyPrioritiesApply() {
+        appConfig.getZoneAware().setLocalZone(null);
+        zoneAwareStrategy = new ZoneAwareStrategy(new RoundRobinStrategy(instanceTracker), instanceTracker, appConfig);
+
+        Map<String, Integer> counts = selectMany(400);
+
+        assertEquals(100, counts.get(REMOTE_A));
+        assertNull(counts.get(BACKUP));
+    }
+
+    @Test
+    void givenConsistentHashing_whenLocalZoneIsHealthy_thenKeysStickToLocalInstances() {
+        appConfig.setHashKeyField("gamerID");
+        zoneAwareStrategy = new ZoneAwareStrategy(new ConsistentHashStrategy(instanceTracker, appConfig),
+                instanceTracker, appConfig);
+
+        for (int i = 0; i < 200; i++) {
+            RoutingRequest request = RoutingRequest.of(Map.of("gamerID", "gamer-" + i), HttpHeaders.EMPTY);
+            String selected = zoneAwareStrategy.getInstanceUrl(INSTANCES, request);
+            assertTrue(selected.equals(LOCAL_A) || selected.equals(LOCAL_B), selected);
+            assertEquals(selected, zoneAwareStrategy.getInstanceUrl(INSTANCES, request));
+        }
+    }
+
+    @Test
+    void givenLocalTierAlreadyTried_whenRetried_thenRequestMovesToAnotherTier() {
+        RoutingRequest request = RoutingRequest.of(Map.of("game", "Chess"), HttpHeaders.EMPTY);
+        request.exclude(LOCAL_A);
+        request.exclude(LOCAL_B);
+
+        for (int i = 0; i < 20; i++) {
+            String selected = zoneAwareStrategy.getInstanceUrl(INSTANCES, request);
+            assertTrue(selected.equals(REMOTE_A) || selected.equals(REMOTE_B), selected);
+        }
+
+        INSTANCES.forEach(request::exclude);
+        assertThrows(NoAvailableInstanceException.class, () -> zoneAwareStrategy.getInstanceUrl(INSTANCES, request));
+    }
+
+    @Test
+    void givenAllInstancesUnhealthy_whenSelecting_throwsNoAvailableInstance() {
+        INSTANCES.forEach(instanceTracker::markInstanceUnHealthy);
+
+        assertThrows(NoAvailableInstanceException.class, () -> zoneAwareStrategy.getInstanceUrl(INSTANCES));
+    }
+
+    @Test
+    void givenTierCapacities_whenComputingShares_thenTrafficSpillsInOrderAndIsNormalized() {
+        assertArrayEquals(new double[]{1.0, 1.0}, ZoneAwareStrategy.cumulativeShares(
+                new int[]{2, 2}, new int[]{2, 2}, 0.7), 1e-9);
+        assertArrayEquals(new double[]{0.5 / 0.7, 1.0}, ZoneAwareStrategy.cumulativeShares(
+                new int[]{1, 2}, new int[]{2, 2}, 0.7), 1e-9);
+        // Both tiers degraded: 0.25 + 0.25 of the traffic, split evenly after normalizing
+        assertArrayEquals(new double[]{0.5, 1.0}, ZoneAwareStrategy.cumulativeShares(
+                new int[]{1, 1}, new int[]{4, 4}, 1.0), 1e-9);
+        assertNull(ZoneAwareStrategy.cumulativeShares(new int[]{0, 0}, new int[]{2, 2}, 0.7));
+    }
+
+    @Test
+    void givenStrategy_whenGetNameIsCalled_thenReturnsWrappedName() {
+        assertEquals("roundrobin", zoneAwareStrategy.getName());
+    }
+
+    private Map<String, Integer> selectMany(int count) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            counts.merge(zoneAwareStrategy.getInstanceUrl(INSTANCES), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
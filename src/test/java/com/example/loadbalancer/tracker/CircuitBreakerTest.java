@@ -0,0 +1,125 @@
+package com.example.loadbalancer.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void givenClosedBreaker_whenAcquired_thenEveryRequestPasses() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 3);
+
+        assertSame(CircuitBreaker.Permit.PASS, circuitBreaker.tryAcquire());
+        assertSame(CircuitBreaker.Permit.PASS, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenOpenBreaker_whenAcquired_thenRequestIsRejected() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 3);
+
+        circuitBreaker.open();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenHalfOpenBreaker_whenPermitsAreTaken_thenFurtherRequestsAreRejected() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 3);
+        circuitBreaker.open();
+
+        assertTrue(circuitBreaker.halfOpen());
+
+        assertTrue(circuitBreaker.tryAcquire().trial());
+        assertTrue(circuitBreaker.tryAcquire().trial());
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenHalfOpenBreaker_whenEnoughTrialsSucceed_thenItCloses() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 2);
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+
+        assertNull(circuitBreaker.onTrialResult(circuitBreaker.tryAcquire(), true));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.onTrialResult(circuitBreaker.tryAcquire(), true));
+        assertSame(CircuitBreaker.Permit.PASS, circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenHalfOpenBreaker_whenTrialFails_thenItOpensAgain() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 3);
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.onTrialResult(circuitBreaker.tryAcquire(), false));
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenReleasedTrial_whenAcquiredAgain_thenPermitIsAvailable() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 3);
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+
+        CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        assertNull(circuitBreaker.tryAcquire());
+
+        circuitBreaker.releaseTrial(permit);
+
+        assertNotNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void givenTrialFromEarlierPeriod_whenItCompletes_thenBreakerIsNotMoved() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1);
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+        CircuitBreaker.Permit stale = circuitBreaker.tryAcquire();
+
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+
+        assertNull(circuitBreaker.onTrialResult(stale, true));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void givenClosedBreaker_whenHalfOpened_thenItStaysClosed() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 3);
+
+        assertFalse(circuitBreaker.halfOpen());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void givenConcurrentRequests_whenHalfOpen_thenOnlyConfiguredTrialsAreAdmitted() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 10);
+        circuitBreaker.open();
+        circuitBreaker.halfOpen();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<CircuitBreaker.Permit>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(executor.submit(circuitBreaker::tryAcquire));
+        }
+        int admitted = 0;
+        for (Future<CircuitBreaker.Permit> future : futures) {
+            if (future.get() != null) {
+                admitted++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(3, admitted);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.loadbalancer.tracker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceLoadTrackerTest {
+
+    private InstanceLoadTracker instanceLoadTracker;
+
+    private static final String INSTANCE = "http://localhost:8081";
+
+    @BeforeEach
+    void setUp() {
+        instanceLoadTracker = new InstanceLoadTracker();
+    }
+
+    @Test
+    void givenUnknownInstance_whenInFlightIsRead_thenReturnsZero() {
+        assertEquals(0, instanceLoadTracker.getInFlight(INSTANCE));
+    }
+
+    @Test
+    void givenRequestsStartAndFinish_whenInFlightIsRead_thenReflectsOutstandingRequests() {
+        instanceLoadTracker.incrementInFlight(INSTANCE);
+        instanceLoadTracker.incrementInFlight(INSTANCE);
+        instanceLoadTracker.decrementInFlight(INSTANCE);
+
+        assertEquals(1, instanceLoadTracker.getInFlight(INSTANCE));
+        assertEquals(0, instanceLoadTracker.getInFlight("http://localhost:8082"));
+    }
+
+    @Test
+    void givenConcurrentRequests_whenAllFinish_thenCounterReturnsToZero() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                instanceLoadTracker.incrementInFlight(INSTANCE);
+                instanceLoadTracker.decrementInFlight(INSTANCE);
+            });
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, instanceLoadTracker.getInFlight(INSTANCE));
+    }
+
+    @Test
+    void givenNoObservation_whenLatencyIsRead_thenReturnsZero() {
+        assertEquals(0, instanceLoadTracker.getLatencyEwma(INSTANCE));
+    }
+
+    @Test
+    void givenLatencySpike_whenRecorded_thenAverageJumpsToPeak() {
+        instanceLoadTracker.recordLatency(INSTANCE, 1_000_000);
+        instanceLoadTracker.recordLatency(INSTANCE, 50_000_000);
+
+        assertEquals(50_000_000, instanceLoadTracker.getLatencyEwma(INSTANCE), 50_000);
+    }
+
+    @Test
+    void givenFasterResponses_whenRecorded_thenAverageDecaysGradually() {
+        instanceLoadTracker.recordLatency(INSTANCE, 50_000_000);
+        instanceLoadTracker.recordLatency(INSTANCE, 1_000_000);
+
+        double latency = instanceLoadTracker.getLatencyEwma(INSTANCE);
+        assertTrue(latency > 1_000_000, "A single fast response should not erase the peak");
+        assertTrue(latency <= 50_000_000);
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.loadbalancer.tracker;
 
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.metrics.LoadBalancerMetrics;
+import com.example.loadbalancer.registry.BackendRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -66,4 +73,289 @@ class InstanceTrackerTest {
 
         assertTrue(instanceTracker.getUnhealthyInstances().isEmpty() || instanceTracker.getUnhealthyInstances().contains(instance));
     }
+
+    @Test
+    void givenUnhealthyInstance_whenSnapshotIsRead_thenOnlyHealthyInstancesAreIndexed() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8082");
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+
+        assertEquals(2, snapshot.healthyCount());
+        assertEquals("http://localhost:8081", snapshot.healthyInstance(0));
+        assertEquals("http://localhost:8083", snapshot.healthyInstance(1));
+        assertTrue(snapshot.isHealthy(0));
+        assertFalse(snapshot.isHealthy(1));
+    }
+
+    @Test
+    void givenUnchangedHealth_whenSnapshotIsRead_thenSameSnapshotIsReturned() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+
+        HealthySnapshot first = instanceTracker.getHealthySnapshot(instances);
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        assertSame(first, instanceTracker.getHealthySnapshot(instances));
+        assertSame(first, instanceTracker.getHealthySnapshot(new ArrayList<>(instances)));
+    }
+
+    @Test
+    void givenHealthChange_whenSnapshotIsRead_thenNewVersionIsPublished() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        HealthySnapshot first = instanceTracker.getHealthySnapshot(instances);
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        HealthySnapshot degraded = instanceTracker.getHealthySnapshot(instances);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+
+        assertTrue(degraded.version() > first.version());
+        assertSame(degraded, instanceTracker.getHealthySnapshot(instances));
+        assertEquals(2, first.healthyCount(), "Published snapshots are never mutated");
+        assertEquals(1, degraded.healthyCount());
+
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        assertEquals(2, instanceTracker.getHealthySnapshot(instances).healthyCount());
+    }
+
+    @Test
+    void givenConcurrentModifications_whenSettled_thenSnapshotMatchesUnhealthySet() throws InterruptedException {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+        instanceTracker.getHealthySnapshot(instances);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+
+        for (int i = 0; i < 1000; i++) {
+            String instance = instances.get(i % instances.size());
+            boolean unhealthy = i % 2 == 0;
+            executor.execute(() -> {
+                if (unhealthy) {
+                    instanceTracker.markInstanceUnHealthy(instance);
+                } else {
+                    instanceTracker.markInstanceHealthy(instance);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        for (int i = 0; i < instances.size(); i++) {
+            assertEquals(!instanceTracker.isInstanceUnhealthy(instances.get(i)), snapshot.isHealthy(i));
+        }
+        assertEquals(instances.size() - instanceTracker.getUnhealthyInstances().size(), snapshot.healthyCount());
+    }
+
+    @Test
+    void givenUnhealthyInstance_whenHalfOpened_thenItRejoinsTheSnapshotWithTrialPermits() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+
+        assertFalse(instanceTracker.isInstanceUnhealthy("http://localhost:8081"));
+        assertEquals(2, instanceTracker.getHealthySnapshot(instances).healthyCount());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, instanceTracker.getCircuitBreakerState("http://localhost:8081"));
+        assertTrue(instanceTracker.tryAcquire("http://localhost:8081").trial());
+        assertNull(instanceTracker.tryAcquire("http://localhost:8081"));
+    }
+
+    @Test
+    void givenHalfOpenInstance_whenTrialFails_thenItLeavesTheSnapshotAgain() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+
+        CircuitBreaker.Permit permit = instanceTracker.tryAcquire("http://localhost:8081");
+        instanceTracker.onRequestComplete("http://localhost:8081", permit, false);
+
+        assertTrue(instanceTracker.isInstanceUnhealthy("http://localhost:8081"));
+        assertEquals(1, instanceTracker.getHealthySnapshot(instances).healthyCount());
+    }
+
+    @Test
+    void givenHalfOpenInstance_whenEnoughTrialsSucceed_thenItIsClosed() {
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+
+        for (int i = 0; i < 3; i++) {
+            CircuitBreaker.Permit permit = instanceTracker.tryAcquire("http://localhost:8081");
+            instanceTracker.onRequestComplete("http://localhost:8081", permit, true);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, instanceTracker.getCircuitBreakerState("http://localhost:8081"));
+        assertSame(CircuitBreaker.Permit.PASS, instanceTracker.tryAcquire("http://localhost:8081"));
+    }
+
+    @Test
+    void givenHealthyInstance_whenHalfOpened_thenNothingChanges() {
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+
+        assertEquals(CircuitBreaker.State.CLOSED, instanceTracker.getCircuitBreakerState("http://localhost:8081"));
+        assertSame(CircuitBreaker.Permit.PASS, instanceTracker.tryAcquire("http://localhost:8081"));
+    }
+
+    @Test
+    void givenHealthTransitions_whenRecorded_thenEachStateIsCountedPerInstance() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        instanceTracker = new InstanceTracker(new AppConfig(), new LoadBalancerMetrics(meterRegistry));
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHalfOpen("http://localhost:8081");
+        instanceTracker.onRequestComplete("http://localhost:8081",
+                instanceTracker.tryAcquire("http://localhost:8081"), false);
+
+        assertEquals(2, meterRegistry.get("loadbalancer.health.transitions")
+                .tags("instance", "http://localhost:8081", "state", "open").counter().count());
+        assertEquals(1, meterRegistry.get("loadbalancer.health.transitions")
+                .tags("instance", "http://localhost:8081", "state", "half_open").counter().count());
+        assertEquals(0, meterRegistry.get("loadbalancer.health.transitions")
+                .tags("instance", "http://localhost:8081", "state", "closed").counter().count());
+    }
+
+    @Test
+    void givenSlowStart_whenUnhealthyInstanceRecovers_thenItRampsUpFromMinimumFactor() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        instanceTracker = new InstanceTracker(slowStartConfig(Duration.ofHours(1)), new LoadBalancerMetrics(meterRegistry));
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        assertFalse(instanceTracker.getHealthySnapshot(instances).isWarmingUp());
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        assertTrue(snapshot.isWarmingUp());
+        assertEquals(0.1, snapshot.weightFactor(0, System.nanoTime()), 0.01);
+        assertEquals(1.0, snapshot.weightFactor(1, System.nanoTime()));
+        assertEquals(0.1, instanceTracker.getWeightFactor("http://localhost:8081"), 0.01);
+        assertEquals(1, meterRegistry.get("loadbalancer.slowstart.ramps")
+                .tag("instance", "http://localhost:8081").counter().count());
+        assertEquals(0.1, meterRegistry.get("loadbalancer.slowstart.weight.factor")
+                .tag("instance", "http://localhost:8081").gauge().value(), 0.01);
+    }
+
+    @Test
+    void givenSlowStart_whenWindowIsOver_thenSnapshotIsRebuiltWithFullWeight() throws InterruptedException {
+        instanceTracker = new InstanceTracker(slowStartConfig(Duration.ofMillis(50)), LoadBalancerMetrics.noop());
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        instanceTracker.getHealthySnapshot(instances);
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+        assertTrue(instanceTracker.getHealthySnapshot(instances).isWarmingUp());
+
+        Thread.sleep(100);
+
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(instances);
+        assertFalse(snapshot.isWarmingUp());
+        assertEquals(1.0, snapshot.weightFactor(0, System.nanoTime()));
+        assertEquals(1.0, instanceTracker.getWeightFactor("http://localhost:8081"));
+    }
+
+    @Test
+    void givenSlowStart_whenInstanceJoinsTheList_thenOnlyTheNewInstanceRampsUp() {
+        instanceTracker = new InstanceTracker(slowStartConfig(Duration.ofHours(1)), LoadBalancerMetrics.noop());
+        assertFalse(instanceTracker.getHealthySnapshot(List.of("http://localhost:8081")).isWarmingUp());
+
+        HealthySnapshot snapshot = instanceTracker.getHealthySnapshot(
+                List.of("http://localhost:8081", "http://localhost:8082"));
+
+        assertEquals(1.0, snapshot.weightFactor(0, System.nanoTime()));
+        assertEquals(0.1, snapshot.weightFactor(1, System.nanoTime()), 0.01);
+    }
+
+    @Test
+    void givenSlowStartDisabled_whenInstanceRecovers_thenItTakesFullWeightAtOnce() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082");
+        instanceTracker.getHealthySnapshot(instances);
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+        instanceTracker.markInstanceHealthy("http://localhost:8081");
+
+        assertFalse(instanceTracker.getHealthySnapshot(instances).isWarmingUp());
+        assertEquals(1.0, instanceTracker.getWeightFactor("http://localhost:8081"));
+    }
+
+    @Test
+    void givenAggression_whenRampAdvances_thenFactorFollowsThePower() {
+        long window = 1_000;
+
+        assertEquals(0.25, HealthySnapshot.Ramp.factor(0, 250, window, 0.1, 1.0), 1e-9);
+        assertEquals(0.25, HealthySnapshot.Ramp.factor(0, 500, window, 0.1, 2.0), 1e-9);
+        assertEquals(0.1, HealthySnapshot.Ramp.factor(0, 100, window, 0.1, 2.0), 1e-9);
+        assertEquals(1.0, HealthySnapshot.Ramp.factor(0, window, window, 0.1, 2.0));
+        assertEquals(1.0, HealthySnapshot.Ramp.factor(HealthySnapshot.Ramp.NOT_RAMPING, 0, window, 0.1, 1.0));
+    }
+
+    @Test
+    void givenInstanceSubset_whenParentHealthChanges_thenSubsetViewFollowsWithoutReplacingParent() {
+        List<String> instances = List.of("http://localhost:8081", "http://localhost:8082", "http://localhost:8083");
+        InstanceSubset subset = new InstanceSubset(instances, new int[]{0, 2});
+        HealthySnapshot parent = instanceTracker.getHealthySnapshot(instances);
+
+        assertEquals(2, instanceTracker.getHealthySnapshot(subset).healthyCount());
+        assertSame(parent, instanceTracker.getHealthySnapshot(instances));
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8083");
+
+        HealthySnapshot view = instanceTracker.getHealthySnapshot(subset);
+        assertEquals(1, view.healthyCount());
+        assertEquals("http://localhost:8081", view.healthyInstance(0));
+        assertFalse(view.isHealthy(1));
+        assertSame(view, instanceTracker.getHealthySnapshot(subset));
+        assertSame(instances, instanceTracker.getHealthySnapshot(instances).instances());
+    }
+
+    @Test
+    void givenRegistryChange_whenOldAndNewListsAlternate_thenSnapshotAndRampsStayFixed() {
+        AppConfig appConfig = slowStartConfig(Duration.ofHours(1));
+        appConfig.setInstances(List.of("http://localhost:8081", "http://localhost:8082"));
+        BackendRegistry registry = new BackendRegistry(appConfig);
+        instanceTracker = new InstanceTracker(appConfig, LoadBalancerMetrics.noop(), registry);
+        List<String> oldInstances = registry.getInstances();
+
+        registry.register("http://localhost:8083", 1);
+        registry.deregister("http://localhost:8082");
+        List<String> newInstances = registry.getInstances();
+        HealthySnapshot published = instanceTracker.getHealthySnapshot(newInstances);
+        long now = System.nanoTime();
+        double rampFactor = published.weightFactor(1, now);
+
+        for (int i = 0; i < 10; i++) {
+            HealthySnapshot stale = instanceTracker.getHealthySnapshot(oldInstances);
+            assertSame(oldInstances, stale.instances());
+            assertEquals(published.version(), stale.version());
+            assertEquals(1, stale.healthyCount(), "The deregistered instance gets no traffic");
+            assertEquals("http://localhost:8081", stale.healthyInstance(0));
+
+            HealthySnapshot current = instanceTracker.getHealthySnapshot(newInstances);
+            assertSame(published, current);
+            assertEquals(rampFactor, current.weightFactor(1, now));
+        }
+        assertTrue(rampFactor < 1.0);
+    }
+
+    @Test
+    void givenRegistryFedTracker_whenHealthChanges_thenStaleListFollowsTheCurrentHealth() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setInstances(List.of("http://localhost:8081", "http://localhost:8082"));
+        BackendRegistry registry = new BackendRegistry(appConfig);
+        instanceTracker = new InstanceTracker(appConfig, LoadBalancerMetrics.noop(), registry);
+        List<String> oldInstances = registry.getInstances();
+        registry.register("http://localhost:8083", 1);
+
+        instanceTracker.markInstanceUnHealthy("http://localhost:8081");
+
+        assertSame(registry.getInstances(), instanceTracker.getHealthySnapshot(registry.getInstances()).instances());
+        assertEquals(2, instanceTracker.getHealthySnapshot(registry.getInstances()).healthyCount());
+        HealthySnapshot stale = instanceTracker.getHealthySnapshot(oldInstances);
+        assertFalse(stale.isHealthy(0));
+        assertTrue(stale.isHealthy(1));
+    }
+
+    static AppConfig slowStartConfig(Duration window) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getSlowStart().setEnabled(true);
+        appConfig.getSlowStart().setWindow(window);
+        return appConfig;
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.loadbalancer.tracker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void givenNoRecordings_whenPercentileIsRead_thenItIsUnknown() {
+        assertEquals(-1, new LatencyHistogram().percentileNanos(0.95));
+    }
+
+    @Test
+    void givenRecordedLatencies_whenPercentileIsRead_thenItIsWithinBucketPrecision() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            latencyHistogram.record(i * MILLIS);
+        }
+
+        long p50 = latencyHistogram.percentileNanos(0.5);
+        long p95 = latencyHistogram.percentileNanos(0.95);
+
+        assertTrue(p50 >= 50 * MILLIS && p50 <= 50 * MILLIS * 1.125, "p50 was " + p50);
+        assertTrue(p95 >= 95 * MILLIS && p95 <= 95 * MILLIS * 1.125, "p95 was " + p95);
+    }
+
+    @Test
+    void givenTwoRotations_whenPercentileIsRead_thenOldLatenciesAreDropped() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record(500 * MILLIS);
+
+        latencyHistogram.rotate();
+        latencyHistogram.record(MILLIS);
+        assertTrue(latencyHistogram.percentileNanos(1) >= 500 * MILLIS, "The previous window still counts");
+
+        latencyHistogram.rotate();
+        assertTrue(latencyHistogram.percentileNanos(1) < 2 * MILLIS);
+    }
+
+    @Test
+    void givenAnyLatency_whenBucketed_thenItIsBelowItsBucketUpperBound() {
+        for (long micros = 1; micros < 10_000_000; micros = micros * 3 / 2 + 1) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || micros > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+    }
+}
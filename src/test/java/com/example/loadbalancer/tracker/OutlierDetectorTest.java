@@ -0,0 +1,162 @@
+package com.example.loadbalancer.tracker;
+
+import com.example.loadbalancer.config.AppConfig;
+import com.example.loadbalancer.registry.BackendRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutlierDetectorTest {
+
+    private static final String INSTANCE_A = "http://localhost:8081";
+    private static final String INSTANCE_B = "http://localhost:8082";
+    private static final String INSTANCE_C = "http://localhost:8083";
+    private static final String INSTANCE_D = "http://localhost:8084";
+
+    private static final long MILLIS = 1_000_000;
+
+    private InstanceTracker instanceTracker;
+    private AppConfig appConfig;
+    private BackendRegistry backendRegistry;
+    private OutlierDetector outlierDetector;
+
+    @BeforeEach
+    void setUp() {
+        instanceTracker = new InstanceTracker();
+        appConfig = new AppConfig();
+        appConfig.setInstances(List.of(INSTANCE_A, INSTANCE_B, INSTANCE_C, INSTANCE_D));
+        appConfig.getOutlierDetection().setWindowSize(10);
+        appConfig.getOutlierDetection().setMinimumRequests(5);
+        appConfig.getOutlierDetection().setConsecutiveFailures(3);
+        backendRegistry = new BackendRegistry(appConfig);
+        outlierDetector = new OutlierDetector(instanceTracker, appConfig, backendRegistry);
+    }
+
+    @Test
+    void givenSingleFailure_whenRecorded_thenInstanceStaysInRotation() {
+        outlierDetector.recordFailure(INSTANCE_A);
+
+        assertFalse(instanceTracker.isInstanceUnhealthy(INSTANCE_A));
+        assertFalse(outlierDetector.isEjected(INSTANCE_A));
+    }
+
+    @Test
+    void givenConsecutiveFailures_whenThresholdIsReached_thenInstanceIsEjected() {
+        appConfig.getOutlierDetection().setMinimumRequests(100);
+
+        outlierDetector.recordFailure(INSTANCE_A);
+        outlierDetector.recordFailure(INSTANCE_A);
+        outlierDetector.recordSuccess(INSTANCE_A, MILLIS);
+        outlierDetector.recordFailure(INSTANCE_A);
+        outlierDetector.recordFailure(INSTANCE_A);
+
+        assertFalse(instanceTracker.isInstanceUnhealthy(INSTANCE_A), "A success resets the consecutive count");
+
+        outlierDetector.recordFailure(INSTANCE_A);
+
+        assertTrue(instanceTracker.isInstanceUnhealthy(INSTANCE_A));
+        assertTrue(outlierDetector.isEjected(INSTANCE_A));
+        assertEquals(0, outlierDetector.getStats(INSTANCE_A).count(), "The window restarts after an ejection");
+    }
+
+    @Test
+    void givenFailureRateAboveThreshold_whenWindowIsFull_thenInstanceIsEjected() {
+        appConfig.getOutlierDetection().setConsecutiveFailures(100);
+
+        for (int i = 0; i < 4; i++) {
+            outlierDetector.recordSuccess(INSTANCE_A, MILLIS);
+            outlierDetector.recordFailure(INSTANCE_A);
+        }
+
+        assertTrue(instanceTracker.isInstanceUnhealthy(INSTANCE_A));
+    }
+
+    @Test
+    void givenOldFailures_whenWindowSlides_thenTheyStopCounting() {
+        appConfig.getOutlierDetection().setConsecutiveFailures(100);
+        appConfig.getOutlierDetection().setMinimumRequests(10);
+
+        for (int i = 0; i < 4; i++) {
+            outlierDetector.recordFailure(INSTANCE_A);
+        }
+        for (int i = 0; i < 10; i++) {
+            outlierDetector.recordSuccess(INSTANCE_A, MILLIS);
+        }
+
+        OutlierDetector.WindowStats stats = outlierDetector.getStats(INSTANCE_A);
+        assertEquals(10, stats.count());
+        assertEquals(0, stats.failures());
+        assertEquals(MILLIS, stats.meanLatencyNanos());
+    }
+
+    @Test
+    void givenSlowInstance_whenLatencyOutliersAreDetected_thenOnlyItIsEjected() {
+        for (int i = 0; i < 5; i++) {
+            outlierDetector.recordSuccess(INSTANCE_A, 100 * MILLIS);
+            outlierDetector.recordSuccess(INSTANCE_B, 10 * MILLIS);
+            outlierDetector.recordSuccess(INSTANCE_C, 12 * MILLIS);
+            outlierDetector.recordSuccess(INSTANCE_D, 8 * MILLIS);
+        }
+
+        outlierDetector.detectLatencyOutliers();
+
+        assertEquals(Set.of(INSTANCE_A), instanceTracker.getUnhealthyInstances());
+    }
+
+    @Test
+    void givenManyFailingInstances_whenEjecting_thenMaxEjectionPercentIsRespected() {
+        for (String instance : List.of(INSTANCE_A, INSTANCE_B, INSTANCE_C, INSTANCE_D)) {
+            for (int i = 0; i < 3; i++) {
+                outlierDetector.recordFailure(instance);
+            }
+        }
+
+        // 50% of four instances
+        assertEquals(2, instanceTracker.getUnhealthyInstances().size());
+    }
+
+    @Test
+    void givenEjectedInstanceWasDeregistered_whenAnotherFails_thenItCanStillBeEjected() {
+        backendRegistry.replaceAll(Map.of(INSTANCE_A, 1, INSTANCE_B, 1));
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.recordFailure(INSTANCE_A);
+        }
+        backendRegistry.deregister(INSTANCE_A);
+        backendRegistry.register(INSTANCE_C, 1);
+
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.recordFailure(INSTANCE_B);
+        }
+
+        assertTrue(instanceTracker.isInstanceUnhealthy(INSTANCE_B));
+    }
+
+    @Test
+    void givenSingleInstancePool_whenItFails_thenItIsNeverEjected() {
+        backendRegistry.replaceAll(Map.of(INSTANCE_A, 1));
+
+        for (int i = 0; i < 10; i++) {
+            outlierDetector.recordFailure(INSTANCE_A);
+        }
+
+        assertFalse(instanceTracker.isInstanceUnhealthy(INSTANCE_A));
+    }
+
+    @Test
+    void givenElapsedEjectionTime_whenChecked_thenInstanceIsNoLongerEjected() {
+        appConfig.getOutlierDetection().setEjectionTime(Duration.ZERO);
+
+        for (int i = 0; i < 3; i++) {
+            outlierDetector.recordFailure(INSTANCE_A);
+        }
+
+        assertTrue(instanceTracker.isInstanceUnhealthy(INSTANCE_A));
+        assertFalse(outlierDetector.isEjected(INSTANCE_A));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.loadbalancer.tracker;
+
+import com.example.loadbalancer.config.AppConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    private static RetryBudget retryBudget(double ratio, int maxTokens) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getRetryBudget().setRatio(ratio);
+        appConfig.getRetryBudget().setMaxTokens(maxTokens);
+        return new RetryBudget(appConfig);
+    }
+
+    @Test
+    void givenFullBucket_whenWithdrawn_thenCapacityIsAvailable() {
+        RetryBudget retryBudget = retryBudget(0.2, 3);
+
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    void givenEmptyBucket_whenRequestsDeposit_thenRetriesFollowTheRatio() {
+        RetryBudget retryBudget = retryBudget(0.2, 1);
+        retryBudget.tryWithdraw();
+
+        for (int i = 0; i < 4; i++) {
+            retryBudget.deposit();
+        }
+        assertFalse(retryBudget.tryWithdraw());
+
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    void givenFullBucket_whenDeposited_thenCapacityIsNotExceeded() {
+        RetryBudget retryBudget = retryBudget(0.5, 2);
+
+        for (int i = 0; i < 100; i++) {
+            retryBudget.deposit();
+        }
+
+        assertEquals(2, retryBudget.getAvailableTokens());
+    }
+}